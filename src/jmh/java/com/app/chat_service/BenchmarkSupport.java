@@ -0,0 +1,31 @@
+package com.app.chat_service;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/** Collaborators shared by the benchmarks, configured the way Spring Boot configures them */
+public final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /** Same defaults as the application's auto-configured ObjectMapper */
+    public static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    /**
+     * A template whose broker channel accepts and drops every message. Payloads still go through
+     * the Jackson message converter, as they do on the way to the real broker.
+     */
+    public static SimpMessagingTemplate messagingTemplate() {
+        SimpMessagingTemplate template = new SimpMessagingTemplate((message, timeout) -> true);
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper());
+        template.setMessageConverter(converter);
+        return template;
+    }
+}
@@ -0,0 +1,88 @@
+package com.app.chat_service.dto;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.app.chat_service.BenchmarkSupport;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Jackson cost of the two payloads on every hot path: ChatMessageResponse (Redis fan-out and
+ * WebSocket delivery, both directions) and ChatMessageOverviewDTO (history pages).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private ChatMessageResponse response;
+    private byte[] responseJson;
+    private ChatMessageOverviewDTO overview;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = BenchmarkSupport.objectMapper();
+
+        response = new ChatMessageResponse();
+        response.setId(123_456L);
+        response.setSender("EMP001");
+        response.setReceiver("EMP002");
+        response.setType("PRIVATE");
+        response.setContent("Can you review the report before the standup tomorrow? @EMP002");
+        response.setTimestamp(LocalDateTime.of(2024, 5, 17, 9, 30, 12));
+        response.setClientId("c0a8012e-5d1f-4a8e-9f3b-7d2a1c4e6b90");
+        response.setReplyTo(new ChatMessageResponse.ReplyInfo("EMP002", "Sent the report", 123_400L, "text"));
+        responseJson = objectMapper.writeValueAsBytes(response);
+
+        overview = ChatMessageOverviewDTO.builder()
+                .messageId(123_456L)
+                .time("09:30 AM")
+                .date("2024-05-17")
+                .sender("EMP001")
+                .receiver("EMP002")
+                .type("PRIVATE")
+                .kind("text")
+                .isSeen("true")
+                .content("Can you review the report before the standup tomorrow? @EMP002")
+                .fileSize(0L)
+                .replyTo(ReplyInfoDTO.builder()
+                        .senderId("EMP002")
+                        .content("Sent the report")
+                        .originalMessageId(123_400L)
+                        .type("text")
+                        .build())
+                .build();
+    }
+
+    @Benchmark
+    public byte[] writeChatMessageResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public ChatMessageResponse readChatMessageResponse() throws IOException {
+        return objectMapper.readValue(responseJson, ChatMessageResponse.class);
+    }
+
+    @Benchmark
+    public byte[] writeChatMessageOverview() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(overview);
+    }
+}
@@ -0,0 +1,102 @@
+package com.app.chat_service.redis;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.Message;
+
+import com.app.chat_service.BenchmarkSupport;
+import com.app.chat_service.dto.ChatMessageResponse;
+import com.app.chat_service.metrics.MessageStageMetrics;
+import com.app.chat_service.repo.ChatMessageRepository;
+import com.app.chat_service.repo.MessageReadStatusRepository;
+import com.app.chat_service.service.ChatPresenceTracker;
+import com.app.chat_service.service.OnlineUserService;
+import com.app.chat_service.service.TeamService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * RedisSubscriber.onMessage: decode the Redis payload and dispatch it to WebSocket
+ * destinations. The broker is a stub that drops messages after conversion; repositories and
+ * employee-service are mocks, so only the in-process work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisSubscriberBenchmark {
+
+    private static final byte[] CHANNEL = "chat".getBytes(StandardCharsets.UTF_8);
+    private static final int TEAM_SIZE = 50;
+
+    private RedisSubscriber subscriber;
+    private Message privateMessage;
+    private Message teamMessage;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = BenchmarkSupport.objectMapper();
+        ChatPresenceTracker tracker = new ChatPresenceTracker();
+        OnlineUserService onlineUsers = new OnlineUserService();
+        onlineUsers.addUser("EMP002", "session-2");
+
+        TeamService teamService = mock(TeamService.class);
+        List<String> members = IntStream.range(0, TEAM_SIZE).mapToObj(i -> "EMP" + i).toList();
+        when(teamService.getEmployeeIdsByTeamId(anyString())).thenReturn(members);
+
+        // findById answers Optional.empty(), so no read receipts are written
+        subscriber = new RedisSubscriber(BenchmarkSupport.messagingTemplate(), objectMapper, tracker, teamService,
+                onlineUsers, mock(ChatMessageRepository.class), mock(MessageReadStatusRepository.class),
+                new MessageStageMetrics(new SimpleMeterRegistry()), Runnable::run);
+
+        privateMessage = new DefaultMessage(CHANNEL, objectMapper.writeValueAsBytes(
+                message("PRIVATE", "EMP002", null)));
+        teamMessage = new DefaultMessage(CHANNEL, objectMapper.writeValueAsBytes(
+                message("TEAM", null, "TEAM001")));
+    }
+
+    @Benchmark
+    public void privateMessage() {
+        subscriber.onMessage(privateMessage, CHANNEL);
+    }
+
+    @Benchmark
+    public void teamMessage() {
+        subscriber.onMessage(teamMessage, CHANNEL);
+    }
+
+    private static ChatMessageResponse message(String type, String receiver, String groupId) {
+        ChatMessageResponse message = new ChatMessageResponse();
+        message.setId(123_456L);
+        message.setSender("EMP001");
+        message.setReceiver(receiver);
+        message.setGroupId(groupId);
+        message.setType(type);
+        message.setContent("Can you review the report before the standup tomorrow?");
+        message.setTimestamp(LocalDateTime.of(2024, 5, 17, 9, 30, 12));
+        message.setClientId("c0a8012e-5d1f-4a8e-9f3b-7d2a1c4e6b90");
+        return message;
+    }
+}
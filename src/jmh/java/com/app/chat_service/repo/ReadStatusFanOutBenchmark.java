@@ -0,0 +1,141 @@
+package com.app.chat_service.repo;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Read-receipt fan-out of one message to a 500-member team, in rows per second, with the
+ * statements Hibernate issues for each id mapping of MessageReadStatus:
+ * <ul>
+ * <li>{@code identity} - the old IDENTITY ids: one INSERT ... RETURNING id round trip per row</li>
+ * <li>{@code pooled} - pooled-lo sequence ids (V4): one nextval per 50 ids and JDBC batches of 50,
+ * rewritten into multi-row INSERTs by the driver as the application configures it</li>
+ * </ul>
+ * Runs against a throwaway Postgres (Testcontainers, so Docker is needed); each invocation is
+ * one message's fan-out in its own transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadStatusFanOutBenchmark {
+
+    private static final int TEAM_SIZE = 500;
+    private static final int BLOCK = 50;
+
+    @Param({"identity", "pooled"})
+    public String ids;
+
+    private PostgreSQLContainer<?> postgres;
+    private Connection connection;
+    private long messageId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+        Properties props = new Properties();
+        props.setProperty("user", postgres.getUsername());
+        props.setProperty("password", postgres.getPassword());
+        props.setProperty("reWriteBatchedInserts", "true");
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), props);
+        connection.setAutoCommit(false);
+        // message_read_status as before and after V4, with its (message_id, user_id) index
+        try (Statement st = connection.createStatement()) {
+            st.execute("""
+                    CREATE TABLE read_status_identity (
+                        id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                        message_id bigint NOT NULL, user_id varchar(255) NOT NULL, read_at timestamp(6))""");
+            st.execute("CREATE INDEX ON read_status_identity (message_id, user_id)");
+            st.execute("CREATE SEQUENCE read_status_pooled_seq INCREMENT BY " + BLOCK);
+            st.execute("""
+                    CREATE TABLE read_status_pooled (
+                        id bigint PRIMARY KEY,
+                        message_id bigint NOT NULL, user_id varchar(255) NOT NULL, read_at timestamp(6))""");
+            st.execute("CREATE INDEX ON read_status_pooled (message_id, user_id)");
+        }
+        connection.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TEAM_SIZE)
+    public void fanOut() throws SQLException {
+        messageId++;
+        if ("identity".equals(ids)) {
+            identityFanOut();
+        } else {
+            pooledFanOut();
+        }
+        connection.commit();
+    }
+
+    private void identityFanOut() throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO read_status_identity (message_id, user_id, read_at) VALUES (?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int member = 0; member < TEAM_SIZE; member++) {
+                insert.setLong(1, messageId);
+                insert.setString(2, "EMP" + member);
+                insert.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                }
+            }
+        }
+    }
+
+    private void pooledFanOut() throws SQLException {
+        try (PreparedStatement next = connection.prepareStatement("SELECT nextval('read_status_pooled_seq')");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO read_status_pooled (id, message_id, user_id, read_at) VALUES (?, ?, ?, ?)")) {
+            long id = 0;
+            for (int member = 0; member < TEAM_SIZE; member++) {
+                if (member % BLOCK == 0) {
+                    try (ResultSet rs = next.executeQuery()) {
+                        rs.next();
+                        id = rs.getLong(1);
+                    }
+                }
+                insert.setLong(1, id++);
+                insert.setLong(2, messageId);
+                insert.setString(3, "EMP" + member);
+                insert.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+                insert.addBatch();
+                if ((member + 1) % BLOCK == 0) {
+                    insert.executeBatch();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.app.chat_service.service;
+
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.app.chat_service.cache.CacheInvalidationPublisher;
+import com.app.chat_service.cache.ChatVisibilityCache;
+import com.app.chat_service.dto.ChatHistoryRow;
+import com.app.chat_service.dto.ChatMessageOverviewDTO;
+import com.app.chat_service.repo.ClearedChatRepository;
+import com.app.chat_service.repo.MessageActionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * History page mapping in ChatMessageOverviewService: rows from the history projection to
+ * overview DTOs, including the delete-for-me check against a warm visibility cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OverviewMappingBenchmark {
+
+    private static final String USER = "EMP001";
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    private ChatMessageOverviewService service;
+    private List<ChatHistoryRow> rows;
+
+    @Setup
+    public void setUp() {
+        // Mocked repositories answer empty: nobody has cleared or hidden anything
+        ChatVisibilityCache visibilityCache = new ChatVisibilityCache(
+                mock(ClearedChatRepository.class), mock(MessageActionRepository.class),
+                mock(CacheInvalidationPublisher.class), new SimpleMeterRegistry(), 1000, Duration.ofHours(1));
+        service = new ChatMessageOverviewService(null, null, visibilityCache, null);
+
+        rows = new ArrayList<>(pageSize);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < pageSize; i++) {
+            long id = 10_000L + i;
+            boolean file = i % 5 == 0;
+            boolean reply = i % 4 == 0;
+            rows.add(new ChatHistoryRow(id, i % 2 == 0 ? USER : "EMP002", i % 2 == 0 ? "EMP002" : USER, null,
+                    "PRIVATE", file ? "report.pdf" : "Message number " + i + " with some ordinary chat text",
+                    now.minusMinutes(i), file ? "report.pdf" : null, file ? "application/pdf" : null,
+                    file ? 48_213L : null, null, i % 3 == 0, reply ? "Earlier message" : null, null, null,
+                    false, reply ? id - 1 : null, reply ? "EMP002" : null, null, null));
+        }
+        service.toOverview(USER, rows);
+    }
+
+    @Benchmark
+    public List<ChatMessageOverviewDTO> mapPage() {
+        return service.toOverview(USER, rows);
+    }
+}
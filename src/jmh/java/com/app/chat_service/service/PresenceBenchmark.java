@@ -0,0 +1,92 @@
+package com.app.chat_service.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ChatPresenceTracker and OnlineUserService under contention: most threads ask who is
+ * online / has a window open (every delivered message does), a few connect, disconnect and
+ * switch chats at the same time.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PresenceBenchmark {
+
+    private static final int USERS = 5_000;
+    private static final int TEAMS = 200;
+
+    private ChatPresenceTracker tracker;
+    private OnlineUserService onlineUsers;
+
+    @Setup
+    public void setUp() {
+        tracker = new ChatPresenceTracker();
+        onlineUsers = new OnlineUserService();
+        for (int i = 0; i < USERS; i++) {
+            onlineUsers.addUser(user(i), "session-" + i);
+            tracker.openChat(user(i), team(i % TEAMS));
+        }
+    }
+
+    @Benchmark
+    @Group("windows")
+    @GroupThreads(6)
+    public boolean isChatWindowOpen() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return tracker.isChatWindowOpen(user(random.nextInt(USERS)), team(random.nextInt(TEAMS)));
+    }
+
+    @Benchmark
+    @Group("windows")
+    @GroupThreads(2)
+    public void switchChat() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String user = user(random.nextInt(USERS));
+        tracker.closeChat(user, team(random.nextInt(TEAMS)));
+        tracker.openChat(user, team(random.nextInt(TEAMS)));
+    }
+
+    @Benchmark
+    @Group("sessions")
+    @GroupThreads(6)
+    public boolean isOnline() {
+        return onlineUsers.isOnline(user(ThreadLocalRandom.current().nextInt(USERS * 2)));
+    }
+
+    // Second sessions of existing users and first sessions of new ones, so first/last-session transitions happen too
+    @Benchmark
+    @Group("sessions")
+    @GroupThreads(2)
+    public void connectAndDisconnect() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String user = user(random.nextInt(USERS * 2));
+        String session = "bench-" + Thread.currentThread().threadId() + "-" + random.nextInt(1_000);
+        onlineUsers.addUser(user, session);
+        onlineUsers.removeUser(user, session);
+    }
+
+    private static String user(int i) {
+        return "EMP" + i;
+    }
+
+    private static String team(int i) {
+        return "TEAM" + i;
+    }
+}
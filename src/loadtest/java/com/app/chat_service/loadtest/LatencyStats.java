@@ -0,0 +1,61 @@
+package com.app.chat_service.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency histogram of one measured path (send to ack, send to delivery) in microseconds,
+ * with a count of samples that never arrived within the timeout.
+ */
+public class LatencyStats {
+
+    private final String name;
+    // Auto-resizing, 3 significant digits: 0.1% error at any latency
+    private final ConcurrentHistogram histogram = new ConcurrentHistogram(3);
+    private final LongAdder lost = new LongAdder();
+
+    public LatencyStats(String name) {
+        this.name = name;
+    }
+
+    public void record(long startNanos, long endNanos) {
+        histogram.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos)));
+    }
+
+    public void lost(long count) {
+        lost.add(count);
+    }
+
+    /** Percentiles in milliseconds and the rate over {@code seconds} */
+    public Map<String, Object> summary(double seconds) {
+        Histogram copy = histogram.copy();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", copy.getTotalCount());
+        summary.put("lost", lost.sum());
+        summary.put("perSecond", round(copy.getTotalCount() / seconds));
+        summary.put("p50Ms", millis(copy.getValueAtPercentile(50)));
+        summary.put("p90Ms", millis(copy.getValueAtPercentile(90)));
+        summary.put("p99Ms", millis(copy.getValueAtPercentile(99)));
+        summary.put("p999Ms", millis(copy.getValueAtPercentile(99.9)));
+        summary.put("maxMs", millis(copy.getMaxValue()));
+        summary.put("meanMs", round(copy.getMean() / 1000.0));
+        return summary;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,89 @@
+package com.app.chat_service.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Command-line options of {@link StompLoadGenerator}, given as {@code --name=value}.
+ * Durations use ISO-8601 ({@code PT2M}); ratios are per send.
+ */
+public record LoadTestOptions(
+        String url,
+        int users,
+        int connectRate,
+        int rate,
+        double privateRatio,
+        double typingRatio,
+        double presenceRatio,
+        int teams,
+        Duration warmup,
+        Duration duration,
+        Duration timeout,
+        int stubPort,
+        Path output) {
+
+    static final String USAGE = """
+            Options (--name=value):
+              url            STOMP endpoint                         ws://localhost:8080/api/chat
+              users          concurrent sessions, EMP001..EMPnnn    500
+              connect-rate   new sessions per second                200
+              rate           messages sent per second, all users    200
+              private-ratio  share of sends that are private        0.7
+              typing-ratio   typing events per send                 0.5
+              presence-ratio chat open/close pairs per send         0.1
+              teams          team topics the users are spread over  10
+              warmup         sent but not measured                  PT10S
+              duration       measured                               PT60S
+              timeout        ack/delivery counted as lost after     PT10S
+              stub-port      employee-service stub port, 0 = none   8090
+              output         JSON result file                       target/loadtest-result.json
+            """;
+
+    private static final Set<String> NAMES = Set.of("url", "users", "connect-rate", "rate", "private-ratio",
+            "typing-ratio", "presence-ratio", "teams", "warmup", "duration", "timeout", "stub-port", "output");
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg + "\n" + USAGE);
+            }
+            int eq = arg.indexOf('=');
+            String name = arg.substring(2, eq);
+            if (!NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name + "\n" + USAGE);
+            }
+            values.put(name, arg.substring(eq + 1));
+        }
+        LoadTestOptions options = new LoadTestOptions(
+                values.getOrDefault("url", "ws://localhost:8080/api/chat"),
+                Integer.parseInt(values.getOrDefault("users", "500")),
+                Integer.parseInt(values.getOrDefault("connect-rate", "200")),
+                Integer.parseInt(values.getOrDefault("rate", "200")),
+                Double.parseDouble(values.getOrDefault("private-ratio", "0.7")),
+                Double.parseDouble(values.getOrDefault("typing-ratio", "0.5")),
+                Double.parseDouble(values.getOrDefault("presence-ratio", "0.1")),
+                Integer.parseInt(values.getOrDefault("teams", "10")),
+                Duration.parse(values.getOrDefault("warmup", "PT10S")),
+                Duration.parse(values.getOrDefault("duration", "PT60S")),
+                Duration.parse(values.getOrDefault("timeout", "PT10S")),
+                Integer.parseInt(values.getOrDefault("stub-port", "8090")),
+                Path.of(values.getOrDefault("output", "target/loadtest-result.json")));
+        if (options.users < 2 || options.teams < 1 || options.rate < 1 || options.connectRate < 1) {
+            throw new IllegalArgumentException("users must be at least 2, teams, rate and connect-rate at least 1");
+        }
+        return options;
+    }
+
+    /** Employee id of the n-th simulated user, in the stub's EMP001.. format */
+    public static String employeeId(int index) {
+        return String.format("EMP%03d", index + 1);
+    }
+
+    public static String teamId(int index) {
+        return String.format("TEAM-LT%02d", index + 1);
+    }
+}
@@ -0,0 +1,380 @@
+package com.app.chat_service.loadtest;
+
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import com.app.chat_service.feignclient.EmployeeServiceStubServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * End-to-end load generator for the STOMP endpoint. Opens one session per simulated employee
+ * with the {@code employeeId} handshake the web client uses, then sends a fixed-rate mix of
+ * private and team messages, typing events and chat open/close, and measures send to ack and
+ * send to recipient delivery.
+ * <p>
+ * Latency starts at the time a send was scheduled, not when it went out, so a generator that
+ * falls behind shows up in the numbers instead of hiding the stall (coordinated omission).
+ * <p>
+ * Start the stand-ins and the app as described in {@code src/loadtest/docker-compose.yml}, then
+ * {@code mvn -Ploadtest test-compile exec:exec -Dload.args="--users=2000 --rate=500"}.
+ */
+@Slf4j
+public class StompLoadGenerator {
+
+    private final LoadTestOptions options;
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final List<User> users = new ArrayList<>();
+    private final int[] teamSubscribers;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, AtomicLong> sent = new ConcurrentHashMap<>();
+    private final AtomicLong sendErrors = new AtomicLong();
+    private final LatencyStats ack = new LatencyStats("ack");
+    private final LatencyStats privateDelivery = new LatencyStats("privateDelivery");
+    private final LatencyStats teamDelivery = new LatencyStats("teamDelivery");
+    private volatile boolean measuring;
+
+    /** One simulated employee, its session and the chat it has open; users are spread round-robin over the teams */
+    private record User(String id, int team, StompSession session, AtomicReference<String> openChat) {
+
+        String teamId() {
+            return LoadTestOptions.teamId(team);
+        }
+    }
+
+    /** A message waiting for its ack and its deliveries */
+    private static final class Pending {
+        final long scheduledNanos;
+        final boolean measured;
+        final boolean team;
+        final AtomicBoolean acked = new AtomicBoolean();
+        final AtomicInteger awaiting;
+
+        Pending(long scheduledNanos, boolean measured, boolean team, int recipients) {
+            this.scheduledNanos = scheduledNanos;
+            this.measured = measured;
+            this.team = team;
+            this.awaiting = new AtomicInteger(recipients);
+        }
+
+        boolean done() {
+            return acked.get() && awaiting.get() <= 0;
+        }
+    }
+
+    public StompLoadGenerator(LoadTestOptions options) {
+        this.options = options;
+        this.teamSubscribers = new int[options.teams()];
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        EmployeeServiceStubServer stub = null;
+        if (options.stubPort() > 0) {
+            // Every simulated user is a member of every team the app asks about
+            stub = new EmployeeServiceStubServer(options.stubPort()).start();
+            stub.setTeamSize(options.users());
+            log.info("Employee-service stub on {}", stub.baseUrl());
+        }
+        try {
+            new StompLoadGenerator(options).run();
+        } finally {
+            if (stub != null) {
+                stub.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        client.setInboundMessageSizeLimit(1024 * 1024);
+
+        int connected = connect(client);
+        if (connected < 2) {
+            throw new IllegalStateException("Only " + connected + " sessions connected to " + options.url());
+        }
+
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor();
+        sweeper.scheduleWithFixedDelay(() -> sweep(false), 1, 1, TimeUnit.SECONDS);
+
+        log.info("Warming up for {}", options.warmup());
+        drive(options.warmup());
+        measuring = true;
+        log.info("Measuring for {} at {} sends/s", options.duration(), options.rate());
+        long started = System.nanoTime();
+        drive(options.duration());
+        double seconds = (System.nanoTime() - started) / 1e9;
+        measuring = false;
+
+        // Let the last sends arrive before whatever is left counts as lost
+        long drainUntil = System.nanoTime() + options.timeout().toNanos();
+        while (!pending.isEmpty() && System.nanoTime() < drainUntil) {
+            Thread.sleep(100);
+        }
+        sweeper.shutdownNow();
+        sweep(true);
+
+        report(connected, seconds);
+        users.forEach(user -> user.session().disconnect());
+        client.stop();
+    }
+
+    // Connects at connect-rate without waiting for each handshake, then waits for them all
+    private int connect(WebSocketStompClient client) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / options.connectRate();
+        long next = System.nanoTime();
+        List<CompletableFuture<StompSession>> futures = new ArrayList<>(options.users());
+        for (int i = 0; i < options.users(); i++) {
+            LockSupport.parkNanos(next - System.nanoTime());
+            next += interval;
+            futures.add(client.connectAsync(options.url() + "?employeeId=" + LoadTestOptions.employeeId(i),
+                    new StompSessionHandlerAdapter() {
+                        @Override
+                        public void handleTransportError(StompSession session, Throwable exception) {
+                            log.debug("Transport error on {}: {}", session.getSessionId(), exception.getMessage());
+                        }
+                    }));
+        }
+        int failed = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                StompSession session = futures.get(i).get(options.timeout().toMillis(), TimeUnit.MILLISECONDS);
+                String id = LoadTestOptions.employeeId(i);
+                int team = i % options.teams();
+                subscribe(session, id, LoadTestOptions.teamId(team));
+                teamSubscribers[team]++;
+                users.add(new User(id, team, session, new AtomicReference<>()));
+            } catch (Exception e) {
+                failed++;
+                log.debug("Session {} failed to connect: {}", i, e.getMessage());
+            }
+        }
+        log.info("Connected {} sessions, {} failed", users.size(), failed);
+        return users.size();
+    }
+
+    private void subscribe(StompSession session, String self, String teamId) {
+        session.subscribe("/user/queue/private-ack", handler(this::onAck));
+        session.subscribe("/user/queue/group-ack", handler(this::onAck));
+        session.subscribe("/user/queue/private", handler(payload -> onDelivery(payload, self)));
+        session.subscribe("/topic/team-" + teamId, handler(payload -> onDelivery(payload, self)));
+    }
+
+    private void drive(Duration duration) {
+        long interval = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long scheduled = System.nanoTime();
+        long end = scheduled + duration.toNanos();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (scheduled < end) {
+            LockSupport.parkNanos(scheduled - System.nanoTime());
+            User sender = users.get(random.nextInt(users.size()));
+            try {
+                if (random.nextDouble() < options.privateRatio()) {
+                    sendPrivate(sender, scheduled, random);
+                } else {
+                    sendTeam(sender, scheduled);
+                }
+                if (random.nextDouble() < options.typingRatio()) {
+                    sendTyping(sender, random);
+                }
+                if (random.nextDouble() < options.presenceRatio()) {
+                    togglePresence(sender, random);
+                }
+            } catch (Exception e) {
+                sendErrors.incrementAndGet();
+                log.debug("Send from {} failed: {}", sender.id(), e.getMessage());
+            }
+            scheduled += interval;
+        }
+    }
+
+    private void sendPrivate(User sender, long scheduled, ThreadLocalRandom random) {
+        User receiver = otherUser(sender, random);
+        String clientId = track(scheduled, false, 1);
+        sender.session().send("/app/send", message(sender.id(), receiver.id(), null, "PRIVATE", clientId));
+        count("private");
+    }
+
+    private void sendTeam(User sender, long scheduled) {
+        // Every other session subscribed to the team topic is a recipient
+        String clientId = track(scheduled, true, teamSubscribers[sender.team()] - 1);
+        sender.session().send("/app/send", message(sender.id(), null, sender.teamId(), "TEAM", clientId));
+        count("team");
+    }
+
+    private void sendTyping(User sender, ThreadLocalRandom random) {
+        boolean team = random.nextDouble() >= options.privateRatio();
+        Map<String, Object> typing = new HashMap<>();
+        typing.put("senderId", sender.id());
+        typing.put("receiverId", team ? null : otherUser(sender, random).id());
+        typing.put("groupId", team ? sender.teamId() : null);
+        typing.put("type", team ? "TEAM" : "PRIVATE");
+        typing.put("typing", true);
+        sender.session().send("/app/typing", typing);
+        count("typing");
+    }
+
+    // Alternates open and close, the way switching between chats does
+    private void togglePresence(User user, ThreadLocalRandom random) {
+        String open = user.openChat().getAndSet(null);
+        if (open != null) {
+            user.session().send("/app/presence/close/" + open, "");
+            count("presenceClose");
+        } else {
+            String target = random.nextBoolean() ? user.teamId() : otherUser(user, random).id();
+            user.openChat().set(target);
+            user.session().send("/app/presence/open/" + target, "");
+            count("presenceOpen");
+        }
+    }
+
+    private String track(long scheduled, boolean team, int recipients) {
+        String clientId = "lt-" + sequence.incrementAndGet();
+        pending.put(clientId, new Pending(scheduled, measuring, team, recipients));
+        return clientId;
+    }
+
+    private void onAck(Map<String, Object> payload) {
+        long now = System.nanoTime();
+        String clientId = (String) payload.get("client_id");
+        Pending message = clientId == null ? null : pending.get(clientId);
+        // Private messages can be acked twice (controller and Redis fan-out); the first one counts
+        if (message == null || !message.acked.compareAndSet(false, true)) {
+            return;
+        }
+        if (message.measured) {
+            ack.record(message.scheduledNanos, now);
+        }
+        completeIfDone(clientId, message);
+    }
+
+    private void onDelivery(Map<String, Object> payload, String self) {
+        long now = System.nanoTime();
+        String clientId = (String) payload.get("client_id");
+        // Status updates and events carry no client id; the sender's own copy on the team topic is not a delivery
+        if (clientId == null || self.equals(payload.get("sender"))) {
+            return;
+        }
+        Pending message = pending.get(clientId);
+        if (message == null || message.awaiting.decrementAndGet() < 0) {
+            return;
+        }
+        if (message.measured) {
+            (message.team ? teamDelivery : privateDelivery).record(message.scheduledNanos, now);
+        }
+        completeIfDone(clientId, message);
+    }
+
+    private void completeIfDone(String clientId, Pending message) {
+        if (message.done()) {
+            pending.remove(clientId, message);
+        }
+    }
+
+    // Past the timeout an ack or delivery is counted as lost; at the end everything left is
+    private void sweep(boolean all) {
+        long cutoff = System.nanoTime() - options.timeout().toNanos();
+        pending.forEach((clientId, message) -> {
+            if ((all || message.scheduledNanos < cutoff) && pending.remove(clientId, message) && message.measured) {
+                if (!message.acked.get()) {
+                    ack.lost(1);
+                }
+                int missing = Math.max(0, message.awaiting.get());
+                (message.team ? teamDelivery : privateDelivery).lost(missing);
+            }
+        });
+    }
+
+    private void report(int connected, double seconds) throws Exception {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("options", options.toString());
+        result.put("sessions", connected);
+        result.put("seconds", Math.round(seconds * 10) / 10.0);
+        Map<String, Long> sentCounts = new LinkedHashMap<>();
+        sent.forEach((kind, count) -> sentCounts.put(kind, count.get()));
+        result.put("sent", sentCounts);
+        result.put("sendErrors", sendErrors.get());
+        for (LatencyStats stats : List.of(ack, privateDelivery, teamDelivery)) {
+            Map<String, Object> summary = stats.summary(seconds);
+            result.put(stats.name(), summary);
+            log.info("{}: {}", stats.name(), summary);
+        }
+        Files.createDirectories(options.output().toAbsolutePath().getParent());
+        objectMapper.writeValue(options.output().toFile(), result);
+        log.info("Results written to {}", options.output().toAbsolutePath());
+    }
+
+    private void count(String kind) {
+        if (measuring) {
+            sent.computeIfAbsent(kind, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private User otherUser(User user, ThreadLocalRandom random) {
+        User other;
+        do {
+            other = users.get(random.nextInt(users.size()));
+        } while (other == user);
+        return other;
+    }
+
+    private static Map<String, Object> message(String sender, String receiver, String groupId, String type,
+                                                String clientId) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("sender", sender);
+        message.put("receiver", receiver);
+        message.put("groupId", groupId);
+        message.put("type", type);
+        message.put("content", "load test " + clientId);
+        message.put("client_id", clientId);
+        return message;
+    }
+
+    private static StompFrameHandler handler(Consumer<Map<String, Object>> consumer) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void handleFrame(StompHeaders headers, Object payload) {
+                if (payload instanceof Map<?, ?> map) {
+                    consumer.accept((Map<String, Object>) map);
+                }
+            }
+        };
+    }
+}
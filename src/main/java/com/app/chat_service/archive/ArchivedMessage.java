@@ -0,0 +1,40 @@
+package com.app.chat_service.archive;
+
+import java.time.LocalDateTime;
+
+import com.app.chat_service.dto.ChatHistoryRow;
+
+/**
+ * A chat message as written to the archive: the history display columns plus the replied-to
+ * message's columns. File bytes are archived separately, under the message id.
+ */
+public record ArchivedMessage(
+        Long id,
+        String sender,
+        String receiver,
+        String groupId,
+        String type,
+        String content,
+        LocalDateTime timestamp,
+        String fileName,
+        String fileType,
+        Long fileSize,
+        Integer duration,
+        boolean read,
+        String replyPreviewContent,
+        Boolean forwarded,
+        String forwardedFrom,
+        boolean deleted,
+        boolean edited,
+        Long replyToId,
+        String replyToSender,
+        String replyToFileName,
+        String replyToFileType) {
+
+    public ChatHistoryRow toHistoryRow() {
+        return new ChatHistoryRow(id, sender, receiver, groupId, type, content, timestamp,
+                fileName, fileType, fileSize, duration, read, replyPreviewContent,
+                forwarded, forwardedFrom, deleted,
+                replyToId, replyToSender, replyToFileName, replyToFileType);
+    }
+}
@@ -0,0 +1,282 @@
+package com.app.chat_service.archive;
+
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.chat_service.archive.ChatPartitionManager.Partition;
+import com.app.chat_service.datasource.PgAdvisoryLock;
+import com.app.chat_service.model.ChatArchiveSegment;
+import com.app.chat_service.repo.ChatArchiveSegmentRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves chat_messages partitions that ended more than {@code chat.archive.after} ago to the
+ * archive and drops them:
+ * <ol>
+ *   <li>every conversation-month in the partition is written as one segment (gzipped JSON lines)
+ *       and recorded in chat_archive_segment; file bytes go next to it, one object per message;</li>
+ *   <li>read receipts and mentions of the partition's messages are deleted and the file large
+ *       objects unlinked, in short keyset batches; message_action rows are kept, so
+ *       delete-for-me still applies to archived messages;</li>
+ *   <li>the partition is detached and dropped.</li>
+ * </ol>
+ * Every step can be repeated, so a run that dies half-way is finished by the next one.
+ * Private messages without a receiver and group messages without a group belong to no
+ * conversation and are dropped with the partition.
+ */
+@Slf4j
+@Component
+public class ChatArchiveJob {
+
+    private static final long ADVISORY_LOCK_KEY = 0x63686174_61726368L; // "chatarch"
+
+    private static final String CONVERSATIONS = """
+            SELECT DISTINCT
+                   CASE WHEN type = 'PRIVATE' THEN least(sender COLLATE "C", receiver COLLATE "C") END,
+                   CASE WHEN type = 'PRIVATE' THEN greatest(sender COLLATE "C", receiver COLLATE "C") END,
+                   CASE WHEN type <> 'PRIVATE' THEN group_id END,
+                   date_trunc('month', "timestamp")
+            FROM %s
+            WHERE (type = 'PRIVATE' AND receiver IS NOT NULL) OR (type <> 'PRIVATE' AND group_id IS NOT NULL)
+            """;
+
+    private static final String MESSAGES = """
+            SELECT m.id, m.sender, m.receiver, m.group_id, m.type, m.content, m."timestamp",
+                   m.file_name, m.file_type, m.file_size, m.duration, m.is_read, m.reply_preview,
+                   m.is_forwarded, m.forwarded_from, m.is_deleted, m.is_edited,
+                   r.id, r.sender, r.file_name, r.file_type
+            FROM %s m LEFT JOIN %s r ON r.id = m.reply_to_id
+            WHERE m."timestamp" >= ? AND m."timestamp" < ? AND %s
+            ORDER BY m."timestamp", m.id
+            """;
+
+    // One statement per batch: dependents deleted, file large objects unlinked and their oids
+    // cleared, so a repeated run neither reads nor unlinks them again
+    private static final String RELEASE_BATCH = """
+            WITH batch AS (SELECT id, file_data FROM %1$s WHERE id > ? ORDER BY id LIMIT ?),
+                 read_status AS (DELETE FROM %2$s WHERE message_id IN (SELECT id FROM batch)),
+                 mentions AS (DELETE FROM %3$s WHERE message_id IN (SELECT id FROM batch)),
+                 files AS (UPDATE %1$s p SET file_data = NULL FROM batch
+                           WHERE p.id = batch.id AND batch.file_data IS NOT NULL
+                           RETURNING lo_unlink(batch.file_data))
+            SELECT max(id), count(*) FROM batch
+            """;
+
+    private final ChatPartitionManager partitionManager;
+    private final ChatArchiveStore archiveStore;
+    private final ChatArchiveSegmentRepository segmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PgAdvisoryLock advisoryLock;
+    private final boolean enabled;
+    private final Duration after;
+    private final int batchSize;
+    private final Duration pause;
+    private final Counter archivedMessages;
+    private final Counter archivedPartitions;
+
+    public ChatArchiveJob(ChatPartitionManager partitionManager,
+                          ChatArchiveStore archiveStore,
+                          ChatArchiveSegmentRepository segmentRepository,
+                          DataSource dataSource,
+                          PlatformTransactionManager transactionManager,
+                          PgAdvisoryLock advisoryLock,
+                          MeterRegistry meterRegistry,
+                          @Value("${chat.archive.enabled}") boolean enabled,
+                          @Value("${chat.archive.after}") Duration after,
+                          @Value("${chat.archive.batch-size}") int batchSize,
+                          @Value("${chat.archive.pause}") Duration pause) {
+        this.partitionManager = partitionManager;
+        this.archiveStore = archiveStore;
+        this.segmentRepository = segmentRepository;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.advisoryLock = advisoryLock;
+        this.enabled = enabled;
+        this.after = after;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.archivedMessages = Counter.builder("chat.archive.messages")
+                .description("Messages moved from chat_messages to the archive")
+                .register(meterRegistry);
+        this.archivedPartitions = Counter.builder("chat.archive.partitions")
+                .description("chat_messages partitions archived and dropped")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${chat.archive.cron}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = YearMonth.from(LocalDateTime.now().minus(after)).atDay(1).atStartOfDay();
+        try {
+            // Session-level lock, so it is taken and released on this one connection
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!advisoryLock.tryLock(connection, ADVISORY_LOCK_KEY)) {
+                    log.info("Another instance is archiving chat history, skipping");
+                    return null;
+                }
+                try {
+                    for (Partition partition : partitionManager.listPartitions()) {
+                        if (!partition.isDefault() && partition.to() != null && !partition.to().isAfter(cutoff)) {
+                            archive(partition);
+                        }
+                    }
+                } finally {
+                    advisoryLock.unlock(connection, ADVISORY_LOCK_KEY);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Chat history archival failed; it is retried on the next run", e);
+        }
+    }
+
+    private void archive(Partition partition) {
+        log.info("Archiving chat_messages partition {} (before {})", partition.name(), partition.to());
+        String table = partitionManager.qualified(partition.name());
+
+        List<Conversation> conversations = jdbcTemplate.query(CONVERSATIONS.formatted(table),
+                (rs, rowNum) -> new Conversation(rs.getString(1), rs.getString(2), rs.getString(3),
+                        YearMonth.from(rs.getTimestamp(4).toLocalDateTime())));
+        long messages = 0;
+        for (Conversation conversation : conversations) {
+            messages += transactionTemplate.execute(status -> writeSegment(partition, table, conversation));
+        }
+
+        releaseDependents(table);
+        jdbcTemplate.execute("ALTER TABLE " + partitionManager.qualified(ChatPartitionManager.TABLE)
+                + " DETACH PARTITION " + table);
+        jdbcTemplate.execute("DROP TABLE " + table);
+
+        archivedMessages.increment(messages);
+        archivedPartitions.increment();
+        log.info("Archived {} messages in {} segments from {}", messages, conversations.size(), partition.name());
+    }
+
+    // In a transaction: large objects can only be read inside one
+    private int writeSegment(Partition partition, String table, Conversation conversation) {
+        List<Object> args = new ArrayList<>();
+        args.add(Timestamp.valueOf(conversation.month().atDay(1).atStartOfDay()));
+        args.add(Timestamp.valueOf(conversation.month().plusMonths(1).atDay(1).atStartOfDay()));
+        String filter;
+        if (conversation.groupId() != null) {
+            filter = "m.type <> 'PRIVATE' AND m.group_id = ?";
+            args.add(conversation.groupId());
+        } else {
+            filter = "m.type = 'PRIVATE' AND ((m.sender = ? AND m.receiver = ?) OR (m.sender = ? AND m.receiver = ?))";
+            args.addAll(List.of(conversation.userA(), conversation.userB(), conversation.userB(), conversation.userA()));
+        }
+        List<ArchivedMessage> messages = jdbcTemplate.query(
+                MESSAGES.formatted(table, partitionManager.qualified(ChatPartitionManager.TABLE), filter),
+                (rs, rowNum) -> toArchivedMessage(rs), args.toArray());
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        ChatArchiveStore.SegmentWriter segment = archiveStore.newSegment();
+        for (ArchivedMessage message : messages) {
+            segment.add(message);
+            if (message.fileName() != null) {
+                archiveFile(table, message);
+            }
+        }
+        String key = conversation.key();
+        String storageKey = archiveStore.segmentKey(partition.name(), conversation.month(), key);
+        archiveStore.putSegment(storageKey, segment);
+
+        ArchivedMessage first = messages.get(0);
+        ArchivedMessage last = messages.get(messages.size() - 1);
+        ChatArchiveSegment row = segmentRepository.findByConversationKeyAndPeriodStart(key, first.timestamp())
+                .orElseGet(ChatArchiveSegment::new);
+        row.setConversationKey(key);
+        row.setPeriodStart(first.timestamp());
+        row.setPeriodEnd(last.timestamp());
+        row.setStorageKey(storageKey);
+        row.setMessageCount(messages.size());
+        row.setMinMessageId(messages.stream().mapToLong(ArchivedMessage::id).min().orElseThrow());
+        row.setMaxMessageId(messages.stream().mapToLong(ArchivedMessage::id).max().orElseThrow());
+        segmentRepository.save(row);
+        return messages.size();
+    }
+
+    // A null oid means an earlier run already archived and released the file
+    private void archiveFile(String table, ArchivedMessage message) {
+        jdbcTemplate.query("SELECT file_data FROM " + table + " WHERE id = ? AND file_data IS NOT NULL", rs -> {
+            Blob blob = rs.getBlob(1);
+            archiveStore.putFile(message.id(), blob.getBytes(1, (int) blob.length()),
+                    message.fileType(), message.fileName());
+        }, message.id());
+    }
+
+    private void releaseDependents(String table) {
+        String sql = RELEASE_BATCH.formatted(table,
+                partitionManager.qualified("message_read_status"),
+                partitionManager.qualified("message_mention"));
+        long lastId = 0;
+        while (true) {
+            long cursor = lastId;
+            long[] result = transactionTemplate.execute(status -> jdbcTemplate.queryForObject(sql,
+                    (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)}, cursor, batchSize));
+            if (result == null || result[1] == 0) {
+                return;
+            }
+            lastId = result[0];
+            advisoryLock.pause(pause);
+        }
+    }
+
+    private static ArchivedMessage toArchivedMessage(ResultSet rs) throws SQLException {
+        return new ArchivedMessage(
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getString(5),
+                rs.getString(6),
+                rs.getTimestamp(7).toLocalDateTime(),
+                rs.getString(8),
+                rs.getString(9),
+                rs.getObject(10, Long.class),
+                rs.getObject(11, Integer.class),
+                rs.getBoolean(12),
+                rs.getString(13),
+                rs.getObject(14, Boolean.class),
+                rs.getString(15),
+                rs.getBoolean(16),
+                rs.getBoolean(17),
+                rs.getObject(18, Long.class),
+                rs.getString(19),
+                rs.getString(20),
+                rs.getString(21));
+    }
+
+    private record Conversation(String userA, String userB, String groupId, YearMonth month) {
+
+        // Same keys as MentionService.conversationKey
+        String key() {
+            return groupId != null ? groupId : userA + ":" + userB;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.app.chat_service.archive;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.app.chat_service.archive.ChatArchiveStore.ArchivedFile;
+import com.app.chat_service.dto.ChatHistoryRow;
+import com.app.chat_service.model.ChatArchiveSegment;
+import com.app.chat_service.repo.ChatArchiveSegmentRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Reads archived history for the history endpoints once a user scrolls past the live
+ * partitions. Segments are immutable once written, so decoded segments are cached per pod;
+ * the segment list itself is read from chat_archive_segment on every call.
+ */
+@Component
+public class ChatArchiveReader {
+
+    private final ChatArchiveSegmentRepository segmentRepository;
+    private final ChatArchiveStore archiveStore;
+    private final Cache<String, List<ArchivedMessage>> segments;
+
+    public ChatArchiveReader(ChatArchiveSegmentRepository segmentRepository,
+                             ChatArchiveStore archiveStore,
+                             MeterRegistry meterRegistry,
+                             @Value("${chat.archive.segment-cache-size}") long cacheSize,
+                             @Value("${chat.archive.segment-cache-ttl}") Duration cacheTtl) {
+        this.segmentRepository = segmentRepository;
+        this.archiveStore = archiveStore;
+        this.segments = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterAccess(cacheTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, segments, "chatArchiveSegments");
+    }
+
+    /**
+     * Archived messages of one conversation sent after {@code clearedAt}, newest first:
+     * {@code limit} of them after skipping the newest {@code skip}.
+     */
+    public List<ChatHistoryRow> getHistory(String conversationKey, LocalDateTime clearedAt, int skip, int limit) {
+        List<ChatHistoryRow> page = new ArrayList<>(limit);
+        if (conversationKey == null || limit <= 0) {
+            return page;
+        }
+        int toSkip = skip;
+        for (ChatArchiveSegment segment : segmentRepository
+                .findByConversationKeyAndPeriodEndAfterOrderByPeriodStartDesc(conversationKey, clearedAt)) {
+            // Whole segment after cleared-at: skipped without downloading it
+            if (segment.getPeriodStart().isAfter(clearedAt) && toSkip >= segment.getMessageCount()) {
+                toSkip -= segment.getMessageCount();
+                continue;
+            }
+            List<ArchivedMessage> messages = segments.get(segment.getStorageKey(), archiveStore::readSegment);
+            for (int i = messages.size() - 1; i >= 0 && page.size() < limit; i--) {
+                ArchivedMessage message = messages.get(i);
+                if (!message.timestamp().isAfter(clearedAt)) {
+                    continue;
+                }
+                if (toSkip > 0) {
+                    toSkip--;
+                    continue;
+                }
+                page.add(message.toHistoryRow());
+            }
+            if (page.size() >= limit) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    public Optional<ArchivedFile> getFile(Long messageId) {
+        return archiveStore.getFile(messageId);
+    }
+}
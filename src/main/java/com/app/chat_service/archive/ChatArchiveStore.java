@@ -0,0 +1,146 @@
+package com.app.chat_service.archive;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.app.chat_service.service.S3Service;
+import com.app.chat_service.service.S3Service.StoredObject;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Archive objects in S3: one gzipped JSON-lines object per conversation and partition, plus
+ * the raw bytes of every archived file under {@code files/{messageId}}.
+ */
+@Component
+public class ChatArchiveStore {
+
+    private static final String FILE_NAME_METADATA = "file-name";
+
+    private final S3Service s3Service;
+    private final ObjectMapper objectMapper;
+    private final String prefix;
+    private final String storageClass;
+
+    public ChatArchiveStore(S3Service s3Service,
+                            ObjectMapper objectMapper,
+                            @Value("${chat.archive.prefix}") String prefix,
+                            @Value("${chat.archive.storage-class}") String storageClass) {
+        this.s3Service = s3Service;
+        this.objectMapper = objectMapper;
+        this.prefix = prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix;
+        this.storageClass = storageClass;
+    }
+
+    public String segmentKey(String partition, YearMonth month, String conversationKey) {
+        return prefix + "/" + partition + "/" + month + "/" + conversationKey.replaceAll("[^A-Za-z0-9_.:-]", "_") + ".jsonl.gz";
+    }
+
+    /** Collects one segment in memory, gzipped as it goes */
+    public SegmentWriter newSegment() {
+        return new SegmentWriter();
+    }
+
+    public void putSegment(String storageKey, SegmentWriter segment) {
+        s3Service.putObject(storageKey, segment.finish(), "application/x-ndjson",
+                Map.of("archive-encoding", "gzip"), storageClass);
+    }
+
+    public List<ArchivedMessage> readSegment(String storageKey) {
+        byte[] bytes = s3Service.getObject(storageKey)
+                .map(StoredObject::bytes)
+                .orElseThrow(() -> new IllegalStateException("Archive segment missing: " + storageKey));
+        List<ArchivedMessage> messages = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    messages.add(objectMapper.readValue(line, ArchivedMessage.class));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable archive segment " + storageKey, e);
+        }
+        return messages;
+    }
+
+    public void putFile(long messageId, byte[] bytes, String contentType, String fileName) {
+        s3Service.putObject(fileKey(messageId), bytes,
+                contentType != null ? contentType : "application/octet-stream",
+                fileName != null ? Map.of(FILE_NAME_METADATA, fileName) : Map.of(), storageClass);
+    }
+
+    public Optional<ArchivedFile> getFile(long messageId) {
+        return s3Service.getObject(fileKey(messageId))
+                .map(object -> new ArchivedFile(object.bytes(), object.contentType(),
+                        object.metadata() != null ? object.metadata().get(FILE_NAME_METADATA) : null));
+    }
+
+    public void deleteSegment(String storageKey) {
+        s3Service.deleteObject(storageKey);
+    }
+
+    public void deleteFile(long messageId) {
+        s3Service.deleteObject(fileKey(messageId));
+    }
+
+    private String fileKey(long messageId) {
+        return prefix + "/files/" + messageId;
+    }
+
+    public record ArchivedFile(byte[] bytes, String contentType, String fileName) { }
+
+    public class SegmentWriter {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final OutputStream out;
+        private int count;
+
+        private SegmentWriter() {
+            try {
+                this.out = new GZIPOutputStream(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void add(ArchivedMessage message) {
+            try {
+                out.write(objectMapper.writeValueAsBytes(message));
+                out.write('\n');
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public int size() {
+            return count;
+        }
+
+        private byte[] finish() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.app.chat_service.archive;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.app.chat_service.datasource.PgAdvisoryLock;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the monthly partitions of chat_messages ahead of the clock: creates
+ * {@code chat_messages_pYYYY_MM} for the current month and {@code months-ahead} after it, and
+ * builds the parent's indexes on partitions that lack them (the legacy partition after the
+ * migration) with CREATE INDEX CONCURRENTLY, so writes are never blocked.
+ * <p>
+ * Runs at startup and daily, under a Postgres advisory lock so only one pod does the work.
+ */
+@Slf4j
+@Component
+public class ChatPartitionManager {
+
+    static final String TABLE = "chat_messages";
+    private static final long ADVISORY_LOCK_KEY = 0x63686174_70617274L; // "chatpart"
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern RANGE_BOUND = Pattern.compile(
+            "FROM \\((MINVALUE|'([^']+)')\\) TO \\((MAXVALUE|'([^']+)')\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PgAdvisoryLock advisoryLock;
+    private final String schema;
+    private final int monthsAhead;
+
+    public ChatPartitionManager(JdbcTemplate jdbcTemplate,
+                                PgAdvisoryLock advisoryLock,
+                                @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema,
+                                @Value("${chat.partition.months-ahead}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.advisoryLock = advisoryLock;
+        this.schema = schema == null ? "" : schema.trim();
+        this.monthsAhead = monthsAhead;
+    }
+
+    /** A range partition of chat_messages; {@code from} is null for MINVALUE, both null for DEFAULT */
+    public record Partition(String name, LocalDateTime from, LocalDateTime to) {
+
+        public boolean isDefault() {
+            return from == null && to == null;
+        }
+    }
+
+    // Off the startup thread: the legacy index builds can take a while on a large table
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        Thread worker = new Thread(this::maintain, "PartitionMaintenance");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Scheduled(cron = "${chat.partition.cron}")
+    public void maintain() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) this::maintainWithLock);
+        } catch (Exception e) {
+            log.error("chat_messages partition maintenance failed", e);
+        }
+    }
+
+    /** Range partitions ordered by upper bound, the default partition last */
+    public List<Partition> listPartitions() {
+        List<Partition> partitions = jdbcTemplate.query(
+                "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = ?::regclass",
+                (rs, rowNum) -> toPartition(rs.getString(1), rs.getString(2)),
+                qualified(TABLE));
+        List<Partition> sorted = new ArrayList<>(partitions);
+        sorted.sort(Comparator.comparing(Partition::isDefault)
+                .thenComparing(Partition::to, Comparator.nullsLast(Comparator.naturalOrder())));
+        return sorted;
+    }
+
+    String qualified(String name) {
+        return schema.isEmpty() ? name : schema + "." + name;
+    }
+
+    private Void maintainWithLock(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        // CREATE INDEX CONCURRENTLY may not run inside a transaction block
+        connection.setAutoCommit(true);
+        try {
+            if (!advisoryLock.tryLock(connection, ADVISORY_LOCK_KEY)) {
+                log.info("Another instance is maintaining chat_messages partitions, skipping");
+                return null;
+            }
+            try {
+                createUpcomingPartitions(connection);
+                attachMissingIndexes(connection);
+            } finally {
+                advisoryLock.unlock(connection, ADVISORY_LOCK_KEY);
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return null;
+    }
+
+    private void createUpcomingPartitions(Connection connection) throws SQLException {
+        LocalDateTime covered = listPartitions().stream()
+                .filter(p -> !p.isDefault())
+                .map(Partition::to)
+                .max(Comparator.naturalOrder())
+                .orElse(LocalDateTime.MIN);
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        LocalDate last = month.plusMonths(monthsAhead);
+        for (; !month.isAfter(last); month = month.plusMonths(1)) {
+            if (month.atStartOfDay().isBefore(covered)) {
+                continue;
+            }
+            String name = TABLE + "_p" + month.format(NAME_FORMAT);
+            try (Statement st = connection.createStatement()) {
+                // The parent's indexes are cloned onto the new, empty partition
+                st.execute("CREATE TABLE IF NOT EXISTS " + qualified(name) + " PARTITION OF " + qualified(TABLE)
+                        + " FOR VALUES FROM ('" + month + "') TO ('" + month.plusMonths(1) + "')");
+                st.execute("CREATE UNIQUE INDEX IF NOT EXISTS " + name + "_id_idx ON " + qualified(name) + " (id)");
+            }
+            log.info("Created chat_messages partition {}", name);
+        }
+    }
+
+    // Parent indexes created ON ONLY stay invalid until every partition has an attached copy
+    private void attachMissingIndexes(Connection connection) throws SQLException {
+        List<String[]> missing = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement("""
+                SELECT pi.relname, c.relname, pg_get_indexdef(pi.oid)
+                FROM pg_index px
+                JOIN pg_class pi ON pi.oid = px.indexrelid
+                JOIN pg_inherits pt ON pt.inhparent = px.indrelid
+                JOIN pg_class c ON c.oid = pt.inhrelid
+                WHERE px.indrelid = ?::regclass
+                  AND NOT EXISTS (SELECT 1 FROM pg_inherits ii JOIN pg_index ci ON ci.indexrelid = ii.inhrelid
+                                  WHERE ii.inhparent = pi.oid AND ci.indrelid = c.oid)
+                """)) {
+            ps.setString(1, qualified(TABLE));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    missing.add(new String[] {rs.getString(1), rs.getString(2), rs.getString(3)});
+                }
+            }
+        }
+        for (String[] row : missing) {
+            String parentIndex = row[0];
+            String partition = row[1];
+            String definition = row[2];
+            String name = partition + "_" + parentIndex.replaceFirst("^idx_" + TABLE + "_", "") + "_idx";
+            try (Statement st = connection.createStatement()) {
+                Boolean valid = indexValidity(connection, name);
+                if (Boolean.FALSE.equals(valid)) {
+                    // Left behind by an interrupted concurrent build
+                    st.execute("DROP INDEX CONCURRENTLY " + qualified(name));
+                }
+                if (!Boolean.TRUE.equals(valid)) {
+                    log.info("Building index {} on {}", name, partition);
+                    st.execute("CREATE INDEX CONCURRENTLY " + name + " ON " + qualified(partition)
+                            + definition.substring(definition.indexOf(" USING ")));
+                }
+                st.execute("ALTER INDEX " + qualified(parentIndex) + " ATTACH PARTITION " + qualified(name));
+            }
+        }
+    }
+
+    // null when the index does not exist
+    private Boolean indexValidity(Connection connection, String name) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass(?)")) {
+            ps.setString(1, qualified(name));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getBoolean(1) : null;
+            }
+        }
+    }
+
+    private static Partition toPartition(String name, String bound) {
+        Matcher matcher = RANGE_BOUND.matcher(bound);
+        if (!matcher.find()) {
+            return new Partition(name, null, null);
+        }
+        return new Partition(name, parseBound(matcher.group(2)), parseBound(matcher.group(4)));
+    }
+
+    private static LocalDateTime parseBound(String value) {
+        return value == null ? null : LocalDateTime.parse(value.replace(' ', 'T'));
+    }
+}
@@ -0,0 +1,43 @@
+package com.app.chat_service.cache;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/** Drops local L1 entries when another pod evicts or overwrites them. */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationListener implements MessageListener {
+
+    private final TwoLevelCacheManager cacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final ChatVisibilityCache visibilityCache;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            CacheInvalidationMessage invalidation = objectMapper.readValue(body, CacheInvalidationMessage.class);
+            if (invalidationPublisher.getInstanceId().equals(invalidation.getOrigin())) {
+                return;
+            }
+            log.debug("Near cache invalidation received: {}", invalidation);
+            if (ChatVisibilityCache.CACHE_NAME.equals(invalidation.getCacheName())) {
+                visibilityCache.invalidateLocal(invalidation.getKey());
+            } else {
+                cacheManager.invalidateLocal(invalidation.getCacheName(), invalidation.getKey());
+            }
+        } catch (Exception e) {
+            log.error("Error processing cache invalidation message", e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.app.chat_service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Payload sent over Redis pub/sub when a near-cached entry changes. key == null means clear the whole cache. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidationMessage {
+    private String origin;    // instance id of the pod that made the change
+    private String cacheName;
+    private String key;
+}
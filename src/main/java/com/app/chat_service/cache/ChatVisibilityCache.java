@@ -0,0 +1,149 @@
+package com.app.chat_service.cache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.app.chat_service.model.ClearedChat;
+import com.app.chat_service.repo.ClearedChatRepository;
+import com.app.chat_service.repo.MessageActionRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-user view filters: when each chat was cleared and which messages were deleted for the user.
+ * Loaded with two queries on first use, then kept up to date write-through by clearChat and
+ * deleteForMe, so history pages and sidebar builds need no visibility queries of their own.
+ * Other pods drop their copy through the near-cache invalidation channel.
+ */
+@Slf4j
+@Component
+public class ChatVisibilityCache {
+
+    public static final String CACHE_NAME = "chatVisibility";
+
+    /** Shown when a chat was never cleared */
+    public static final LocalDateTime NEVER_CLEARED = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ClearedChatRepository clearedChatRepository;
+    private final MessageActionRepository messageActionRepository;
+    private final CacheInvalidationPublisher invalidationPublisher;
+
+    private final LoadingCache<String, UserVisibility> users;
+
+    public ChatVisibilityCache(ClearedChatRepository clearedChatRepository,
+                               MessageActionRepository messageActionRepository,
+                               CacheInvalidationPublisher invalidationPublisher,
+                               MeterRegistry meterRegistry,
+                               @Value("${chat.visibility.max-users}") long maxUsers,
+                               @Value("${chat.visibility.ttl}") Duration ttl) {
+        this.clearedChatRepository = clearedChatRepository;
+        this.messageActionRepository = messageActionRepository;
+        this.invalidationPublisher = invalidationPublisher;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, users, CACHE_NAME);
+    }
+
+    public LocalDateTime getClearedAt(String userId, String chatId) {
+        return users.get(userId).clearedAt().getOrDefault(chatId, NEVER_CLEARED);
+    }
+
+    /** True when the user deleted the message for themselves; delete-for-everyone is the message's isDeleted flag */
+    public boolean isHidden(String userId, long messageId) {
+        return users.get(userId).isHidden(messageId);
+    }
+
+    public void onChatCleared(String userId, String chatId, LocalDateTime clearedAt) {
+        afterCommit(userId, visibility -> visibility.withClearedAt(chatId, clearedAt));
+    }
+
+    public void onDeletedForMe(String userId, long messageId) {
+        afterCommit(userId, visibility -> visibility.withHidden(messageId));
+    }
+
+    /** Another pod changed this user's visibility */
+    void invalidateLocal(String userId) {
+        if (userId == null) {
+            users.invalidateAll();
+        } else {
+            users.invalidate(userId);
+        }
+    }
+
+    // Apply once the row is committed so a rolled-back clear/delete never shows up in the cache
+    private void afterCommit(String userId, UnaryOperator<UserVisibility> change) {
+        Runnable apply = () -> {
+            users.asMap().computeIfPresent(userId, (id, visibility) -> change.apply(visibility));
+            invalidationPublisher.publishEvict(CACHE_NAME, userId);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private UserVisibility load(String userId) {
+        Map<String, LocalDateTime> clearedAt = new HashMap<>();
+        for (ClearedChat cleared : clearedChatRepository.findByUserId(userId)) {
+            clearedAt.merge(cleared.getChatId(), cleared.getClearedAt(),
+                    (a, b) -> a.isAfter(b) ? a : b);
+        }
+        long[] hidden = sorted(messageActionRepository.findHiddenMessageIdsForUser(userId));
+        log.debug("Loaded visibility for {}: {} cleared chats, {} hidden messages", userId, clearedAt.size(), hidden.length);
+        return new UserVisibility(Map.copyOf(clearedAt), hidden);
+    }
+
+    private static long[] sorted(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+    }
+
+    /** Immutable snapshot; updates build a new instance so readers never see a half-applied change */
+    record UserVisibility(Map<String, LocalDateTime> clearedAt, long[] hiddenMessageIds) {
+
+        boolean isHidden(long messageId) {
+            return Arrays.binarySearch(hiddenMessageIds, messageId) >= 0;
+        }
+
+        UserVisibility withClearedAt(String chatId, LocalDateTime at) {
+            Map<String, LocalDateTime> updated = new HashMap<>(clearedAt);
+            updated.put(chatId, at);
+            return new UserVisibility(Map.copyOf(updated), hiddenMessageIds);
+        }
+
+        UserVisibility withHidden(long messageId) {
+            int index = Arrays.binarySearch(hiddenMessageIds, messageId);
+            if (index >= 0) {
+                return this;
+            }
+            int insertAt = -index - 1;
+            long[] updated = new long[hiddenMessageIds.length + 1];
+            System.arraycopy(hiddenMessageIds, 0, updated, 0, insertAt);
+            updated[insertAt] = messageId;
+            System.arraycopy(hiddenMessageIds, insertAt, updated, insertAt + 1, hiddenMessageIds.length - insertAt);
+            return new UserVisibility(clearedAt, updated);
+        }
+    }
+}
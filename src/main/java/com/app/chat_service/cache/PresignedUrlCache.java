@@ -0,0 +1,262 @@
+package com.app.chat_service.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import com.app.chat_service.service.S3Service;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Presigned GET URLs keyed by S3 key, shared by all pods through Redis.
+ * <p>
+ * An entry lives as long as its signature. It is handed out unchanged until
+ * {@code refresh-ahead} before the signature expires, then a new URL is signed, so
+ * browsers and CDNs see one stable URL per avatar and can cache the image.
+ */
+@Slf4j
+@Component
+public class PresignedUrlCache {
+
+    private static final String KEY_PREFIX = "presignedUrl:";
+    private static final String LOCK_PREFIX = "presignedUrl:lock:";
+
+    private final S3Service s3Service;
+    private final StringRedisTemplate redisTemplate;
+    private final Executor presignExecutor;
+    private final Duration signatureDuration;
+    private final Duration refreshAhead;
+
+    /** Local copies expire at their refresh point, after which Redis (or a new signature) decides */
+    private final LoadingCache<String, PresignedUrl> localUrls;
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter signed;
+
+    public PresignedUrlCache(S3Service s3Service,
+                             StringRedisTemplate redisTemplate,
+                             @Qualifier("presignExecutor") Executor presignExecutor,
+                             MeterRegistry meterRegistry,
+                             @Value("${chat.s3.presign.signature-duration}") Duration signatureDuration,
+                             @Value("${chat.s3.presign.refresh-ahead}") Duration refreshAhead,
+                             @Value("${chat.s3.presign.local-max-size}") long localMaxSize) {
+        if (refreshAhead.compareTo(signatureDuration) >= 0) {
+            throw new IllegalArgumentException("chat.s3.presign.refresh-ahead must be shorter than the signature duration");
+        }
+        this.s3Service = s3Service;
+        this.redisTemplate = redisTemplate;
+        this.presignExecutor = presignExecutor;
+        this.signatureDuration = signatureDuration;
+        this.refreshAhead = refreshAhead;
+        this.localUrls = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfter(new UntilRefresh())
+                .build(new PresignedUrlLoader());
+        this.localHits = lookups(meterRegistry, "local");
+        this.redisHits = lookups(meterRegistry, "redis");
+        this.signed = lookups(meterRegistry, "signed");
+    }
+
+    private Counter lookups(MeterRegistry registry, String source) {
+        return Counter.builder("chat.presigned_url.lookups")
+                .description("Presigned URL lookups by where the URL came from")
+                .tag("source", source)
+                .register(registry);
+    }
+
+    /** URL for the S3 key, stable until shortly before its signature expires */
+    public String getUrl(String s3Key) {
+        return get(s3Key).url();
+    }
+
+    public PresignedUrl get(String s3Key) {
+        PresignedUrl local = localUrls.getIfPresent(s3Key);
+        if (local != null) {
+            localHits.increment();
+            return local;
+        }
+        return localUrls.get(s3Key);
+    }
+
+    /** Batch lookup: one MGET for everything not held locally, new signatures created in parallel */
+    public Map<String, PresignedUrl> getAll(Collection<String> s3Keys) {
+        localHits.increment(localUrls.getAllPresent(s3Keys).size());
+        // Only the keys not held locally reach fetchAll
+        return localUrls.getAll(s3Keys);
+    }
+
+    public Duration getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    private PresignedUrl fetchOne(String s3Key) {
+        PresignedUrl shared = readShared(List.of(s3Key)).get(0);
+        if (shared != null && !shared.isDueForRefresh(refreshAhead)) {
+            redisHits.increment();
+            return shared;
+        }
+        return signAndShare(s3Key, shared);
+    }
+
+    private Map<String, PresignedUrl> fetchAll(Set<String> s3Keys) {
+        List<String> keys = new ArrayList<>(s3Keys);
+        List<PresignedUrl> sharedUrls = readShared(keys);
+
+        Map<String, PresignedUrl> loaded = new HashMap<>();
+        Map<String, CompletableFuture<PresignedUrl>> signing = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            String s3Key = keys.get(i);
+            PresignedUrl shared = sharedUrls.get(i);
+            if (shared != null && !shared.isDueForRefresh(refreshAhead)) {
+                redisHits.increment();
+                loaded.put(s3Key, shared);
+            } else {
+                signing.put(s3Key, CompletableFuture.supplyAsync(() -> signAndShare(s3Key, shared), presignExecutor));
+            }
+        }
+        signing.forEach((s3Key, future) -> loaded.put(s3Key, future.join()));
+        return loaded;
+    }
+
+    /**
+     * Signs a new URL and publishes it in Redis. A short lock keeps pods from signing the same key at once;
+     * a pod that loses the race keeps using the previous URL while it is still valid.
+     */
+    private PresignedUrl signAndShare(String s3Key, PresignedUrl previous) {
+        if (previous != null && previous.isValid() && !tryLock(s3Key)) {
+            redisHits.increment();
+            return previous;
+        }
+        // Taken before signing so the recorded expiry is never later than the real one
+        Instant signedAt = Instant.now();
+        PresignedUrl fresh = new PresignedUrl(
+                s3Service.generatePresignedUrl(s3Key, signatureDuration),
+                signedAt.plus(signatureDuration));
+        signed.increment();
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + s3Key, format(fresh),
+                    signatureDuration.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Still usable locally; other pods sign their own until Redis is back
+            log.warn("Could not share presigned URL for {}: {}", s3Key, e.getMessage());
+        }
+        return fresh;
+    }
+
+    private boolean tryLock(String s3Key) {
+        try {
+            return Boolean.TRUE.equals(
+                    redisTemplate.opsForValue().setIfAbsent(LOCK_PREFIX + s3Key, "1", Duration.ofSeconds(10)));
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    // Redis down means every key is signed locally, never that the lookup fails
+    private List<PresignedUrl> readShared(List<String> s3Keys) {
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(s3Keys.stream().map(k -> KEY_PREFIX + k).toList());
+        } catch (Exception e) {
+            log.warn("Could not read shared presigned URLs: {}", e.getMessage());
+            values = null;
+        }
+        List<PresignedUrl> urls = new ArrayList<>(s3Keys.size());
+        for (int i = 0; i < s3Keys.size(); i++) {
+            urls.add(parse(values != null && i < values.size() ? values.get(i) : null));
+        }
+        return urls;
+    }
+
+    // Stored as "<expiresAtEpochMillis>|<url>" so one GET gives both
+    private String format(PresignedUrl url) {
+        return url.expiresAt().toEpochMilli() + "|" + url.url();
+    }
+
+    private PresignedUrl parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        int separator = value.indexOf('|');
+        if (separator <= 0) {
+            return null;
+        }
+        try {
+            return new PresignedUrl(value.substring(separator + 1),
+                    Instant.ofEpochMilli(Long.parseLong(value.substring(0, separator))));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** A presigned URL and the moment its signature stops being accepted */
+    public record PresignedUrl(String url, Instant expiresAt) {
+
+        public boolean isValid() {
+            return Instant.now().isBefore(expiresAt);
+        }
+
+        boolean isDueForRefresh(Duration refreshAhead) {
+            return !Instant.now().isBefore(expiresAt.minus(refreshAhead));
+        }
+
+        /** How long a client may keep using this URL before asking again */
+        public Duration cacheableFor(Duration refreshAhead) {
+            Duration left = Duration.between(Instant.now(), expiresAt.minus(refreshAhead));
+            return left.isNegative() ? Duration.ZERO : left;
+        }
+    }
+
+    private class PresignedUrlLoader implements CacheLoader<String, PresignedUrl> {
+
+        @Override
+        public PresignedUrl load(String s3Key) {
+            return fetchOne(s3Key);
+        }
+
+        @Override
+        public Map<String, PresignedUrl> loadAll(Set<? extends String> s3Keys) {
+            return fetchAll(new LinkedHashSet<>(s3Keys));
+        }
+    }
+
+    private class UntilRefresh implements Expiry<String, PresignedUrl> {
+
+        @Override
+        public long expireAfterCreate(String key, PresignedUrl value, long currentTime) {
+            return Math.max(0, value.cacheableFor(refreshAhead).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, PresignedUrl value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, PresignedUrl value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.app.chat_service.cache;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.util.ByteUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Near cache (Caffeine, per pod) in front of the shared Redis cache.
+ * Reads go L1 -> L2, writes and evictions go to both levels. Only evictions and clears are
+ * fanned out to the other pods so their L1 copies are dropped: a put is a fill after a miss, and
+ * another pod's copy of the same key is not stale because of it. Code that changes a cached value
+ * evicts it.
+ *
+ * For {@code @Cacheable(sync = true)} lookups the loader is also used to:
+ * <ul>
+ *   <li>coalesce concurrent misses for the same key into one load (single-flight)</li>
+ *   <li>reload hot keys in the background before they expire (refresh-ahead)</li>
+ *   <li>keep serving the previous value while a slow or failing reload is in progress</li>
+ * </ul>
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final RedisCache redisCache;
+    private final com.github.benmanes.caffeine.cache.Cache<String, NearEntry> nearCache;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Executor refreshExecutor;
+    private final TwoLevelCacheSettings settings;
+
+    /** Loads currently running for a key, shared by every caller that misses on it */
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter upstreamLoads;
+    private final Counter upstreamFailures;
+    private final Counter coalescedLoads;
+    private final Counter staleServed;
+
+    public TwoLevelCache(String name,
+                         RedisCache redisCache,
+                         com.github.benmanes.caffeine.cache.Cache<String, NearEntry> nearCache,
+                         CacheInvalidationPublisher invalidationPublisher,
+                         StringRedisTemplate stringRedisTemplate,
+                         Executor refreshExecutor,
+                         TwoLevelCacheSettings settings,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.redisCache = redisCache;
+        this.nearCache = nearCache;
+        this.invalidationPublisher = invalidationPublisher;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.refreshExecutor = refreshExecutor;
+        this.settings = settings;
+        this.l1Hits = requests(meterRegistry, "l1", "hit");
+        this.l1Misses = requests(meterRegistry, "l1", "miss");
+        this.l2Hits = requests(meterRegistry, "l2", "hit");
+        this.l2Misses = requests(meterRegistry, "l2", "miss");
+        this.upstreamLoads = loads(meterRegistry, "success");
+        this.upstreamFailures = loads(meterRegistry, "failure");
+        this.coalescedLoads = loads(meterRegistry, "coalesced");
+        this.staleServed = Counter.builder("chat.cache.stale.served")
+                .description("Expired near-cache values served while a reload was pending or failing")
+                .tag("cache", name)
+                .register(meterRegistry);
+    }
+
+    private Counter requests(MeterRegistry registry, String level, String result) {
+        return Counter.builder("chat.cache.requests")
+                .description("Two-level cache lookups by level and result")
+                .tag("cache", name)
+                .tag("level", level)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private Counter loads(MeterRegistry registry, String result) {
+        return Counter.builder("chat.cache.loads")
+                .description("Loads from the underlying method after both cache levels missed")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String nearKey = nearKey(key);
+        NearEntry local = nearCache.getIfPresent(nearKey);
+        if (local != null && !local.isExpired(settings.getTtl())) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(local.value());
+        }
+        l1Misses.increment();
+        Object remote = getFromRedis(key, nearKey);
+        return remote != null ? new SimpleValueWrapper(remote) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String nearKey = nearKey(key);
+        NearEntry local = nearCache.getIfPresent(nearKey);
+
+        if (local != null && !local.isExpired(settings.getTtl())) {
+            l1Hits.increment();
+            if (local.isDueForRefresh(settings.getTtl(), settings.getRefreshAheadRatio())) {
+                refreshAsync(key, nearKey, valueLoader);
+            }
+            return (T) local.value();
+        }
+        l1Misses.increment();
+
+        if (local != null) {
+            // Expired but still within the stale grace period: revalidate, but don't make the caller
+            // wait longer than stale-wait for a slow upstream
+            CompletableFuture<Object> reload = refreshAsync(key, nearKey, valueLoader);
+            try {
+                return (T) reload.get(settings.getStaleWait().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                staleServed.increment();
+                log.debug("Serving stale {} entry for key {} while reload is pending: {}", name, nearKey, e.toString());
+                return (T) local.value();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                staleServed.increment();
+                return (T) local.value();
+            }
+        }
+
+        return (T) loadCoalesced(key, nearKey, valueLoader);
+    }
+
+    /**
+     * Batch lookup: fresh L1 entries first, then a single MGET against Redis for the rest.
+     * Keys found in neither level are simply absent from the result; nothing is loaded.
+     */
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> found = new LinkedHashMap<>();
+        List<Object> remoteKeys = new ArrayList<>();
+        for (Object key : keys) {
+            NearEntry local = nearCache.getIfPresent(nearKey(key));
+            if (local != null && !local.isExpired(settings.getTtl())) {
+                l1Hits.increment();
+                found.put(key, local.value());
+            } else {
+                l1Misses.increment();
+                remoteKeys.add(key);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            return found;
+        }
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String prefix = config.getKeyPrefixFor(name);
+        byte[][] redisKeys = remoteKeys.stream()
+                .map(key -> ByteUtils.getBytes(config.getKeySerializationPair().write(prefix + nearKey(key))))
+                .toArray(byte[][]::new);
+        List<byte[]> values;
+        try {
+            values = stringRedisTemplate.execute(
+                    (RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(redisKeys));
+        } catch (Exception e) {
+            log.warn("MGET on {} failed, treating {} keys as misses: {}", name, remoteKeys.size(), e.getMessage());
+            values = null;
+        }
+        for (int i = 0; i < remoteKeys.size(); i++) {
+            byte[] raw = values != null && i < values.size() ? values.get(i) : null;
+            Object value = raw != null ? config.getValueSerializationPair().read(ByteBuffer.wrap(raw)) : null;
+            if (value != null) {
+                l2Hits.increment();
+                nearCache.put(nearKey(remoteKeys.get(i)), NearEntry.of(value));
+                found.put(remoteKeys.get(i), value);
+            } else {
+                l2Misses.increment();
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            // Redis is configured with disableCachingNullValues(), keep L1 consistent with it
+            return;
+        }
+        redisCache.put(key, value);
+        nearCache.put(nearKey(key), NearEntry.of(value));
+    }
+
+    /**
+     * Batch fill for the keys {@link #getAll} missed: one pipelined round trip to Redis, then L1.
+     * Like {@link #put} it does not notify the other pods.
+     */
+    public void putAll(Map<?, ?> entries) {
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String prefix = config.getKeyPrefixFor(name);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                entries.forEach((key, value) -> {
+                    if (value == null) {
+                        return;
+                    }
+                    byte[] redisKey = ByteUtils.getBytes(config.getKeySerializationPair().write(prefix + nearKey(key)));
+                    byte[] redisValue = ByteUtils.getBytes(config.getValueSerializationPair().write(value));
+                    Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+                    if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+                        connection.stringCommands().set(redisKey, redisValue);
+                    } else {
+                        connection.stringCommands().pSetEx(redisKey, ttl.toMillis(), redisValue);
+                    }
+                });
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Pipelined fill of {} failed for {} keys, keeping them in L1 only: {}", name, entries.size(), e.getMessage());
+        }
+        entries.forEach((key, value) -> {
+            if (value != null) {
+                nearCache.put(nearKey(key), NearEntry.of(value));
+            }
+        });
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        nearCache.invalidate(nearKey(key));
+        invalidationPublisher.publishEvict(name, nearKey(key));
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        nearCache.invalidateAll();
+        invalidationPublisher.publishClear(name);
+    }
+
+    /** Drops the local copy only; called when another pod changed the entry */
+    void evictLocal(String key) {
+        nearCache.invalidate(key);
+    }
+
+    /** Drops every local copy only; called when another pod cleared the cache */
+    void clearLocal() {
+        nearCache.invalidateAll();
+    }
+
+    /**
+     * Blocking load on a complete miss. The first caller runs the load on its own thread,
+     * concurrent callers for the same key wait up to coalesced-wait for that result instead of
+     * calling upstream too, so a stuck loader does not hang every one of them.
+     */
+    private Object loadCoalesced(Object key, String nearKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(nearKey, mine);
+        if (existing != null) {
+            coalescedLoads.increment();
+            try {
+                return existing.get(settings.getCoalescedWait().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw new ValueRetrievalException(key, valueLoader, unwrap(e.getCause()));
+            } catch (TimeoutException e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }
+        try {
+            Object value = getFromRedis(key, nearKey);
+            if (value == null) {
+                value = loadFromUpstream(key, valueLoader);
+            }
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(nearKey, mine);
+        }
+    }
+
+    /**
+     * Background reload. Reuses the Redis entry while it still has more than l2-min-remaining
+     * to live (another pod refreshed it recently), otherwise calls the loader and writes both levels.
+     */
+    private CompletableFuture<Object> refreshAsync(Object key, String nearKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(nearKey, mine);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Object value = l2HasTimeLeft(key) ? getFromRedis(key, nearKey) : null;
+                    if (value == null) {
+                        value = loadFromUpstream(key, valueLoader);
+                    }
+                    mine.complete(value);
+                } catch (Exception e) {
+                    log.warn("Refresh of {} entry {} failed, keeping the previous value: {}", name, nearKey, e.getMessage());
+                    mine.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(nearKey, mine);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Refresh pool is saturated: the stale value keeps being served, a later read retries
+            inFlight.remove(nearKey, mine);
+            mine.completeExceptionally(e);
+        }
+        return mine;
+    }
+
+    private Object loadFromUpstream(Object key, Callable<?> valueLoader) {
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            upstreamFailures.increment();
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        upstreamLoads.increment();
+        put(key, value);
+        return value;
+    }
+
+    private Object getFromRedis(Object key, String nearKey) {
+        ValueWrapper remote = redisCache.get(key);
+        if (remote != null && remote.get() != null) {
+            l2Hits.increment();
+            nearCache.put(nearKey, NearEntry.of(remote.get()));
+            return remote.get();
+        }
+        l2Misses.increment();
+        return null;
+    }
+
+    private boolean l2HasTimeLeft(Object key) {
+        try {
+            String redisKey = redisCache.getCacheConfiguration().getKeyPrefixFor(name) + nearKey(key);
+            Long remainingMs = stringRedisTemplate.getExpire(redisKey, TimeUnit.MILLISECONDS);
+            // -2 = no such key, -1 = no TTL
+            return remainingMs != null && (remainingMs == -1 || remainingMs > settings.getL2MinRemaining().toMillis());
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private Throwable unwrap(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof java.util.concurrent.CompletionException || cause instanceof ValueRetrievalException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private String nearKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    /** L1 value plus the time it was loaded, so freshness can be judged without Caffeine evicting it */
+    record NearEntry(Object value, long loadedAtNanos) {
+
+        static NearEntry of(Object value) {
+            return new NearEntry(value, System.nanoTime());
+        }
+
+        Duration age() {
+            return Duration.ofNanos(System.nanoTime() - loadedAtNanos);
+        }
+
+        boolean isExpired(Duration ttl) {
+            return age().compareTo(ttl) > 0;
+        }
+
+        boolean isDueForRefresh(Duration ttl, double refreshAheadRatio) {
+            return age().toNanos() > (long) (ttl.toNanos() * refreshAheadRatio);
+        }
+    }
+}
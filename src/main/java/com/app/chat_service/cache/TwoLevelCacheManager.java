@@ -0,0 +1,96 @@
+package com.app.chat_service.cache;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Wraps the Redis cache manager and puts a bounded Caffeine cache in front of
+ * the caches listed in {@code nearCacheNames}. Every other cache is served
+ * straight from Redis as before.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final RedisCacheManager redisCacheManager;
+    private final Set<String> nearCacheNames;
+    private final TwoLevelCacheSettings settings;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Executor refreshExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager,
+                                Set<String> nearCacheNames,
+                                TwoLevelCacheSettings settings,
+                                CacheInvalidationPublisher invalidationPublisher,
+                                StringRedisTemplate stringRedisTemplate,
+                                Executor refreshExecutor,
+                                MeterRegistry meterRegistry) {
+        this.redisCacheManager = redisCacheManager;
+        this.nearCacheNames = nearCacheNames;
+        this.settings = settings;
+        this.invalidationPublisher = invalidationPublisher;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.refreshExecutor = refreshExecutor;
+        this.meterRegistry = meterRegistry;
+        log.info("Near cache enabled for {} (maxSize={}, ttl={}, staleGrace={})",
+                nearCacheNames, settings.getMaxSize(), settings.getTtl(), settings.getStaleGrace());
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    /** Applies an invalidation received from another pod to the local L1 only */
+    public void invalidateLocal(String cacheName, String key) {
+        if (!(caches.get(cacheName) instanceof TwoLevelCache cache)) {
+            return;
+        }
+        if (key == null) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(key);
+        }
+    }
+
+    private Cache createCache(String name) {
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (!(redisCache instanceof RedisCache l2) || !nearCacheNames.contains(name)) {
+            return redisCache;
+        }
+        // Entries are kept past ttl for the stale grace period; TwoLevelCache decides freshness itself
+        com.github.benmanes.caffeine.cache.Cache<String, TwoLevelCache.NearEntry> nearCache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaxSize())
+                .expireAfterWrite(settings.getTtl().plus(settings.getStaleGrace()))
+                .build();
+        Gauge.builder("chat.cache.near.size", nearCache, c -> c.estimatedSize())
+                .description("Entries currently held in the in-process near cache")
+                .tag("cache", name)
+                .register(meterRegistry);
+        return new TwoLevelCache(name, l2, nearCache, invalidationPublisher, stringRedisTemplate,
+                refreshExecutor, settings, meterRegistry);
+    }
+}
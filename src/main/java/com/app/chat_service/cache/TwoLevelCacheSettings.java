@@ -0,0 +1,32 @@
+package com.app.chat_service.cache;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/** Tunables shared by every near-cached cache. */
+@Getter
+@Builder
+public class TwoLevelCacheSettings {
+
+    private final long maxSize;
+
+    /** How long an L1 entry is served without revalidation */
+    private final Duration ttl;
+
+    /** Fraction of ttl after which a read triggers a background refresh */
+    private final double refreshAheadRatio;
+
+    /** How long past ttl an entry may still be served while it is being reloaded */
+    private final Duration staleGrace;
+
+    /** How long a read on a stale entry waits for the reload before returning the stale value */
+    private final Duration staleWait;
+
+    /** How long a complete miss waits for another caller's load of the same key before failing */
+    private final Duration coalescedWait;
+
+    /** A refresh reuses the Redis entry instead of calling upstream while it has at least this long to live */
+    private final Duration l2MinRemaining;
+}
@@ -1,5 +1,6 @@
 package com.app.chat_service.config; // Or your common config package
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.task.TaskDecorator;
 
@@ -9,32 +10,120 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
+/**
+ * Async pools, one per {@link com.app.chat_service.lane.Lane} so a burst of one never queues behind
+ * another: message processing (delivery, must not be lost), read receipts, and sidebar refreshes
+ * (best effort; the next refresh supersedes a dropped one). Presence contact loading has a pool of
+ * its own: it is background work, but nothing supersedes a dropped one. Each has its own size,
+ * queue and {@link RejectionPolicy}.
+ * Active, queued and completed counts are Boot's {@code executor.*} metrics tagged with the bean
+ * name; time spent in the queue is {@code chat.executor.queue.wait}.
+ */
 @Configuration
 @EnableAsync // This ensures the feature is turned on
 public class AsyncConfig {
 
-    @Bean(name = "asyncTaskExecutor")
-    public Executor asyncTaskExecutor() {
+    @Bean(name = "messageExecutor")
+    public Executor messageExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${chat.async.messages.pool-size}") int poolSize,
+            @Value("${chat.async.messages.queue-capacity}") int queueCapacity,
+            @Value("${chat.async.messages.rejection}") RejectionPolicy rejection,
+            @Value("${chat.async.block-timeout}") Duration blockTimeout) {
+        return asyncExecutor("messageExecutor", "MessageProcessor-", poolSize, queueCapacity,
+                rejection, blockTimeout, meterRegistry);
+    }
+
+    @Bean(name = "receiptExecutor")
+    public Executor receiptExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${chat.async.receipts.pool-size}") int poolSize,
+            @Value("${chat.async.receipts.queue-capacity}") int queueCapacity,
+            @Value("${chat.async.receipts.rejection}") RejectionPolicy rejection,
+            @Value("${chat.async.block-timeout}") Duration blockTimeout) {
+        return asyncExecutor("receiptExecutor", "ReceiptProcessor-", poolSize, queueCapacity,
+                rejection, blockTimeout, meterRegistry);
+    }
+
+    @Bean(name = "sidebarExecutor")
+    public Executor sidebarExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${chat.async.sidebar.pool-size}") int poolSize,
+            @Value("${chat.async.sidebar.queue-capacity}") int queueCapacity,
+            @Value("${chat.async.sidebar.rejection}") RejectionPolicy rejection,
+            @Value("${chat.async.block-timeout}") Duration blockTimeout) {
+        return asyncExecutor("sidebarExecutor", "SidebarRefresh-", poolSize, queueCapacity,
+                rejection, blockTimeout, meterRegistry);
+    }
+
+    @Bean(name = "presenceExecutor")
+    public Executor presenceExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${chat.async.presence.pool-size}") int poolSize,
+            @Value("${chat.async.presence.queue-capacity}") int queueCapacity,
+            @Value("${chat.async.presence.rejection}") RejectionPolicy rejection,
+            @Value("${chat.async.block-timeout}") Duration blockTimeout) {
+        return asyncExecutor("presenceExecutor", "PresenceContacts-", poolSize, queueCapacity,
+                rejection, blockTimeout, meterRegistry);
+    }
+
+    private Executor asyncExecutor(String name, String threadNamePrefix, int poolSize, int queueCapacity,
+                                   RejectionPolicy rejection, Duration blockTimeout, MeterRegistry meterRegistry) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(10); // Start with 5 threads
-        executor.setMaxPoolSize(20); // Allow up to 10 threads
-        executor.setQueueCapacity(35); // Queue up to 25 tasks before rejecting
-        executor.setThreadNamePrefix("AsyncProcessor-"); // Crucial for logging!
-        
-     // This decorator will copy the request context to the async threads
-        executor.setTaskDecorator(new ContextCopyingDecorator());
-        
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix); // Crucial for logging!
+        executor.setRejectedExecutionHandler(rejection.handler(name, blockTimeout, meterRegistry));
+
+        // Copies the request context to the async threads and times the wait for a free thread
+        Timer queueWait = Timer.builder("chat.executor.queue.wait")
+                .description("Time a task waits in the executor queue before it starts")
+                .tag("executor", name)
+                .register(meterRegistry);
+        TaskDecorator contextCopying = new ContextCopyingDecorator();
+        executor.setTaskDecorator(runnable -> {
+            Runnable task = contextCopying.decorate(runnable);
+            long submitted = System.nanoTime();
+            return () -> {
+                queueWait.record(Duration.ofNanos(System.nanoTime() - submitted));
+                task.run();
+            };
+        });
+
         executor.initialize();
         return executor;
     }
-    
- // Helper class to copy the context
-    class ContextCopyingDecorator implements TaskDecorator {
+
+    // Parallel presigning for batch employee lookups; no request-context copying, and
+    // when the pool is busy the caller signs the URL itself instead of failing
+    @Bean(name = "presignExecutor")
+    public Executor presignExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("Presign-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+ // Helper class to copy the context; STOMP and listener threads have none to copy
+    static class ContextCopyingDecorator implements TaskDecorator {
         @Override
         public Runnable decorate(Runnable runnable) {
-            RequestAttributes context = RequestContextHolder.currentRequestAttributes();
+            RequestAttributes context = RequestContextHolder.getRequestAttributes();
+            if (context == null) {
+                return runnable;
+            }
             return () -> {
                 try {
                     RequestContextHolder.setRequestAttributes(context);
@@ -45,4 +134,4 @@ public class AsyncConfig {
             };
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package com.app.chat_service.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.app.chat_service.dto.TeamResponse;
+import com.app.chat_service.feignclient.EmployeeClient;
+import com.app.chat_service.feignclient.ResilientEmployeeClient;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Circuit breaker, bulkhead and async pool around the employee-service Feign client.
+ * Per-attempt connect/read timeouts are set on the Feign client itself
+ * (spring.cloud.openfeign.client.config.employee-service.*).
+ */
+@Configuration
+public class EmployeeClientConfig {
+
+    private static final String NAME = "employeeService";
+
+    @Bean
+    public CircuitBreaker employeeServiceCircuitBreaker(
+            MeterRegistry meterRegistry,
+            @Value("${chat.employee-client.circuit-breaker.failure-rate-threshold}") float failureRateThreshold,
+            @Value("${chat.employee-client.circuit-breaker.slow-call-threshold}") Duration slowCallThreshold,
+            @Value("${chat.employee-client.circuit-breaker.sliding-window-size}") int slidingWindowSize,
+            @Value("${chat.employee-client.circuit-breaker.wait-in-open-state}") Duration waitInOpenState) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(slowCallThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(Math.min(slidingWindowSize, 10))
+                .waitDurationInOpenState(waitInOpenState)
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker(NAME);
+    }
+
+    @Bean
+    public Bulkhead employeeServiceBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${chat.employee-client.bulkhead.max-concurrent-calls}") int maxConcurrentCalls,
+            @Value("${chat.employee-client.bulkhead.max-wait}") Duration maxWait) {
+        BulkheadConfig config = BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(maxWait)
+                .build();
+        BulkheadRegistry registry = BulkheadRegistry.of(config);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry.bulkhead(NAME);
+    }
+
+    // Separate pool so lookups for overview building never queue behind message processing;
+    // copies the request context so FeignClientInterceptor can forward the caller's token
+    @Bean(name = "employeeClientExecutor")
+    public Executor employeeClientExecutor(
+            @Value("${chat.employee-client.async.pool-size}") int poolSize,
+            @Value("${chat.employee-client.async.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("EmployeeClient-");
+        executor.setTaskDecorator(new AsyncConfig.ContextCopyingDecorator());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ResilientEmployeeClient resilientEmployeeClient(
+            EmployeeClient employeeClient,
+            CircuitBreaker employeeServiceCircuitBreaker,
+            Bulkhead employeeServiceBulkhead,
+            @Qualifier("employeeClientExecutor") Executor employeeClientExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${chat.employee-client.async.timeout}") Duration asyncTimeout,
+            @Value("${chat.employee-client.last-known-good.max-size}") long lastKnownGoodMaxSize,
+            @Value("${chat.employee-client.last-known-good.ttl}") Duration lastKnownGoodTtl) {
+        com.github.benmanes.caffeine.cache.Cache<String, List<TeamResponse>> lastKnownGood = Caffeine.newBuilder()
+                .maximumSize(lastKnownGoodMaxSize)
+                .expireAfterWrite(lastKnownGoodTtl)
+                .build();
+        return new ResilientEmployeeClient(employeeClient, employeeServiceCircuitBreaker, employeeServiceBulkhead,
+                employeeClientExecutor, asyncTimeout, lastKnownGood, meterRegistry);
+    }
+}
@@ -0,0 +1,129 @@
+package com.app.chat_service.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.app.chat_service.datasource.PgAdvisoryLock;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Backfills {@code chat_messages.search_vector} for rows written before the search trigger
+ * existed. The column, trigger and GIN indexes themselves come from the Flyway migrations and
+ * from ChatPartitionManager, which indexes every partition it creates.
+ * <p>
+ * Runs under a Postgres advisory lock, so only one pod does the work, off the startup thread.
+ */
+@Slf4j
+@Component
+public class MessageSearchSchema {
+
+    private static final long ADVISORY_LOCK_KEY = 0x63686174_73726368L; // "chatsrch"
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PgAdvisoryLock advisoryLock;
+    private final String schema;
+    private final String textSearchConfig;
+    private final int backfillBatchSize;
+    private final Duration backfillPause;
+
+    public MessageSearchSchema(JdbcTemplate jdbcTemplate,
+                               PgAdvisoryLock advisoryLock,
+                               @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema,
+                               @Value("${chat.search.text-search-config}") String textSearchConfig,
+                               @Value("${chat.search.backfill.batch-size}") int backfillBatchSize,
+                               @Value("${chat.search.backfill.pause}") Duration backfillPause) {
+        if (!textSearchConfig.matches("[a-z_]+")) {
+            throw new IllegalArgumentException("chat.search.text-search-config must be a plain configuration name");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.advisoryLock = advisoryLock;
+        this.schema = schema == null ? "" : schema.trim();
+        this.textSearchConfig = textSearchConfig;
+        this.backfillBatchSize = backfillBatchSize;
+        this.backfillPause = backfillPause;
+    }
+
+    public String getTextSearchConfig() {
+        return textSearchConfig;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void install() {
+        Thread worker = new Thread(() -> {
+            try {
+                jdbcTemplate.execute((ConnectionCallback<Void>) this::installWithLock);
+            } catch (Exception e) {
+                log.error("Message search backfill failed; older messages stay unsearchable until the next start", e);
+            }
+        }, "SearchSchema");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private Void installWithLock(Connection connection) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        // Every batch commits on its own
+        connection.setAutoCommit(true);
+        try {
+            if (!advisoryLock.tryLock(connection, ADVISORY_LOCK_KEY)) {
+                log.info("Another instance is backfilling message search, skipping");
+                return null;
+            }
+            try {
+                backfill(connection);
+            } finally {
+                advisoryLock.unlock(connection, ADVISORY_LOCK_KEY);
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return null;
+    }
+
+    // Keyset batches by id, each its own short transaction, with a pause so replicas keep up
+    private void backfill(Connection connection) throws SQLException {
+        String table = qualified("chat_messages");
+        String sql = "WITH batch AS (SELECT id FROM " + table
+                + " WHERE id > ? AND search_vector IS NULL AND is_deleted IS NOT TRUE ORDER BY id LIMIT ?) "
+                + "UPDATE " + table + " m SET search_vector = to_tsvector('" + textSearchConfig
+                + "', coalesce(m.content, '')) FROM batch WHERE m.id = batch.id RETURNING m.id";
+        long lastId = 0;
+        long total = 0;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            while (true) {
+                ps.setLong(1, lastId);
+                ps.setInt(2, backfillBatchSize);
+                int rows = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        lastId = Math.max(lastId, rs.getLong(1));
+                        rows++;
+                    }
+                }
+                if (rows == 0) {
+                    break;
+                }
+                total += rows;
+                advisoryLock.pause(backfillPause);
+            }
+        }
+        if (total > 0) {
+            log.info("Message search backfill indexed {} messages", total);
+        }
+    }
+
+    private String qualified(String name) {
+        return schema.isEmpty() ? name : schema + "." + name;
+    }
+}
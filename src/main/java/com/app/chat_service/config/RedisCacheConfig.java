@@ -1,32 +1,40 @@
 package com.app.chat_service.config;
 
 import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 
 import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisPassword;
 import org.springframework.data.redis.connection.RedisSentinelConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
-import com.fasterxml.jackson.annotation.JsonTypeInfo;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.app.chat_service.cache.CacheInvalidationPublisher;
+import com.app.chat_service.cache.TwoLevelCacheManager;
+import com.app.chat_service.cache.TwoLevelCacheSettings;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 @Configuration
 @EnableCaching
@@ -61,7 +69,7 @@ public class RedisCacheConfig {
     // }
 
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
         // ObjectMapper with JavaTimeModule for LocalDateTime support
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
@@ -90,4 +98,47 @@ public class RedisCacheConfig {
             .enableStatistics()
             .build();
     }
+
+    // L1 (in-process) cache in front of Redis for the lookups hit on every message / sidebar build
+    @Bean
+    @Primary
+    public TwoLevelCacheManager cacheManager(RedisCacheManager redisCacheManager,
+                                             CacheInvalidationPublisher invalidationPublisher,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             @Qualifier("cacheRefreshExecutor") Executor cacheRefreshExecutor,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${chat.cache.near.names}") Set<String> nearCacheNames,
+                                             @Value("${chat.cache.near.max-size}") long nearMaxSize,
+                                             @Value("${chat.cache.near.ttl}") Duration nearTtl,
+                                             @Value("${chat.cache.near.refresh-ahead-ratio}") double refreshAheadRatio,
+                                             @Value("${chat.cache.near.stale-grace}") Duration staleGrace,
+                                             @Value("${chat.cache.near.stale-wait}") Duration staleWait,
+                                             @Value("${chat.cache.near.coalesced-wait}") Duration coalescedWait,
+                                             @Value("${chat.cache.refresh.l2-min-remaining}") Duration l2MinRemaining) {
+        TwoLevelCacheSettings settings = TwoLevelCacheSettings.builder()
+                .maxSize(nearMaxSize)
+                .ttl(nearTtl)
+                .refreshAheadRatio(refreshAheadRatio)
+                .staleGrace(staleGrace)
+                .staleWait(staleWait)
+                .coalescedWait(coalescedWait)
+                .l2MinRemaining(l2MinRemaining)
+                .build();
+        return new TwoLevelCacheManager(redisCacheManager, nearCacheNames, settings,
+                invalidationPublisher, stringRedisTemplate, cacheRefreshExecutor, meterRegistry);
+    }
+
+    // Background refresh-ahead loads; when full, refreshes are skipped and the stale value keeps being served.
+    // Loaders call employee-service, so they get the caller's request context (Authorization) like the async pools
+    @Bean(name = "cacheRefreshExecutor")
+    public Executor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("CacheRefresh-");
+        executor.setTaskDecorator(new AsyncConfig.ContextCopyingDecorator());
+        executor.initialize();
+        return executor;
+    }
 }
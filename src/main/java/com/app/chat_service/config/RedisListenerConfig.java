@@ -1,5 +1,7 @@
 package com.app.chat_service.config;
 
+import com.app.chat_service.cache.CacheInvalidationListener;
+import com.app.chat_service.cache.CacheInvalidationPublisher;
 import com.app.chat_service.redis.RedisSubscriber;
 
 import org.springframework.context.annotation.Bean;
@@ -16,11 +18,13 @@ public class RedisListenerConfig {
     public RedisMessageListenerContainer redisMessageListenerContainer(
             RedisConnectionFactory connectionFactory,
             RedisSubscriber redisSubscriber,
+            CacheInvalidationListener cacheInvalidationListener,
             ChannelTopic topic) {
 
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(connectionFactory);
         container.addMessageListener(redisSubscriber, topic);
+        container.addMessageListener(cacheInvalidationListener, CacheInvalidationPublisher.TOPIC);
         return container;
     }
 }
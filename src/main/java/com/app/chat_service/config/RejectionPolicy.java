@@ -0,0 +1,80 @@
+package com.app.chat_service.config;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * What an executor does with a task when its queue is full. Every time a policy kicks in it is
+ * counted as {@code chat.executor.rejected{executor,action}}, so a burst is visible even when
+ * nothing fails.
+ */
+@Slf4j
+public enum RejectionPolicy {
+
+    /** Waits up to the block timeout for queue space, then fails the submit with a TaskRejectedException */
+    BLOCK,
+    /** Runs the task on the submitting thread, which slows the producer down */
+    CALLER_RUNS,
+    /** Drops the task; for work that a later task supersedes anyway */
+    SHED,
+    /** Fails the submit straight away; for callers that keep the task and submit it again later */
+    ABORT;
+
+    public RejectedExecutionHandler handler(String executorName, Duration blockTimeout, MeterRegistry meterRegistry) {
+        Counter engaged = rejected(executorName, name().toLowerCase(), meterRegistry);
+        return switch (this) {
+            case BLOCK -> {
+                Counter failed = rejected(executorName, "failed", meterRegistry);
+                yield (task, executor) -> {
+                    engaged.increment();
+                    if (!offer(task, executor, blockTimeout)) {
+                        failed.increment();
+                        log.error("{} queue still full after {}, task rejected", executorName, blockTimeout);
+                        throw new RejectedExecutionException(executorName + " queue full for " + blockTimeout);
+                    }
+                };
+            }
+            case CALLER_RUNS -> (task, executor) -> {
+                engaged.increment();
+                if (!executor.isShutdown()) {
+                    task.run();
+                }
+            };
+            case SHED -> (task, executor) -> {
+                engaged.increment();
+                log.debug("{} queue full, task shed", executorName);
+            };
+            case ABORT -> (task, executor) -> {
+                engaged.increment();
+                throw new RejectedExecutionException(executorName + " queue full");
+            };
+        };
+    }
+
+    private static boolean offer(Runnable task, ThreadPoolExecutor executor, Duration timeout) {
+        if (executor.isShutdown()) {
+            return false;
+        }
+        try {
+            return executor.getQueue().offer(task, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Counter rejected(String executorName, String action, MeterRegistry meterRegistry) {
+        return Counter.builder("chat.executor.rejected")
+                .description("Tasks that found the executor queue full, by what was done with them")
+                .tag("executor", executorName)
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+}
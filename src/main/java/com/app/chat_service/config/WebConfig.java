@@ -1,13 +1,23 @@
 package com.app.chat_service.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.app.chat_service.datasource.RoutingUserInterceptor;
+import com.app.chat_service.metrics.QueryCountInterceptor;
+
+import lombok.RequiredArgsConstructor;
+
 
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final RoutingUserInterceptor routingUserInterceptor;
+    private final QueryCountInterceptor queryCountInterceptor;
+
    
     @Override
     public void addCorsMappings(CorsRegistry registry) {
@@ -17,4 +27,11 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*") 
                 .allowCredentials(true);
     }
+
+    // Lets read-only transactions go to a replica once the employee is known
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(routingUserInterceptor);
+        registry.addInterceptor(queryCountInterceptor);
+    }
 }
\ No newline at end of file
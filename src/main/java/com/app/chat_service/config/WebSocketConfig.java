@@ -1,18 +1,56 @@
 package com.app.chat_service.config;
 
+import com.app.chat_service.datasource.RoutingUserInterceptor;
+import com.app.chat_service.lane.LaneTaskExecutor;
+import com.app.chat_service.lane.SlowConsumerPolicy;
+import com.app.chat_service.metrics.QueryCountInterceptor;
+import com.app.chat_service.metrics.WebSocketMetrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.unit.DataSize;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+import java.time.Duration;
+
 @Slf4j
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final RoutingUserInterceptor routingUserInterceptor;
+    private final QueryCountInterceptor queryCountInterceptor;
+    private final WebSocketMetrics webSocketMetrics;
+    private final MeterRegistry meterRegistry;
+    private final SlowConsumerPolicy slowConsumerPolicy;
+
+    @Value("${chat.lanes.inbound.pool-size}")
+    private int inboundPoolSize;
+
+    @Value("${chat.lanes.outbound.pool-size}")
+    private int outboundPoolSize;
+
+    @Value("${chat.lanes.receipt.max-queued}")
+    private int receiptMaxQueued;
+
+    @Value("${chat.lanes.background.max-queued}")
+    private int backgroundMaxQueued;
+
+    @Value("${chat.websocket.send-time-limit}")
+    private Duration sendTimeLimit;
+
+    @Value("${chat.websocket.send-buffer-size-limit}")
+    private DataSize sendBufferSizeLimit;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         // Enable in-memory broker for topics and queues
@@ -36,8 +74,33 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         log.info("WebSocket STOMP endpoint [/api/chat] registered");
     }
 
+    // Frames run by lane (messages before receipts before typing/presence); @MessageMapping methods
+    // run with the session's employee as routing user, and their SQL is counted
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        LaneTaskExecutor lanes = new LaneTaskExecutor("clientInboundChannel", inboundPoolSize,
+                receiptMaxQueued, backgroundMaxQueued, meterRegistry);
+        registration.taskExecutor(lanes);
+        registration.interceptors(lanes.clientAdmission(), routingUserInterceptor, queryCountInterceptor, webSocketMetrics.inbound());
+    }
+
+    // Writes to clients by lane too; payload sizes and per-session backlog of what is admitted,
+    // then background traffic for sessions that are behind is dropped or coalesced
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        LaneTaskExecutor lanes = new LaneTaskExecutor("clientOutboundChannel", outboundPoolSize,
+                receiptMaxQueued, backgroundMaxQueued, meterRegistry);
+        registration.taskExecutor(lanes);
+        registration.interceptors(lanes.admission(), webSocketMetrics.outbound(), slowConsumerPolicy.outbound());
+    }
+
+    // A session whose write blocks past the time limit, or that buffers past the size limit
+    // meanwhile, is closed (SESSION_NOT_RELIABLE, 4500) instead of holding memory for ever
     @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
         registration.setMessageSizeLimit(10 * 1024 * 1024); // 10 MB
+        registration.setSendTimeLimit((int) sendTimeLimit.toMillis());
+        registration.setSendBufferSizeLimit((int) sendBufferSizeLimit.toBytes());
+        registration.addDecoratorFactory(slowConsumerPolicy::decorate);
     }
 }
@@ -1,5 +1,6 @@
 package com.app.chat_service.controller;
-import com.app.chat_service.kakfa.KafkaMessageProcessorService;
+import com.app.chat_service.archive.ChatArchiveReader;
+import com.app.chat_service.kakfa.MessageDispatcher;
 import com.app.chat_service.model.ChatMessage;
 import com.app.chat_service.repo.ChatMessageRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,7 +24,10 @@ public class FileUploadController {
 //    private ChatKafkaProducer chatKafkaProducer;
     
     @Autowired
-    KafkaMessageProcessorService messageProcessor;
+    MessageDispatcher messageDispatcher;
+
+    @Autowired
+    private ChatArchiveReader archiveReader;
  
     @PostMapping("/upload")
     public ResponseEntity<?> uploadFile(
@@ -65,7 +69,7 @@ public class FileUploadController {
             log.info("✅ File message saved to DB with ID: {}", savedMessage.getId());
  
 //            chatKafkaProducer.send(savedMessage);
-            messageProcessor.processChatMessage(savedMessage);
+            messageDispatcher.dispatch(savedMessage);
 
             log.info("Sent file message to Kafka. ClientID: {}, DB ID: {}", clientId, savedMessage.getId());
  
@@ -85,22 +89,31 @@ public class FileUploadController {
  
     @GetMapping("/file/{id}")
     public ResponseEntity<byte[]> getFile(@PathVariable Long id) {
-        ChatMessage msg = chatMessageRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Message not found with id: " + id));
+        Optional<ChatMessage> live = chatMessageRepository.findById(id);
+        if (live.isEmpty()) {
+            // Partition already archived: the bytes live in the archive store
+            return archiveReader.getFile(id)
+                    .map(file -> new ResponseEntity<>(file.bytes(), fileHeaders(file.contentType(), file.fileName()), HttpStatus.OK))
+                    .orElseThrow(() -> new RuntimeException("Message not found with id: " + id));
+        }
+        ChatMessage msg = live.get();
  
         if (msg.getFileData() == null) {
             log.error("File data is null for message id: {}", id);
             return ResponseEntity.notFound().build();
         }
        
+        return new ResponseEntity<>(msg.getFileData(), fileHeaders(msg.getFileType(), msg.getFileName()), HttpStatus.OK);
+    }
+
+    private HttpHeaders fileHeaders(String fileType, String fileName) {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.parseMediaType(msg.getFileType()));
+        headers.setContentType(MediaType.parseMediaType(fileType));
  
-        ContentDisposition disposition = (msg.getFileType() != null && (msg.getFileType().startsWith("image/") || msg.getFileType().startsWith("audio/") || msg.getFileType().startsWith("video/")))
-                ? ContentDisposition.inline().filename(msg.getFileName()).build()
-                : ContentDisposition.attachment().filename(msg.getFileName()).build();
+        ContentDisposition disposition = (fileType != null && (fileType.startsWith("image/") || fileType.startsWith("audio/") || fileType.startsWith("video/")))
+                ? ContentDisposition.inline().filename(fileName).build()
+                : ContentDisposition.attachment().filename(fileName).build();
         headers.setContentDisposition(disposition);
- 
-        return new ResponseEntity<>(msg.getFileData(), headers, HttpStatus.OK);
+        return headers;
     }
 }
\ No newline at end of file
@@ -3,12 +3,14 @@ package com.app.chat_service.controller;
 import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.app.chat_service.cache.PresignedUrlCache;
 import com.app.chat_service.service.ImageService;
 
 @RestController
@@ -18,11 +20,17 @@ public class ImageController {
 	@Autowired
 	private ImageService imageService;
 	
+	@Autowired
+	private PresignedUrlCache presignedUrlCache;
+	
 	@GetMapping("/{employeeId}/image")
 	//@PreAuthorize("hasAnyRole('EMPLOYEE', 'ADMIN', 'HR', 'MANAGER','TEAM_LEAD')")
 	public CompletableFuture<ResponseEntity<String>> getEmployeeImage(@PathVariable("employeeId") String employeeId) throws Exception{
+	        // The URL stays the same until shortly before its signature expires, let the client keep it until then
 	        return imageService.getEmployeeImage(employeeId)
-	                .thenApply(ResponseEntity::ok);
+	                .thenApply(url -> ResponseEntity.ok()
+	                        .cacheControl(CacheControl.maxAge(url.cacheableFor(presignedUrlCache.getRefreshAhead())).cachePrivate())
+	                        .body(url.url()));
 	}
 
 }
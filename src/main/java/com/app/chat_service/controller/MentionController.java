@@ -0,0 +1,38 @@
+package com.app.chat_service.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.app.chat_service.dto.MentionFeedResponse;
+import com.app.chat_service.service.MentionService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/chat/mentions")
+@RequiredArgsConstructor
+public class MentionController {
+
+    private final MentionService mentionService;
+
+    /** Mentions of the employee, newest first; pass the returned nextBefore to get the next page */
+    @GetMapping("/{employeeId}")
+    public ResponseEntity<MentionFeedResponse> getMentions(
+            @PathVariable("employeeId") String employeeId,
+            @RequestParam(value = "before", required = false) Long before,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        return ResponseEntity.ok(mentionService.getFeed(employeeId, before, size));
+    }
+
+    /** Unseen mentions per conversation (team id, or "a:b" for private chats) */
+    @GetMapping("/{employeeId}/unread")
+    public ResponseEntity<Map<String, Long>> getUnreadMentions(@PathVariable("employeeId") String employeeId) {
+        return ResponseEntity.ok(mentionService.getUnreadCounts(employeeId));
+    }
+}
@@ -0,0 +1,37 @@
+package com.app.chat_service.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.app.chat_service.dto.MessageSearchResponse;
+import com.app.chat_service.service.MessageSearchService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/chat/search")
+@RequiredArgsConstructor
+public class MessageSearchController {
+
+    private final MessageSearchService messageSearchService;
+
+    /**
+     * Searches the messages the employee can see, newest first. Supports quoted phrases,
+     * OR and -exclusions; chatId limits the search to one conversation.
+     */
+    @GetMapping
+    public ResponseEntity<MessageSearchResponse> search(
+            @RequestParam("employeeId") String employeeId,
+            @RequestParam("q") String query,
+            @RequestParam(value = "chatId", required = false) String chatId,
+            @RequestParam(value = "before", required = false) Long before,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        if (query.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(messageSearchService.search(employeeId, query, chatId, before, size));
+    }
+}
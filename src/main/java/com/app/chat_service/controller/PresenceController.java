@@ -0,0 +1,36 @@
+package com.app.chat_service.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.app.chat_service.service.PresenceService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/chat/presence")
+@RequiredArgsConstructor
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    /** Online status of every chat partner and team member; load once, then apply /user/queue/presence diffs */
+    @GetMapping("/{employeeId}")
+    public ResponseEntity<Map<String, Boolean>> getContactsPresence(@PathVariable("employeeId") String employeeId) {
+        return ResponseEntity.ok(presenceService.snapshot(employeeId));
+    }
+
+    /** Online status of the given employees, e.g. the members list of a group */
+    @PostMapping
+    public ResponseEntity<Map<String, Boolean>> getPresence(@RequestBody List<String> employeeIds) {
+        return ResponseEntity.ok(presenceService.onlineStatus(employeeIds));
+    }
+}
@@ -0,0 +1,33 @@
+package com.app.chat_service.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.app.chat_service.service.UnreadCounterService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/chat/unread")
+@RequiredArgsConstructor
+public class UnreadController {
+
+    private final UnreadCounterService unreadCounterService;
+
+    /** Unread count per conversation (partner id or team id); conversations with nothing unread are left out */
+    @GetMapping("/{employeeId}")
+    public ResponseEntity<Map<String, Long>> getUnreadCounts(@PathVariable("employeeId") String employeeId) {
+        return ResponseEntity.ok(unreadCounterService.getCounts(employeeId));
+    }
+
+    /** App-level badge; the same value is pushed to /user/queue/unread-total whenever it changes */
+    @GetMapping("/total/{employeeId}")
+    public ResponseEntity<Map<String, Long>> getUnreadTotal(@PathVariable("employeeId") String employeeId) {
+        return ResponseEntity.ok(Map.of("total", unreadCounterService.getTotal(employeeId)));
+    }
+}
@@ -1,7 +1,7 @@
 package com.app.chat_service.controller;
 
 import com.app.chat_service.dto.VoiceMessageRequest;
-import com.app.chat_service.kakfa.KafkaMessageProcessorService;
+import com.app.chat_service.kakfa.MessageDispatcher;
 import com.app.chat_service.model.ChatMessage;
 import com.app.chat_service.repo.ChatMessageRepository;
 import lombok.RequiredArgsConstructor;
@@ -24,7 +24,7 @@ public class VoiceMessageController {
     private final ChatMessageRepository chatMessageRepository;
     
     @Autowired
-    KafkaMessageProcessorService messageProcessor;
+    MessageDispatcher messageDispatcher;
 
     @PostMapping("/upload")
     public ResponseEntity<?> uploadVoiceMessage(@RequestBody VoiceMessageRequest voiceRequest) {
@@ -67,7 +67,7 @@ public class VoiceMessageController {
             );
 
 //            chatKafkaProducer.send(savedMessage);
-            messageProcessor.processChatMessage(savedMessage);
+            messageDispatcher.dispatch(savedMessage);
 
 
             log.info("📤 Voice message sent to producer. ID: {}, FileName: {}, Type: {}, Size: {} bytes",
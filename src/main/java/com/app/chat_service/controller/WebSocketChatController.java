@@ -4,7 +4,9 @@ import com.app.chat_service.dto.ChatMessageRequest;
 import com.app.chat_service.dto.ClearChatRequest;
 import com.app.chat_service.dto.ReplyForwardMessageDTO;
 import com.app.chat_service.dto.TypingStatusDTO;
-import com.app.chat_service.kakfa.KafkaMessageProcessorService;
+import com.app.chat_service.kakfa.MessageDispatcher;
+import com.app.chat_service.metrics.MessageStageMetrics;
+import com.app.chat_service.metrics.MessageStageMetrics.Stage;
 import com.app.chat_service.model.ChatMessage;
 import com.app.chat_service.repo.ChatMessageRepository;
 import com.app.chat_service.repo.ClearedChatRepository;
@@ -14,6 +16,7 @@ import com.app.chat_service.service.ChatMessageService;
 import com.app.chat_service.service.ChatPresenceTracker;
 import com.app.chat_service.service.ClearedChatService;
 import com.app.chat_service.service.TeamService;
+import com.app.chat_service.service.TypingAggregator;
 import com.app.chat_service.service.UpdateChatMessageService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
@@ -40,9 +43,11 @@ public class WebSocketChatController {
     private final UpdateChatMessageService updateChatMessageService;
     private final ClearedChatRepository clearedChatRepository;
     private final ClearedChatService clearedChatService;
-    private final KafkaMessageProcessorService messageProcessor;
+    private final MessageDispatcher messageDispatcher;
     private final ChatMessageOverviewService chatMessageOverviewService;
     private final TeamService teamService;
+    private final MessageStageMetrics stageMetrics;
+    private final TypingAggregator typingAggregator;
     
     public WebSocketChatController(
                                    ChatPresenceTracker chatTracker,
@@ -53,9 +58,11 @@ public class WebSocketChatController {
                                    UpdateChatMessageService updateChatMessageService,
                                    ClearedChatRepository clearedChatRepository,
                                    ClearedChatService clearedChatService,
-                                   KafkaMessageProcessorService messageProcessor,
+                                   MessageDispatcher messageDispatcher,
                                    ChatMessageOverviewService chatMessageOverviewService,
-                                   TeamService teamService) {
+                                   TeamService teamService,
+                                   MessageStageMetrics stageMetrics,
+                                   TypingAggregator typingAggregator) {
         this.chatTracker = chatTracker;
         this.chatMessageService = chatMessageService;
         this.chatForwardService = chatForwardService;
@@ -64,9 +71,11 @@ public class WebSocketChatController {
         this.updateChatMessageService = updateChatMessageService;
         this.clearedChatRepository = clearedChatRepository;
         this.clearedChatService = clearedChatService;
-        this.messageProcessor=messageProcessor;
+        this.messageDispatcher=messageDispatcher;
         this.chatMessageOverviewService=chatMessageOverviewService;
         this.teamService=teamService;
+        this.stageMetrics=stageMetrics;
+        this.typingAggregator=typingAggregator;
         		}
 
     // Mark chat as opened, start read process
@@ -90,14 +99,15 @@ public class WebSocketChatController {
         chatTracker.closeChat(user, target);
 
         log.info("❌ Chat closed from {} to {}", user, target);
-        chatMessageService.broadcastChatOverview(user);
-        chatMessageService.broadcastChatOverview(target);
+        chatMessageService.refreshChatOverview(user);
+        chatMessageService.refreshChatOverview(target);
     }
 
     // Send chat message (with ACK)
     @MessageMapping("/send")
     @Transactional
     public void handleMessage(@Payload ChatMessageRequest request) {
+        long received = stageMetrics.start();
     	log.info("app/chat/send  METHOD CALLED");
         log.info("➡️ Message received in backend: {}", request);
 
@@ -110,7 +120,9 @@ public class WebSocketChatController {
         message.setTimestamp(LocalDateTime.now());
         message.setClientId(request.getClientId());
 
-        ChatMessage savedMessage = chatMessageRepository.save(message);
+        // Flushed here so the insert is timed as the save, not hidden in the commit
+        ChatMessage savedMessage = stageMetrics.record(Stage.DB_SAVE, request.getType(),
+                () -> chatMessageRepository.saveAndFlush(message));
         log.info("✅ Message saved to DB with ID: {}", savedMessage.getId());
         
 
@@ -138,11 +150,11 @@ public class WebSocketChatController {
                     ? "/queue/private-ack"
                     : "/queue/group-ack";
 
-            messagingTemplate.convertAndSendToUser(
+            stageMetrics.record(Stage.ACK_SEND, savedMessage.getType(), () -> messagingTemplate.convertAndSendToUser(
                     savedMessage.getSender(),
                     ackQueue,
                     savedMessage
-            );
+            ));
 
             log.info("✅ Sent ACK for message ID {} to sender {} on queue {}",
                     savedMessage.getId(), savedMessage.getSender(), ackQueue);
@@ -150,13 +162,10 @@ public class WebSocketChatController {
 
         // chatKafkaProducer.send(savedMessage);
         
-        messageProcessor.processChatMessage(savedMessage);
-        chatMessageService.broadcastOverviewAsynchronously(
-                request.getSender(),
-                request.getReceiver(),
-                request.getGroupId(),
-                request.getType()
-        );
+        stageMetrics.queued(savedMessage.getId());
+        // Sidebar refreshes are triggered by the processor after its commit
+        messageDispatcher.dispatch(savedMessage);
+        stageMetrics.recordAfterCompletion(Stage.HANDLE, request.getType(), received);
     }
 
     // Edit existing message
@@ -214,20 +223,12 @@ public class WebSocketChatController {
     }      
     
     /**
-     * Handles typing status updates from clients.
+     * Handles typing status updates from clients; relayed through the aggregator, which sends
+     * at most one frame per chat and interval.
      */
     @MessageMapping("/typing")
     public void handleTypingStatus(@Payload TypingStatusDTO dto) {
-        log.info("Typing status received: {}", dto);
- 
-        if ("PRIVATE".equalsIgnoreCase(dto.getType())) {
-            // Private chat: send to the specific receiver's queue
-            messagingTemplate.convertAndSendToUser(dto.getReceiverId(),"/queue/typing-status",dto );
-                    
-        } else if ("TEAM".equalsIgnoreCase(dto.getType()) || "DEPARTMENT".equalsIgnoreCase(dto.getType())) {
-        	// Group chat: broadcast to the group's topic
-        	messagingTemplate.convertAndSend("/topic/typing-status/" + dto.getGroupId(),dto);
-        }
+        typingAggregator.typing(dto);
     }
 
 }
@@ -0,0 +1,44 @@
+package com.app.chat_service.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Session-level Postgres advisory locks for the maintenance jobs that must run on one pod at a
+ * time. The lock belongs to the connection, so take and release it on the same one, typically
+ * inside a single {@code ConnectionCallback}. Each job uses its own key.
+ */
+@Component
+public class PgAdvisoryLock {
+
+    /** False when another session holds the key; does not wait */
+    public boolean tryLock(Connection connection, long key) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            ps.setLong(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    public void unlock(Connection connection, long key) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            ps.setLong(1, key);
+            ps.execute();
+        }
+    }
+
+    /** Sleeps between batches done under the lock, so replicas keep up; an interrupt ends it early */
+    public void pause(Duration pause) {
+        try {
+            Thread.sleep(pause.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
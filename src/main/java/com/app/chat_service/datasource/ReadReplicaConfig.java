@@ -0,0 +1,89 @@
+package com.app.chat_service.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Replaces the auto-configured DataSource with primary + replica pools behind a routing
+ * DataSource, only when {@code chat.datasource.replicas.urls} lists at least one replica.
+ * Without it nothing changes and every query uses spring.datasource.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnExpression("!'${chat.datasource.replicas.urls:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Bean
+    public List<ReplicaNode> replicaNodes(DataSourceProperties properties,
+                                          Environment environment,
+                                          @Value("${chat.datasource.replicas.urls}") List<String> urls,
+                                          @Value("${chat.datasource.replicas.username:}") String username,
+                                          @Value("${chat.datasource.replicas.password:}") String password,
+                                          @Value("${chat.datasource.replicas.pool-size}") int poolSize) {
+        List<ReplicaNode> nodes = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String name = "replica-" + i;
+            HikariDataSource replica = pool(properties, environment);
+            replica.setJdbcUrl(urls.get(i).trim());
+            if (!username.isBlank()) {
+                replica.setUsername(username);
+                replica.setPassword(password);
+            }
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            replica.setPoolName("Hikari-" + name);
+            nodes.add(new ReplicaNode(name, replica));
+        }
+        log.info("Read-only transactions routed across {} replica(s)", nodes.size());
+        return nodes;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties,
+                                 Environment environment,
+                                 List<ReplicaNode> replicaNodes,
+                                 ReplicaRoutingContext routingContext,
+                                 MeterRegistry meterRegistry) {
+        HikariDataSource primary = pool(properties, environment);
+        primary.setPoolName("Hikari-primary");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicaNodes, routingContext, meterRegistry);
+        routing.afterPropertiesSet();
+        // The routing key depends on the transaction's read-only flag, which is only set after
+        // the transaction manager asked for a connection; the proxy defers the real fetch until then
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(List<ReplicaNode> replicaNodes,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${chat.datasource.replicas.max-lag}") Duration maxLag) {
+        return new ReplicaLagMonitor(replicaNodes, meterRegistry, maxLag);
+    }
+
+    // spring.datasource.* for the connection, spring.datasource.hikari.* for pool settings
+    private static HikariDataSource pool(DataSourceProperties properties, Environment environment) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        return dataSource;
+    }
+}
@@ -0,0 +1,90 @@
+package com.app.chat_service.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Polls each replica's replay lag and takes replicas that fall behind {@code max-lag}
+ * (or stop answering) out of rotation until they catch up.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // Zero when everything received has been replayed; otherwise age of the last replayed commit
+    private static final String LAG_QUERY = """
+            SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END
+            """;
+
+    private final List<ReplicaNode> replicas;
+    private final double maxLagSeconds;
+
+    public ReplicaLagMonitor(List<ReplicaNode> replicas, MeterRegistry meterRegistry, Duration maxLag) {
+        this.replicas = replicas;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        for (ReplicaNode replica : replicas) {
+            Gauge.builder("chat.datasource.replica.lag", replica, ReplicaNode::lagSeconds)
+                    .description("Replay lag of the replica as last measured")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+            Gauge.builder("chat.datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                    .description("1 while the replica takes read-only transactions")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+        }
+        check();
+    }
+
+    /** Largest replay lag last measured; unreachable replicas count as infinitely behind */
+    public double maxLagSeconds() {
+        double max = 0;
+        for (ReplicaNode replica : replicas) {
+            double lag = replica.lagSeconds();
+            max = Math.max(max, Double.isNaN(lag) ? Double.POSITIVE_INFINITY : lag);
+        }
+        return max;
+    }
+
+    /** Largest replay lag last measured among the replicas that answered */
+    public double maxReachableLagSeconds() {
+        double max = 0;
+        for (ReplicaNode replica : replicas) {
+            double lag = replica.lagSeconds();
+            if (!Double.isNaN(lag)) {
+                max = Math.max(max, lag);
+            }
+        }
+        return max;
+    }
+
+    @Scheduled(fixedDelayString = "${chat.datasource.replicas.lag-check-interval}")
+    public void check() {
+        for (ReplicaNode replica : replicas) {
+            try (Connection connection = replica.dataSource().getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                double lag = rs.next() ? rs.getDouble(1) : Double.NaN;
+                boolean healthy = !Double.isNaN(lag) && lag <= maxLagSeconds;
+                if (replica.isHealthy() != healthy) {
+                    log.warn("Replica {} {} (lag {}s)", replica.name(), healthy ? "back in rotation" : "taken out of rotation", lag);
+                }
+                replica.update(lag, healthy);
+            } catch (Exception e) {
+                if (replica.isHealthy()) {
+                    log.warn("Replica {} unreachable, taken out of rotation: {}", replica.name(), e.getMessage());
+                }
+                replica.update(Double.NaN, false);
+            }
+        }
+    }
+}
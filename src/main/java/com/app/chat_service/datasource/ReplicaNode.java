@@ -0,0 +1,38 @@
+package com.app.chat_service.datasource;
+
+import javax.sql.DataSource;
+
+/** One read replica and what the lag monitor last saw of it */
+public final class ReplicaNode {
+
+    private final String name;
+    private final DataSource dataSource;
+    private volatile boolean healthy;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaNode(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public double lagSeconds() {
+        return lagSeconds;
+    }
+
+    void update(double lagSeconds, boolean healthy) {
+        this.lagSeconds = lagSeconds;
+        this.healthy = healthy;
+    }
+}
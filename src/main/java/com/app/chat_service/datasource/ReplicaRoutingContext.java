@@ -0,0 +1,51 @@
+package com.app.chat_service.datasource;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Who the current thread is working for, and which users must read from the primary.
+ * <p>
+ * Set by {@link RoutingUserInterceptor} on HTTP and STOMP threads. A user is pinned to the
+ * primary for the read-your-writes window after any read-write transaction on their behalf,
+ * so a replica that has not replayed their write yet is never asked.
+ */
+@Component
+public class ReplicaRoutingContext {
+
+    private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
+
+    private final Cache<String, Boolean> pinnedToPrimary;
+
+    public ReplicaRoutingContext(@Value("${chat.datasource.read-your-writes-window}") Duration window) {
+        this.pinnedToPrimary = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    public static void setCurrentUser(String userId) {
+        CURRENT_USER.set(userId);
+    }
+
+    public static String currentUser() {
+        return CURRENT_USER.get();
+    }
+
+    public static void clear() {
+        CURRENT_USER.remove();
+    }
+
+    public void pin(String userId) {
+        pinnedToPrimary.put(userId, Boolean.TRUE);
+    }
+
+    public boolean isPinned(String userId) {
+        return pinnedToPrimary.getIfPresent(userId) != null;
+    }
+}
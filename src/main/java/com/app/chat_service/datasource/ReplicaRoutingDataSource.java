@@ -0,0 +1,104 @@
+package com.app.chat_service.datasource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends read-only transactions to a healthy replica and everything else to the primary.
+ * Must sit behind a LazyConnectionDataSourceProxy so the connection is only fetched once the
+ * transaction's read-only flag is known.
+ * <p>
+ * A read-only transaction stays on the primary when no user is known for the thread, when
+ * the user wrote within the read-your-writes window, or when every replica lags too far.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final List<ReplicaNode> replicas;
+    private final ReplicaRoutingContext context;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter writes;
+    private final Counter replicaReads;
+    private final Counter systemReads;
+    private final Counter pinnedReads;
+    private final Counter lagReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<ReplicaNode> replicas,
+                                    ReplicaRoutingContext context, MeterRegistry meterRegistry) {
+        this.replicas = replicas;
+        this.context = context;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach(replica -> targets.put(replica.name(), replica.dataSource()));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+
+        this.writes = routed(meterRegistry, "primary", "write");
+        this.replicaReads = routed(meterRegistry, "replica", "read");
+        this.systemReads = routed(meterRegistry, "primary", "no_user");
+        this.pinnedReads = routed(meterRegistry, "primary", "read_your_writes");
+        this.lagReads = routed(meterRegistry, "primary", "replica_unavailable");
+    }
+
+    private static Counter routed(MeterRegistry registry, String target, String reason) {
+        return Counter.builder("chat.datasource.routing")
+                .description("Connections handed out by the routing DataSource")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = ReplicaRoutingContext.currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                context.pin(user);
+            }
+            return PRIMARY;
+        }
+        if (user == null) {
+            // Background work (Redis listener, async processing) reads rows it has just written
+            systemReads.increment();
+            return PRIMARY;
+        }
+        if (context.isPinned(user)) {
+            pinnedReads.increment();
+            return PRIMARY;
+        }
+        ReplicaNode replica = pickHealthyReplica();
+        if (replica == null) {
+            lagReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return replica.name();
+    }
+
+    // Round robin, skipping replicas the lag monitor took out
+    private ReplicaNode pickHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            ReplicaNode candidate = replicas.get((start + i) % size);
+            if (candidate.isHealthy()) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
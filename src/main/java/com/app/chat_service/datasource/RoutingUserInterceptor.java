@@ -0,0 +1,70 @@
+package com.app.chat_service.datasource;
+
+import java.security.Principal;
+import java.util.Map;
+
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Tells {@link ReplicaRoutingContext} which employee a request works for: the path variable or
+ * query parameter on HTTP, the handshake principal on STOMP. Threads without a user (Redis
+ * listener, async processors) always use the primary.
+ */
+@Component
+public class RoutingUserInterceptor implements HandlerInterceptor, ExecutorChannelInterceptor {
+
+    private static final String[] USER_PARAMETERS = {"empId", "employeeId", "userId"};
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        ReplicaRoutingContext.setCurrentUser(userOf(request));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        ReplicaRoutingContext.clear();
+    }
+
+    // Runs on the inbound channel thread that executes the @MessageMapping method
+    @Override
+    public Message<?> beforeHandle(@NonNull Message<?> message, @NonNull MessageChannel channel, @NonNull MessageHandler handler) {
+        Principal user = SimpMessageHeaderAccessor.getUser(message.getHeaders());
+        ReplicaRoutingContext.setCurrentUser(user != null ? user.getName() : null);
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                    @NonNull MessageHandler handler, Exception ex) {
+        ReplicaRoutingContext.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private String userOf(HttpServletRequest request) {
+        Object attribute = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        Map<String, String> pathVariables = attribute instanceof Map ? (Map<String, String>) attribute : Map.of();
+        for (String name : USER_PARAMETERS) {
+            String value = pathVariables.get(name);
+            if (value == null) {
+                value = request.getParameter(name);
+            }
+            if (value != null && !value.isBlank()) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
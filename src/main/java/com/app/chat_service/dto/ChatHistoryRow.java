@@ -0,0 +1,38 @@
+package com.app.chat_service.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One history row as selected by the JPQL constructor projection in ChatMessageRepository:
+ * display columns of the message plus the few columns of the replied-to message,
+ * so neither file_data nor the lazy reply entity is ever loaded.
+ */
+@Getter
+@AllArgsConstructor
+public class ChatHistoryRow {
+    private Long id;
+    private String sender;
+    private String receiver;
+    private String groupId;
+    private String type;
+    private String content;
+    private LocalDateTime timestamp;
+    private String fileName;
+    private String fileType;
+    private Long fileSize;
+    private Integer duration;
+    private boolean read;
+    private String replyPreviewContent;
+    private Boolean forwarded;
+    private String forwardedFrom;
+    private boolean deleted;
+
+    // Replied-to message, all null when this is not a reply
+    private Long replyToId;
+    private String replyToSender;
+    private String replyToFileName;
+    private String replyToFileType;
+}
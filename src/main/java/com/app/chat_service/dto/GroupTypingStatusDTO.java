@@ -0,0 +1,16 @@
+package com.app.chat_service.dto;
+
+import java.util.List;
+
+import lombok.*;
+
+/** Everyone currently typing in a team or department chat; sent whenever that list changes */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupTypingStatusDTO {
+    private String groupId;
+    private String type;            // "TEAM", "DEPARTMENT"
+    private List<String> typingIds; // empty = nobody is typing
+}
@@ -0,0 +1,23 @@
+package com.app.chat_service.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One entry of the "mentions of me" feed */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MentionDTO {
+    private Long messageId;
+    private String conversationKey;
+    private String sender;
+    private String receiver;
+    private String groupId;
+    private String type;
+    private String content;
+    private LocalDateTime timestamp;
+    private boolean seen;
+}
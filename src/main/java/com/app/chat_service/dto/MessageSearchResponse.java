@@ -0,0 +1,16 @@
+package com.app.chat_service.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResponse {
+    private List<MessageSearchResult> results;
+    // Pass back as ?before= for the next page; null when there is nothing older
+    private Long nextBefore;
+}
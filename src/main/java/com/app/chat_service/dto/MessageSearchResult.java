@@ -0,0 +1,23 @@
+package com.app.chat_service.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageSearchResult {
+    private Long messageId;
+    // Partner id for private chats, team id for groups: what the history endpoint expects
+    private String chatId;
+    private String sender;
+    private String type;
+    private LocalDateTime timestamp;
+    // HTML-escaped content excerpt with matches wrapped in <mark></mark>
+    private String snippet;
+}
@@ -0,0 +1,15 @@
+package com.app.chat_service.dto;
+
+import java.util.List;
+
+import lombok.*;
+
+/** Contacts that came online or went offline since the previous frame on /user/queue/presence */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PresenceDiffDTO {
+    private List<String> online;
+    private List<String> offline;
+}
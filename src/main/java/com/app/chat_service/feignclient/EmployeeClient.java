@@ -10,7 +10,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import com.app.chat_service.dto.EmployeeDTO;
 import com.app.chat_service.dto.TeamResponse;
 
-@FeignClient(name = "employee-service", url = "http://hrms.anasolconsultancyservices.com")
+@FeignClient(name = "employee-service", url = "${hrms.api.url}")
 public interface EmployeeClient {
 
     @GetMapping("/api/employee/{id}")
@@ -0,0 +1,13 @@
+package com.app.chat_service.feignclient;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/** Thrown when employee-service failed and there is no last-known-good response to fall back to. */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class EmployeeServiceUnavailableException extends RuntimeException {
+
+    public EmployeeServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,135 @@
+package com.app.chat_service.feignclient;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.http.ResponseEntity;
+
+import com.app.chat_service.dto.TeamResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import feign.FeignException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Guarded access to {@link EmployeeClient}.
+ * <ul>
+ *   <li>every call goes through a semaphore bulkhead and a circuit breaker, Feign timeouts bound each attempt</li>
+ *   <li>successful responses are remembered; on failure the last-known-good response is returned</li>
+ *   <li>with nothing to fall back to an {@link EmployeeServiceUnavailableException} is thrown instead of
+ *       an empty list, so callers (and the cache in front of them) never store an outage as real data</li>
+ * </ul>
+ * The async variants run on a dedicated bounded pool so request and async threads don't block on HRMS.
+ */
+@Slf4j
+public class ResilientEmployeeClient {
+
+    private final EmployeeClient employeeClient;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Executor asyncExecutor;
+    private final Duration asyncTimeout;
+    private final Cache<String, List<TeamResponse>> lastKnownGood;
+
+    private final Counter fallbackServed;
+    private final Counter fallbackMissing;
+
+    public ResilientEmployeeClient(EmployeeClient employeeClient,
+                                   CircuitBreaker circuitBreaker,
+                                   Bulkhead bulkhead,
+                                   Executor asyncExecutor,
+                                   Duration asyncTimeout,
+                                   Cache<String, List<TeamResponse>> lastKnownGood,
+                                   MeterRegistry meterRegistry) {
+        this.employeeClient = employeeClient;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.asyncExecutor = asyncExecutor;
+        this.asyncTimeout = asyncTimeout;
+        this.lastKnownGood = lastKnownGood;
+        this.fallbackServed = fallback(meterRegistry, "last_known_good");
+        this.fallbackMissing = fallback(meterRegistry, "unavailable");
+    }
+
+    private Counter fallback(MeterRegistry registry, String outcome) {
+        return Counter.builder("chat.employee_client.fallback")
+                .description("employee-service failures by how they were answered")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /** Team (with its members) by teamId */
+    public List<TeamResponse> getTeamById(String teamId) {
+        return call("teamById:" + teamId, () -> employeeClient.getTeamById(teamId));
+    }
+
+    /** All teams an employee belongs to */
+    public List<TeamResponse> getTeamsByEmployeeId(String employeeId) {
+        return call("teamsByEmployee:" + employeeId, () -> employeeClient.getTeamAllEmployees(employeeId));
+    }
+
+    public CompletableFuture<List<TeamResponse>> getTeamByIdAsync(String teamId) {
+        return callAsync(() -> getTeamById(teamId));
+    }
+
+    public CompletableFuture<List<TeamResponse>> getTeamsByEmployeeIdAsync(String employeeId) {
+        return callAsync(() -> getTeamsByEmployeeId(employeeId));
+    }
+
+    /**
+     * Runs an employee-service backed lookup (e.g. a cached TeamService method) on the client pool,
+     * bounded by the async timeout. A full pool fails fast instead of queueing the caller.
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<T> lookup) {
+        try {
+            return CompletableFuture.supplyAsync(lookup, asyncExecutor)
+                    .orTimeout(asyncTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(
+                    new EmployeeServiceUnavailableException("employee-service async pool is full", e));
+        }
+    }
+
+    private List<TeamResponse> call(String key, Supplier<ResponseEntity<List<TeamResponse>>> request) {
+        Supplier<List<TeamResponse>> guarded = Bulkhead.decorateSupplier(bulkhead,
+                CircuitBreaker.decorateSupplier(circuitBreaker, () -> fetch(key, request)));
+        try {
+            List<TeamResponse> body = guarded.get();
+            lastKnownGood.put(key, body);
+            return body;
+        } catch (Exception e) {
+            List<TeamResponse> previous = lastKnownGood.getIfPresent(key);
+            if (previous != null) {
+                fallbackServed.increment();
+                log.warn("employee-service call {} failed ({}), serving last known good response", key, e.toString());
+                return previous;
+            }
+            fallbackMissing.increment();
+            throw new EmployeeServiceUnavailableException("employee-service call " + key + " failed", e);
+        }
+    }
+
+    private List<TeamResponse> fetch(String key, Supplier<ResponseEntity<List<TeamResponse>>> request) {
+        ResponseEntity<List<TeamResponse>> response;
+        try {
+            response = request.get();
+        } catch (FeignException.NotFound e) {
+            // Unknown team / employee is a real answer, not an outage
+            return Collections.emptyList();
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("employee-service returned " + response.getStatusCode() + " for " + key);
+        }
+        return response.getBody() != null ? response.getBody() : Collections.emptyList();
+    }
+}
@@ -1,22 +1,31 @@
 package com.app.chat_service.kakfa;
 
 import com.app.chat_service.dto.ChatMessageResponse;
+import com.app.chat_service.feignclient.EmployeeServiceUnavailableException;
+import com.app.chat_service.metrics.MessageStageMetrics;
+import com.app.chat_service.metrics.MessageStageMetrics.Point;
+import com.app.chat_service.metrics.MessageStageMetrics.Stage;
 //import com.app.chat_service.kakfa.ChatKafkaConsumer;
 import com.app.chat_service.model.ChatMessage;
 import com.app.chat_service.model.MessageReadStatus;
 import com.app.chat_service.redis.RedisPublisherService;
+import com.app.chat_service.redis.UnreadCounterStore;
+import com.app.chat_service.repo.ChatMessageRepository;
 import com.app.chat_service.repo.MessageReadStatusRepository;
 import com.app.chat_service.service.ChatMessageService;
 import com.app.chat_service.service.ChatPresenceTracker;
+import com.app.chat_service.service.MentionService;
 import com.app.chat_service.service.TeamService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -31,29 +40,63 @@ public class KafkaMessageProcessorService {
     private final ChatPresenceTracker presenceTracker;
     private final MessageReadStatusRepository readStatusRepo;
     private final TeamService teamService;
+    private final UnreadCounterStore unreadCounterStore;
+    private final MentionService mentionService;
+    private final MessageStageMetrics stageMetrics;
+    private final ChatMessageRepository chatRepo;
+    private final MessageOutbox outbox;
 
-    
-    @Async("asyncTaskExecutor") 
+    /** A message parked or recovered by MessageDispatcher, reloaded by id */
+    @Transactional
+    public void processChatMessage(long messageId) {
+        chatRepo.findById(messageId).ifPresentOrElse(this::processChatMessage, () -> {
+            // Purged before it was processed
+            outbox.claim(messageId);
+            log.warn("Message {} no longer exists, dropped from the outbox", messageId);
+        });
+    }
+
+    // Runs on the messageExecutor pool, submitted by MessageDispatcher once the save has committed
     @Transactional
     public void processChatMessage(ChatMessage incomingMessage) {
+        // The outbox row is the claim: a message handed over twice (parked, then recovered) runs once
+        if (!outbox.claim(incomingMessage.getId())) {
+            log.info("Message {} already processed, skipping", incomingMessage.getId());
+            return;
+        }
+        long started = stageMetrics.start();
+        stageMetrics.dequeued(incomingMessage.getId(), incomingMessage.getType());
+        stageMetrics.elapsed(Point.PROCESS_START, incomingMessage.getType(), incomingMessage.getTimestamp());
         log.info("Async processing started for message ID: {}", incomingMessage.getId());
         
         // we moved the kafka consumer logic ---
 
         boolean isDeleted = "This message was deleted".equalsIgnoreCase(incomingMessage.getContent());
         boolean isPrivateRead = false;
+        List<String> unreadRecipients = Collections.emptyList();
+        List<String> groupReaders = Collections.emptyList();
 
         if ("PRIVATE".equalsIgnoreCase(incomingMessage.getType())) {
             String receiverId = incomingMessage.getReceiver();
             String senderId = incomingMessage.getSender();
             if (receiverId != null && presenceTracker.isChatWindowOpen(receiverId, senderId)) {
                 isPrivateRead = true;
+            } else if (receiverId != null) {
+                unreadRecipients = List.of(receiverId);
             }
         } else if ("TEAM".equalsIgnoreCase(incomingMessage.getType())) {
-            List<String> memberIds = teamService.getEmployeeIdsByTeamId(incomingMessage.getGroupId());
-            List<MessageReadStatus> readStatusesToCreate = memberIds.stream()
+            List<String> memberIds;
+            try {
+                memberIds = teamService.getEmployeeIdsByTeamId(incomingMessage.getGroupId());
+            } catch (EmployeeServiceUnavailableException e) {
+                log.warn("Team {} members unavailable, skipping read statuses: {}", incomingMessage.getGroupId(), e.getMessage());
+                memberIds = Collections.emptyList();
+            }
+            groupReaders = memberIds.stream()
                     .filter(memberId -> !memberId.equals(incomingMessage.getSender()) &&
                             presenceTracker.isChatWindowOpen(memberId, incomingMessage.getGroupId()))
+                    .collect(Collectors.toList());
+            List<MessageReadStatus> readStatusesToCreate = groupReaders.stream()
                     .map(memberId -> MessageReadStatus.builder()
                             .chatMessage(incomingMessage)
                             .userId(memberId)
@@ -65,6 +108,26 @@ public class KafkaMessageProcessorService {
                 readStatusRepo.saveAll(readStatusesToCreate);
                 log.info("✅ Marked message as read for {} active group members.", readStatusesToCreate.size());
             }
+            unreadRecipients = memberIds.stream()
+                    .filter(memberId -> !memberId.equals(incomingMessage.getSender()) &&
+                            !presenceTracker.isChatWindowOpen(memberId, incomingMessage.getGroupId()))
+                    .collect(Collectors.toList());
+        }
+
+        // Private counters are keyed by the partner (the sender), team counters by the group
+        if (!isDeleted) {
+            mentionService.index(incomingMessage);
+            unreadCounterStore.increment(unreadRecipients,
+                    "PRIVATE".equalsIgnoreCase(incomingMessage.getType()) ? incomingMessage.getSender() : incomingMessage.getGroupId());
+        }
+
+        // Recipients with the conversation open have read it (and any mention in it); the sidebar
+        // only shows this, it is written here
+        if (isPrivateRead) {
+            chatMessageService.markMessagesAsRead(incomingMessage.getReceiver(), incomingMessage.getSender());
+        }
+        for (String reader : groupReaders) {
+            mentionService.markSeen(reader, incomingMessage.getGroupId());
         }
 
         ChatMessageResponse response = new ChatMessageResponse(
@@ -81,15 +144,18 @@ public class KafkaMessageProcessorService {
         response.setSeen(isPrivateRead);
         if (isDeleted) response.setIsDeleted(true);
 
-        redisPublisher.publish(response);
+        stageMetrics.record(Stage.REDIS_PUBLISH, incomingMessage.getType(), () -> redisPublisher.publish(response));
         log.info("🚀 Message sent from async processor to Redis. ID: {}", incomingMessage.getId());
 
-        chatMessageService.broadcastChatOverview(incomingMessage.getSender());
-        if ("PRIVATE".equalsIgnoreCase(incomingMessage.getType()) && incomingMessage.getReceiver() != null) {
-            chatMessageService.broadcastChatOverview(incomingMessage.getReceiver());
-        } else if ("TEAM".equalsIgnoreCase(incomingMessage.getType()) && incomingMessage.getGroupId() != null) {
-            chatMessageService.broadcastGroupChatOverview(incomingMessage.getGroupId());
-        }
+        // Sidebars are best effort and go to their own pool once the read statuses are committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                chatMessageService.broadcastOverviewAsynchronously(incomingMessage.getSender(),
+                        incomingMessage.getReceiver(), incomingMessage.getGroupId(), incomingMessage.getType());
+            }
+        });
         log.info("Async processing finished for message ID: {}", incomingMessage.getId());
+        stageMetrics.recordAfterCompletion(Stage.PROCESS, incomingMessage.getType(), started);
     }
 }
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.app.chat_service.kakfa;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.app.chat_service.model.ChatMessage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands saved messages to {@link KafkaMessageProcessorService} on the {@code messageExecutor} pool.
+ * Each message gets a {@link MessageOutbox} row with its save, and the hand-off waits for that
+ * commit, so the processor never sees a message that is rolled back. The pool's own rejection
+ * policy applies; whatever it does not run is safe in the outbox:
+ * <ul>
+ * <li>a rejected message is parked by id, up to {@code chat.async.messages.backlog-capacity}, and
+ * resubmitted in arrival order every {@code chat.async.messages.retry-interval}</li>
+ * <li>rows older than {@code chat.async.messages.recover-after} - past the backlog, or left by a
+ * pod that stopped - are resubmitted every {@code chat.async.messages.recovery-interval}, starting
+ * right after startup</li>
+ * </ul>
+ * Meters: {@code chat.message.dispatch.deferred{outcome=parked|overflow}},
+ * {@code chat.message.dispatch.recovered} and {@code chat.message.dispatch.backlog}.
+ */
+@Component
+@Slf4j
+public class MessageDispatcher {
+
+    private final KafkaMessageProcessorService processor;
+    private final MessageOutbox outbox;
+    private final Executor messageExecutor;
+    private final Duration recoverAfter;
+    private final BlockingDeque<Long> parked;
+    private final Counter parkedCount;
+    private final Counter overflowCount;
+    private final Counter recoveredCount;
+
+    public MessageDispatcher(KafkaMessageProcessorService processor,
+                             MessageOutbox outbox,
+                             @Qualifier("messageExecutor") Executor messageExecutor,
+                             MeterRegistry meterRegistry,
+                             @Value("${chat.async.messages.backlog-capacity}") int backlogCapacity,
+                             @Value("${chat.async.messages.recover-after}") Duration recoverAfter) {
+        this.processor = processor;
+        this.outbox = outbox;
+        this.messageExecutor = messageExecutor;
+        this.recoverAfter = recoverAfter;
+        this.parked = new LinkedBlockingDeque<>(backlogCapacity);
+        this.parkedCount = deferred("parked", meterRegistry);
+        this.overflowCount = deferred("overflow", meterRegistry);
+        this.recoveredCount = Counter.builder("chat.message.dispatch.recovered")
+                .description("Unprocessed messages resubmitted from the outbox")
+                .register(meterRegistry);
+        Gauge.builder("chat.message.dispatch.backlog", parked, BlockingDeque::size)
+                .description("Message ids parked for room in the message pool")
+                .register(meterRegistry);
+    }
+
+    private static Counter deferred(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("chat.message.dispatch.deferred")
+                .description("Saved messages the message pool did not take, parked in memory or left to recovery")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    public void dispatch(ChatMessage message) {
+        outbox.add(message.getId());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(message);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(message);
+            }
+        });
+    }
+
+    /** Resubmits parked messages, oldest first, until the pool is full again */
+    @Scheduled(fixedDelayString = "${chat.async.messages.retry-interval}")
+    public void retryParked() {
+        Long messageId;
+        while ((messageId = parked.pollFirst()) != null) {
+            long id = messageId;
+            if (!tryExecute(() -> processor.processChatMessage(id))) {
+                // Back at the head; if new arrivals filled the deque meanwhile, recovery has it
+                if (!parked.offerFirst(messageId)) {
+                    overflowCount.increment();
+                }
+                return;
+            }
+        }
+    }
+
+    /** Resubmits outbox rows nobody processed: overflow of the backlog and messages of stopped pods */
+    @Scheduled(fixedDelayString = "${chat.async.messages.recovery-interval}")
+    public void recover() {
+        try {
+            for (Long messageId : outbox.queuedBefore(LocalDateTime.now().minus(recoverAfter), parked.remainingCapacity())) {
+                if (!tryExecute(() -> processor.processChatMessage(messageId))) {
+                    return;
+                }
+                recoveredCount.increment();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Message outbox recovery failed, retrying next interval: {}", e.toString());
+        }
+    }
+
+    private void submit(ChatMessage message) {
+        // Behind older parked messages, so a conversation keeps its order
+        if (parked.isEmpty() && tryExecute(() -> processor.processChatMessage(message))) {
+            return;
+        }
+        if (parked.offerLast(message.getId())) {
+            parkedCount.increment();
+            log.warn("Message pool full, message {} parked ({} waiting)", message.getId(), parked.size());
+        } else {
+            overflowCount.increment();
+            log.warn("Message pool and backlog full, message {} left to outbox recovery", message.getId());
+        }
+    }
+
+    private boolean tryExecute(Runnable task) {
+        try {
+            messageExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+}
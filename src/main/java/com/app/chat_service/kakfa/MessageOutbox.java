@@ -0,0 +1,44 @@
+package com.app.chat_service.kakfa;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The {@code message_dispatch} table: one row per saved message that has not been processed.
+ * A row is added in the transaction that saves the message and claimed (deleted) in the one that
+ * processes it, so a message is processed once even when it is handed over twice.
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageOutbox {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Joins the caller's transaction when there is one, so the row commits with the message
+    @Transactional
+    public void add(long messageId) {
+        jdbcTemplate.update("INSERT INTO message_dispatch (message_id, queued_at) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                messageId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /** Deletes the row; false when another processing already claimed the message */
+    @Transactional
+    public boolean claim(long messageId) {
+        return jdbcTemplate.update("DELETE FROM message_dispatch WHERE message_id = ?", messageId) > 0;
+    }
+
+    /** Oldest unprocessed messages queued before the given time */
+    @Transactional(readOnly = true)
+    public List<Long> queuedBefore(LocalDateTime before, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT message_id FROM message_dispatch WHERE queued_at < ? ORDER BY queued_at, message_id LIMIT ?",
+                Long.class, Timestamp.valueOf(before), limit);
+    }
+}
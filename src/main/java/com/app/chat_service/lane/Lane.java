@@ -0,0 +1,92 @@
+package com.app.chat_service.lane;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+
+/**
+ * Priority classes of STOMP traffic, highest first. A queued task of a higher lane always runs
+ * before one of a lower lane, and only the lower lanes are shed when their queue fills up.
+ * <ul>
+ * <li>{@link #DELIVERY} - chat messages, acks, edits, and every non-MESSAGE frame (CONNECT, SUBSCRIBE, ...)</li>
+ * <li>{@link #RECEIPT} - SEEN/DELIVERED status updates, unread badges, opening and closing a chat</li>
+ * <li>{@link #BACKGROUND} - sidebar refreshes, presence, typing indicators</li>
+ * </ul>
+ * The lane comes from the destination; sends that share a destination with a higher lane
+ * (status updates on {@code /queue/private}) say so with {@link #headers()}. Only server-side sends
+ * may declare a lane: the inbound channel removes the header from client frames with {@link #undeclared}.
+ */
+public enum Lane {
+
+    DELIVERY,
+    RECEIPT,
+    BACKGROUND;
+
+    /** STOMP header carrying the lane of a server-side send */
+    public static final String HEADER = "chat-lane";
+
+    // Destination prefixes without the /user prefix; user queues arrive resolved as /queue/name-user<session>
+    private static final Map<Lane, List<String>> DESTINATIONS = Map.of(
+            RECEIPT, List.of("/queue/unread-total", "/app/presence/"),
+            BACKGROUND, List.of("/queue/sidebar", "/queue/presence",
+                    "/queue/typing-status", "/topic/typing-status", "/app/typing"));
+
+    private final Map<String, Object> headers = Map.of(HEADER, name());
+
+    /** Headers for {@code SimpMessagingTemplate} sends in this lane */
+    public Map<String, Object> headers() {
+        return headers;
+    }
+
+    public static Lane of(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+            return DELIVERY;
+        }
+        String declared = NativeMessageHeaderAccessor.getFirstNativeHeader(HEADER, headers);
+        if (declared != null) {
+            for (Lane lane : values()) {
+                if (lane.name().equals(declared)) {
+                    return lane;
+                }
+            }
+        }
+        Object original = headers.get(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        return ofDestination(original instanceof String s ? s : SimpMessageHeaderAccessor.getDestination(headers));
+    }
+
+    /** The message without a declared lane, for frames from clients, which do not get to pick one */
+    public static Message<?> undeclared(Message<?> message) {
+        if (NativeMessageHeaderAccessor.getFirstNativeHeader(HEADER, message.getHeaders()) == null) {
+            return message;
+        }
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        if (!(accessor instanceof NativeMessageHeaderAccessor nativeAccessor)) {
+            return message;
+        }
+        nativeAccessor.removeNativeHeader(HEADER);
+        return MessageBuilder.createMessage(message.getPayload(), nativeAccessor.getMessageHeaders());
+    }
+
+    static Lane ofDestination(String destination) {
+        if (destination == null) {
+            return DELIVERY;
+        }
+        String path = destination.startsWith("/user/") ? destination.substring("/user".length()) : destination;
+        for (Map.Entry<Lane, List<String>> entry : DESTINATIONS.entrySet()) {
+            for (String prefix : entry.getValue()) {
+                if (path.startsWith(prefix)) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return DELIVERY;
+    }
+}
@@ -0,0 +1,151 @@
+package com.app.chat_service.lane;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Executor for a STOMP channel that runs queued messages by {@link Lane} instead of arrival
+ * order: a fixed pool takes the oldest task of the highest lane first, so a flood of sidebar
+ * refreshes or typing frames waits behind real messages instead of in front of them. Lower lanes
+ * degrade by shedding: once {@code maxQueued} of their tasks are waiting, {@link #admission()}
+ * drops new messages of that lane before they reach the channel. Delivery is never shed.
+ * <p>
+ * Meters, tagged {@code channel} and {@code lane}: {@code chat.lane.queued}, {@code chat.lane.shed}
+ * and {@code chat.lane.queue.wait}.
+ */
+public class LaneTaskExecutor extends ThreadPoolTaskExecutor {
+
+    private final Map<Lane, Integer> maxQueued = new EnumMap<>(Lane.class);
+    private final Map<Lane, AtomicInteger> queued = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> shed = new EnumMap<>(Lane.class);
+    private final Map<Lane, Timer> queueWait = new EnumMap<>(Lane.class);
+    private final AtomicLong sequence = new AtomicLong();
+    private final ChannelInterceptor admission = new Admission(false);
+    private final ChannelInterceptor clientAdmission = new Admission(true);
+
+    public LaneTaskExecutor(String channel, int poolSize, int receiptMaxQueued, int backgroundMaxQueued,
+                            MeterRegistry meterRegistry) {
+        setCorePoolSize(poolSize);
+        setMaxPoolSize(poolSize);
+        setThreadNamePrefix(channel + "-");
+        maxQueued.put(Lane.DELIVERY, Integer.MAX_VALUE);
+        maxQueued.put(Lane.RECEIPT, receiptMaxQueued);
+        maxQueued.put(Lane.BACKGROUND, backgroundMaxQueued);
+        for (Lane lane : Lane.values()) {
+            String tag = lane.name().toLowerCase();
+            AtomicInteger count = new AtomicInteger();
+            queued.put(lane, count);
+            Gauge.builder("chat.lane.queued", count, AtomicInteger::get)
+                    .description("Tasks waiting for a thread, by lane")
+                    .tag("channel", channel)
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            shed.put(lane, Counter.builder("chat.lane.shed")
+                    .description("Messages dropped because their lane's queue was full")
+                    .tag("channel", channel)
+                    .tag("lane", tag)
+                    .register(meterRegistry));
+            queueWait.put(lane, Timer.builder("chat.lane.queue.wait")
+                    .description("Time a task waits for a thread, by lane")
+                    .tag("channel", channel)
+                    .tag("lane", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    /** Drops messages of a full lower lane; register it first on the channel this executor serves */
+    public ChannelInterceptor admission() {
+        return admission;
+    }
+
+    /** {@link #admission()} for the inbound channel: also removes a lane the client declared itself */
+    public ChannelInterceptor clientAdmission() {
+        return clientAdmission;
+    }
+
+    // Unbounded, so the pool never grows past the core size and nothing is rejected here
+    @Override
+    @NonNull
+    protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+        return new PriorityBlockingQueue<>(64, LaneTaskExecutor::compare);
+    }
+
+    @Override
+    public void execute(@NonNull Runnable task) {
+        Lane lane = task instanceof MessageHandlingRunnable handling ? Lane.of(handling.getMessage()) : Lane.DELIVERY;
+        queued.get(lane).incrementAndGet();
+        try {
+            super.execute(new LaneTask(lane, sequence.getAndIncrement(), task));
+        } catch (RuntimeException e) {
+            queued.get(lane).decrementAndGet();
+            throw e;
+        }
+    }
+
+    // Tasks that bypassed execute (submit) have no lane and go first
+    private static int compare(Runnable a, Runnable b) {
+        if (a instanceof LaneTask first && b instanceof LaneTask second) {
+            int byLane = first.lane.compareTo(second.lane);
+            return byLane != 0 ? byLane : Long.compare(first.sequence, second.sequence);
+        }
+        return Boolean.compare(a instanceof LaneTask, b instanceof LaneTask);
+    }
+
+    private final class LaneTask implements Runnable {
+
+        private final Lane lane;
+        private final long sequence;
+        private final long queuedAt = System.nanoTime();
+        private final Runnable task;
+
+        private LaneTask(Lane lane, long sequence, Runnable task) {
+            this.lane = lane;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            queued.get(lane).decrementAndGet();
+            queueWait.get(lane).record(Duration.ofNanos(System.nanoTime() - queuedAt));
+            task.run();
+        }
+    }
+
+    private final class Admission implements ChannelInterceptor {
+
+        private final boolean fromClients;
+
+        private Admission(boolean fromClients) {
+            this.fromClients = fromClients;
+        }
+
+        @Override
+        public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+            Message<?> admitted = fromClients ? Lane.undeclared(message) : message;
+            Lane lane = Lane.of(admitted);
+            if (queued.get(lane).get() < maxQueued.get(lane)) {
+                return admitted;
+            }
+            shed.get(lane).increment();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.app.chat_service.lane;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import com.app.chat_service.metrics.WebSocketMetrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sheds {@link Lane#BACKGROUND} traffic (sidebar snapshots, presence, typing) for sessions that
+ * cannot keep up, so what they do receive is their messages and receipts:
+ * <ul>
+ * <li>a background message is dropped when the session already has more than
+ * {@code chat.websocket.droppable.max-pending} messages waiting on the outbound channel, or a write
+ * to it has been blocked for longer than {@code chat.websocket.droppable.max-send-stall} - both when
+ * it is sent and again when its turn to be written comes</li>
+ * <li>sends made with {@link #coalescing(String)} replace each other: of several queued for the
+ * same session, destination and key only the newest is written</li>
+ * </ul>
+ * Sessions that stay blocked past Spring's send time or buffer limit are closed by Spring
+ * ({@code chat.websocket.disconnects{reason=slow_consumer}}). Drops are counted as
+ * {@code chat.websocket.outbound.dropped}, tagged {@code reason}.
+ */
+@Component
+public class SlowConsumerPolicy {
+
+    /** STOMP header naming what a snapshot replaces; see {@link #coalescing(String)} */
+    public static final String COALESCE_HEADER = "chat-coalesce";
+
+    private final WebSocketMetrics webSocketMetrics;
+    private final MeterRegistry meterRegistry;
+    private final int maxPending;
+    private final long maxSendStallNanos;
+    private final ConcurrentMap<String, SendTrackingSession> sessions = new ConcurrentHashMap<>();
+    // Session, destination and coalesce key -> newest queued message for them. Messages the broker
+    // leaves mutable have no id, so they are compared whole; an equal older one is as good as the newest
+    private final ConcurrentMap<String, Message<?>> newest = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> dropped = new ConcurrentHashMap<>();
+    private final ChannelInterceptor outbound = new OutboundInterceptor();
+
+    public SlowConsumerPolicy(WebSocketMetrics webSocketMetrics, MeterRegistry meterRegistry,
+                              @Value("${chat.websocket.droppable.max-pending}") int maxPending,
+                              @Value("${chat.websocket.droppable.max-send-stall}") Duration maxSendStall) {
+        this.webSocketMetrics = webSocketMetrics;
+        this.meterRegistry = meterRegistry;
+        this.maxPending = maxPending;
+        this.maxSendStallNanos = maxSendStall.toNanos();
+    }
+
+    /** Headers for a background send that makes any older queued one with the same key obsolete */
+    public static Map<String, Object> coalescing(String key) {
+        return key != null ? Map.of(COALESCE_HEADER, key) : Map.of();
+    }
+
+    /** For the client outbound channel, after {@link WebSocketMetrics#outbound()} so dropped messages leave its backlog */
+    public ChannelInterceptor outbound() {
+        return outbound;
+    }
+
+    /** Wraps the STOMP handler so blocked writes to a session are visible to this policy */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new SendTrackingHandler(handler);
+    }
+
+    // The reason a session cannot take background traffic right now, or null when it can
+    private String pressure(String sessionId) {
+        if (webSocketMetrics.pending(sessionId) > maxPending) {
+            return "backlog";
+        }
+        SendTrackingSession session = sessions.get(sessionId);
+        if (session != null && session.sendingFor() > maxSendStallNanos) {
+            return "stalled";
+        }
+        return null;
+    }
+
+    private void drop(String reason) {
+        dropped.computeIfAbsent(reason, key -> Counter.builder("chat.websocket.outbound.dropped")
+                        .description("Background messages not written to a slow session")
+                        .tag("reason", key)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private static String coalesceKey(Message<?> message, String sessionId) {
+        String key = NativeMessageHeaderAccessor.getFirstNativeHeader(COALESCE_HEADER, message.getHeaders());
+        if (key == null) {
+            return null;
+        }
+        return sessionId + "|" + SimpMessageHeaderAccessor.getDestination(message.getHeaders()) + "|" + key;
+    }
+
+    private class OutboundInterceptor implements ExecutorChannelInterceptor {
+
+        @Override
+        public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+            if (sessionId == null || Lane.of(message) != Lane.BACKGROUND) {
+                return message;
+            }
+            String reason = pressure(sessionId);
+            if (reason != null) {
+                drop(reason);
+                return null;
+            }
+            String key = coalesceKey(message, sessionId);
+            if (key != null) {
+                newest.put(key, message);
+            }
+            return message;
+        }
+
+        // A later interceptor dropped the message or the executor rejected it: it will never be handled
+        @Override
+        public void afterSendCompletion(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                        boolean sent, Exception ex) {
+            if (sent && ex == null) {
+                return;
+            }
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+            String key = sessionId != null ? coalesceKey(message, sessionId) : null;
+            if (key != null) {
+                newest.remove(key, message);
+            }
+        }
+
+        // Runs on the pool thread just before the write
+        @Override
+        public Message<?> beforeHandle(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                       @NonNull MessageHandler handler) {
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+            if (sessionId == null || Lane.of(message) != Lane.BACKGROUND) {
+                return message;
+            }
+            String key = coalesceKey(message, sessionId);
+            if (key != null && !newest.remove(key, message)) {
+                drop("superseded");
+                return null;
+            }
+            String reason = pressure(sessionId);
+            if (reason != null) {
+                drop(reason);
+                return null;
+            }
+            return message;
+        }
+    }
+
+    // Lets the rest of the STOMP stack see the tracking session for everything after the handshake
+    private class SendTrackingHandler extends WebSocketHandlerDecorator {
+
+        private SendTrackingHandler(WebSocketHandler delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
+            SendTrackingSession tracking = new SendTrackingSession(session);
+            sessions.put(session.getId(), tracking);
+            super.afterConnectionEstablished(tracking);
+        }
+
+        @Override
+        public void handleMessage(@NonNull WebSocketSession session, @NonNull WebSocketMessage<?> message) throws Exception {
+            super.handleMessage(tracked(session), message);
+        }
+
+        @Override
+        public void handleTransportError(@NonNull WebSocketSession session, @NonNull Throwable exception) throws Exception {
+            super.handleTransportError(tracked(session), exception);
+        }
+
+        @Override
+        public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus closeStatus) throws Exception {
+            SendTrackingSession tracking = sessions.remove(session.getId());
+            // Snapshots still queued for the session are never written
+            String prefix = session.getId() + "|";
+            newest.keySet().removeIf(key -> key.startsWith(prefix));
+            super.afterConnectionClosed(tracking != null ? tracking : session, closeStatus);
+        }
+
+        private WebSocketSession tracked(WebSocketSession session) {
+            SendTrackingSession tracking = sessions.get(session.getId());
+            return tracking != null ? tracking : session;
+        }
+    }
+
+    // Spring's concurrent decorator wraps this one, so writes reach it one at a time
+    private static class SendTrackingSession extends WebSocketSessionDecorator {
+
+        private volatile long sendingSince;
+
+        private SendTrackingSession(WebSocketSession delegate) {
+            super(delegate);
+        }
+
+        // Nanoseconds the current write has been blocked, 0 when idle
+        long sendingFor() {
+            long since = sendingSince;
+            return since == 0 ? 0 : System.nanoTime() - since;
+        }
+
+        @Override
+        public void sendMessage(@NonNull WebSocketMessage<?> message) throws IOException {
+            sendingSince = System.nanoTime();
+            try {
+                super.sendMessage(message);
+            } finally {
+                sendingSince = 0;
+            }
+        }
+    }
+}
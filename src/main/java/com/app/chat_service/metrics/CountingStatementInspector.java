@@ -0,0 +1,17 @@
+package com.app.chat_service.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Registered through {@code hibernate.session_factory.statement_inspector}: sees every
+ * statement Hibernate prepares (JPQL, derived and native queries, flushes) and passes it on
+ * unchanged. A JDBC batch is prepared once, so it counts as one.
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.statement(sql);
+        return sql;
+    }
+}
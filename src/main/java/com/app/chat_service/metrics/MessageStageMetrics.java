@@ -0,0 +1,176 @@
+package com.app.chat_service.metrics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Timers for each stage a chat message passes through, from the STOMP handler to the WebSocket
+ * send on the pod that delivers it:
+ * <ul>
+ * <li>{@code chat.message.stage} - time spent in one stage, tagged {@code stage} and {@code type}</li>
+ * <li>{@code chat.message.elapsed} - time since the message was received, at the points where it
+ * changes hands, so a slow p99 can be placed between two of them</li>
+ * </ul>
+ * Stages are tied together by message id: the async queue wait is measured from the moment the
+ * handler hands a message id to the processor, and elapsed times from the message's own
+ * timestamp, which the handler sets on receipt and which travels with it through Redis to other
+ * pods. Tags stay low-cardinality: {@code type} is PRIVATE, TEAM or OTHER.
+ */
+@Component
+public class MessageStageMetrics {
+
+    public enum Stage {
+        HANDLE("handle"),
+        DB_SAVE("db.save"),
+        ACK_SEND("ack.send"),
+        QUEUE_WAIT("queue.wait"),
+        PROCESS("process"),
+        REDIS_PUBLISH("redis.publish"),
+        REDIS_RECEIVE("redis.receive"),
+        WEBSOCKET_SEND("websocket.send");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    public enum Point {
+        PROCESS_START("process.start"),
+        REDIS_RECEIVE("redis.receive"),
+        DELIVERED("delivered");
+
+        private final String tag;
+
+        Point(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private static final String[] TYPES = {"PRIVATE", "TEAM", "OTHER"};
+
+    private final Map<Stage, Timer[]> stages = new EnumMap<>(Stage.class);
+    private final Map<Point, Timer[]> points = new EnumMap<>(Point.class);
+    // Message id -> System.nanoTime() when it was handed to the async processor
+    private final Cache<Long, Long> queued = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .maximumSize(100_000)
+            .build();
+
+    public MessageStageMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            Timer[] timers = new Timer[TYPES.length];
+            for (int i = 0; i < TYPES.length; i++) {
+                timers[i] = Timer.builder("chat.message.stage")
+                        .description("Time a chat message spends in one stage of the send path")
+                        .tag("stage", stage.tag)
+                        .tag("type", TYPES[i])
+                        .register(meterRegistry);
+            }
+            stages.put(stage, timers);
+        }
+        for (Point point : Point.values()) {
+            Timer[] timers = new Timer[TYPES.length];
+            for (int i = 0; i < TYPES.length; i++) {
+                timers[i] = Timer.builder("chat.message.elapsed")
+                        .description("Time since the chat message was received, at each hand-off")
+                        .tag("point", point.tag)
+                        .tag("type", TYPES[i])
+                        .register(meterRegistry);
+            }
+            points.put(point, timers);
+        }
+    }
+
+    /** Start of a stage, to pass to {@link #record} */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    public void record(Stage stage, String type, long startNanos) {
+        stages.get(stage)[typeIndex(type)].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public <T> T record(Stage stage, String type, Supplier<T> work) {
+        long start = start();
+        try {
+            return work.get();
+        } finally {
+            record(stage, type, start);
+        }
+    }
+
+    public void record(Stage stage, String type, Runnable work) {
+        long start = start();
+        try {
+            work.run();
+        } finally {
+            record(stage, type, start);
+        }
+    }
+
+    /** Records the stage once the current transaction has committed or rolled back, so it includes the commit */
+    public void recordAfterCompletion(Stage stage, String type, long startNanos) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(stage, type, startNanos);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                record(stage, type, startNanos);
+            }
+        });
+    }
+
+    /** Wall-clock time since {@code receivedAt}, which may have been set on another pod */
+    public void elapsed(Point point, String type, LocalDateTime receivedAt) {
+        if (receivedAt == null) {
+            return;
+        }
+        Duration elapsed = Duration.between(receivedAt, LocalDateTime.now());
+        if (!elapsed.isNegative()) {
+            points.get(point)[typeIndex(type)].record(elapsed);
+        }
+    }
+
+    /** The message is about to be handed to the async processor */
+    public void queued(Long messageId) {
+        if (messageId != null) {
+            queued.put(messageId, System.nanoTime());
+        }
+    }
+
+    /** The processor picked the message up; records the queue wait if its hand-off was seen */
+    public void dequeued(Long messageId, String type) {
+        if (messageId == null) {
+            return;
+        }
+        Long queuedAt = queued.asMap().remove(messageId);
+        if (queuedAt != null) {
+            record(Stage.QUEUE_WAIT, type, queuedAt);
+        }
+    }
+
+    private static int typeIndex(String type) {
+        if ("PRIVATE".equalsIgnoreCase(type)) {
+            return 0;
+        }
+        return "TEAM".equalsIgnoreCase(type) ? 1 : 2;
+    }
+}
@@ -0,0 +1,144 @@
+package com.app.chat_service.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.handler.invocation.AbstractMethodMessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageMappingInfo;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * SQL statements per HTTP request and per STOMP message, as {@code chat.db.statements} tagged
+ * with the handler: the matched URI pattern on HTTP, the matched {@code @MessageMapping} pattern
+ * on STOMP (so {@code /app/presence/open/EMP001} is {@code /app/presence/open/{target}}), and
+ * {@code unmapped} for anything no handler matches. Units of work
+ * above {@code chat.query-budget.warn-above} statements are logged, so a new N+1 shows up in
+ * the logs before it shows up in latency.
+ */
+@Slf4j
+@Component
+public class QueryCountInterceptor implements HandlerInterceptor, ExecutorChannelInterceptor {
+
+    private static final String SCOPE_ATTRIBUTE = QueryCountInterceptor.class.getName() + ".scope";
+
+    private final MeterRegistry meterRegistry;
+    private final int warnAbove;
+    private final ConcurrentMap<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    private final ThreadLocal<QueryCounter.Scope> stompScope = new ThreadLocal<>();
+    // Application-prefixed @MessageMapping patterns, read from the handler on first use
+    private volatile List<String> stompMappings;
+
+    public QueryCountInterceptor(MeterRegistry meterRegistry,
+                                 @Value("${chat.query-budget.warn-above}") int warnAbove) {
+        this.meterRegistry = meterRegistry;
+        this.warnAbove = warnAbove;
+        FunctionCounter.builder("chat.db.statements.total", this, ignored -> QueryCounter.total())
+                .description("SQL statements prepared by Hibernate")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        request.setAttribute(SCOPE_ATTRIBUTE, QueryCounter.open());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, Exception ex) {
+        if (request.getAttribute(SCOPE_ATTRIBUTE) instanceof QueryCounter.Scope scope) {
+            scope.close();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            record("http", request.getMethod() + " " + (pattern != null ? pattern : "unmapped"), scope);
+        }
+    }
+
+    // Once per subscribed handler; only the @MessageMapping dispatch touches the database
+    @Override
+    public Message<?> beforeHandle(@NonNull Message<?> message, @NonNull MessageChannel channel, @NonNull MessageHandler handler) {
+        if (handler instanceof AbstractMethodMessageHandler<?>
+                && SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+            stompScope.set(QueryCounter.open());
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                    @NonNull MessageHandler handler, Exception ex) {
+        QueryCounter.Scope scope = stompScope.get();
+        if (scope == null) {
+            return;
+        }
+        stompScope.remove();
+        scope.close();
+        record("stomp", mappingOf(message, handler), scope);
+    }
+
+    private void record(String kind, String name, QueryCounter.Scope scope) {
+        summaries.computeIfAbsent(kind + "|" + name, key -> DistributionSummary.builder("chat.db.statements")
+                        .description("SQL statements issued by one HTTP request or STOMP message")
+                        .baseUnit("statements")
+                        .tag("kind", kind)
+                        .tag("handler", name)
+                        .register(meterRegistry))
+                .record(scope.count());
+        if (scope.count() > warnAbove) {
+            log.warn("{} {} issued {} SQL statements (budget warning above {}), first: {}",
+                    kind, name, scope.count(), warnAbove, scope.statements().get(0));
+        }
+    }
+
+    // Destinations come from clients, so only the patterns they match are used as tags
+    private String mappingOf(Message<?> message, MessageHandler handler) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return "none";
+        }
+        if (handler instanceof SimpAnnotationMethodMessageHandler annotated) {
+            for (String pattern : stompMappings(annotated)) {
+                if (annotated.getPathMatcher().match(pattern, destination)) {
+                    return pattern;
+                }
+            }
+        }
+        return "unmapped";
+    }
+
+    private List<String> stompMappings(SimpAnnotationMethodMessageHandler handler) {
+        List<String> mappings = stompMappings;
+        if (mappings == null) {
+            mappings = new ArrayList<>();
+            for (SimpMessageMappingInfo info : handler.getHandlerMethods().keySet()) {
+                for (String pattern : info.getDestinationConditions().getPatterns()) {
+                    for (String prefix : handler.getDestinationPrefixes()) {
+                        String base = prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix;
+                        mappings.add(base + (pattern.startsWith("/") ? pattern : "/" + pattern));
+                    }
+                }
+            }
+            stompMappings = mappings;
+        }
+        return mappings;
+    }
+}
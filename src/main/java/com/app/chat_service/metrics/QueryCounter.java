@@ -0,0 +1,88 @@
+package com.app.chat_service.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread. A {@link Scope} opened
+ * around a unit of work (an HTTP request, a STOMP message, a test) sees every statement issued
+ * until it is closed; scopes nest, and an inner statement counts for the outer scopes too.
+ * Fed by {@link CountingStatementInspector}.
+ */
+public final class QueryCounter {
+
+    // Enough to see the shape of an N+1 without holding every statement of a large job
+    private static final int MAX_KEPT_STATEMENTS = 200;
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final LongAdder TOTAL = new LongAdder();
+
+    private QueryCounter() {
+    }
+
+    public static Scope open() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /** Statements prepared since startup, on any thread */
+    public static long total() {
+        return TOTAL.sum();
+    }
+
+    static void statement(String sql) {
+        TOTAL.increment();
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.add(sql);
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private final List<String> statements = new ArrayList<>();
+        private int count;
+        private boolean closed;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        /** The first statements of the scope, in the order they were prepared */
+        public List<String> statements() {
+            return Collections.unmodifiableList(statements);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // Closed out of order: drop this scope and any inner ones left open
+            for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+                if (scope == this) {
+                    CURRENT.set(parent);
+                    break;
+                }
+            }
+            if (CURRENT.get() == null) {
+                CURRENT.remove();
+            }
+        }
+
+        private void add(String sql) {
+            count++;
+            if (statements.size() < MAX_KEPT_STATEMENTS) {
+                statements.add(sql);
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.app.chat_service.metrics;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToIntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import com.app.chat_service.service.OnlineUserService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Metrics for the STOMP layer of this pod:
+ * <ul>
+ * <li>{@code chat.websocket.sessions} / {@code chat.websocket.users} - open sessions and distinct online users</li>
+ * <li>{@code chat.websocket.payload} - payload bytes per message, tagged {@code direction} and
+ * {@code destination} type ({@code queue/private}, {@code topic/team}, {@code queue/sidebar}, ...,
+ * {@code other} for destinations the application does not use);
+ * its count is the message rate</li>
+ * <li>{@code chat.websocket.outbound.pending} - messages already waiting for the same session when
+ * one more is queued on the outbound channel; {@code chat.websocket.sessions.slow} is the number of
+ * sessions currently above {@code chat.websocket.slow-consumer-pending}</li>
+ * <li>{@code chat.websocket.disconnects} by close reason, and {@code chat.websocket.sessions.closed}
+ * from Spring's own session stats (send limit exceeded, no CONNECT received, transport error)</li>
+ * <li>{@code chat.websocket.executor.utilization} - busy threads over maximum pool size of the
+ * inbound, outbound and broker channels; their queue depth and completed tasks are Boot's
+ * {@code executor.*} metrics, tagged with the executor bean name</li>
+ * </ul>
+ */
+@Component
+public class WebSocketMetrics {
+
+    private static final Map<String, String> EXECUTORS = Map.of(
+            "inbound", "clientInboundChannelExecutor",
+            "outbound", "clientOutboundChannelExecutor",
+            "broker", "brokerChannelExecutor");
+
+    // @MessageMapping destinations and everything the server sends to
+    private static final Set<String> KNOWN_DESTINATIONS = Set.of(
+            "app/send", "app/edit", "app/reply", "app/forward", "app/clear", "app/typing", "app/presence",
+            "queue/private", "queue/private-ack", "queue/group-ack", "queue/messages", "queue/sidebar",
+            "queue/unread-total", "queue/presence", "queue/typing-status", "queue/clearchat",
+            "topic/team", "topic/group", "topic/typing-status");
+
+    private final MeterRegistry meterRegistry;
+    private final int slowConsumerPending;
+    private final ConcurrentMap<String, DistributionSummary> payloads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> disconnects = new ConcurrentHashMap<>();
+    // Session id -> messages queued on the outbound channel and not yet written; absent when none are
+    private final ConcurrentMap<String, Integer> pending = new ConcurrentHashMap<>();
+    private final DistributionSummary pendingOnSend;
+    private final Counter connects;
+    private final ChannelInterceptor inbound = new InboundInterceptor();
+    private final ChannelInterceptor outbound = new OutboundInterceptor();
+
+    public WebSocketMetrics(MeterRegistry meterRegistry,
+                            @Value("${chat.websocket.slow-consumer-pending}") int slowConsumerPending) {
+        this.meterRegistry = meterRegistry;
+        this.slowConsumerPending = slowConsumerPending;
+        this.pendingOnSend = DistributionSummary.builder("chat.websocket.outbound.pending")
+                .description("Messages already queued for a session when another one is sent to it")
+                .baseUnit("messages")
+                .register(meterRegistry);
+        this.connects = Counter.builder("chat.websocket.connects")
+                .description("STOMP sessions connected")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.sessions.slow", pending, this::slowSessions)
+                .description("Sessions with more outbound messages queued than chat.websocket.slow-consumer-pending")
+                .register(meterRegistry);
+    }
+
+    /** For the client inbound channel */
+    public ChannelInterceptor inbound() {
+        return inbound;
+    }
+
+    /** For the client outbound channel */
+    public ChannelInterceptor outbound() {
+        return outbound;
+    }
+
+    /** Messages queued on the outbound channel for a session and not yet written to it */
+    public int pending(String sessionId) {
+        return pending.getOrDefault(sessionId, 0);
+    }
+
+    public void connected() {
+        connects.increment();
+    }
+
+    public void disconnected(CloseStatus status) {
+        String reason = reasonOf(status);
+        disconnects.computeIfAbsent(reason, key -> Counter.builder("chat.websocket.disconnects")
+                        .description("STOMP sessions closed, by close reason")
+                        .tag("reason", key)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    // The channel executors and the online user registry sit on the far side of WebSocketConfig
+    // in the bean graph, so they are looked up once everything exists
+    @EventListener(ApplicationReadyEvent.class)
+    public void bindWebSocketInfrastructure(ApplicationReadyEvent event) {
+        ApplicationContext context = event.getApplicationContext();
+
+        OnlineUserService onlineUsers = context.getBean(OnlineUserService.class);
+        Gauge.builder("chat.websocket.sessions", onlineUsers, OnlineUserService::getSessionCount)
+                .description("Open STOMP sessions with a known user")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.users", onlineUsers, users -> users.getAllOnlineUsers().size())
+                .description("Distinct users with at least one open STOMP session")
+                .register(meterRegistry);
+
+        EXECUTORS.forEach((channel, beanName) -> {
+            if (context.getBean(beanName) instanceof ThreadPoolTaskExecutor executor) {
+                Gauge.builder("chat.websocket.executor.utilization", executor,
+                                e -> e.getMaxPoolSize() > 0 ? (double) e.getActiveCount() / e.getMaxPoolSize() : 0)
+                        .description("Busy threads over maximum pool size of a STOMP channel executor")
+                        .tag("channel", channel)
+                        .register(meterRegistry);
+            }
+        });
+
+        WebSocketHandler handler = context.getBean("subProtocolWebSocketHandler", WebSocketHandler.class);
+        if (handler instanceof WebSocketHandlerDecorator decorator) {
+            handler = decorator.getLastHandler();
+        }
+        if (handler instanceof SubProtocolWebSocketHandler subProtocolHandler) {
+            SubProtocolWebSocketHandler.Stats stats = subProtocolHandler.getStats();
+            sessionsClosed("limit_exceeded", stats, SubProtocolWebSocketHandler.Stats::getLimitExceededSessions);
+            sessionsClosed("no_messages_received", stats, SubProtocolWebSocketHandler.Stats::getNoMessagesReceivedSessions);
+            sessionsClosed("transport_error", stats, SubProtocolWebSocketHandler.Stats::getTransportErrorSessions);
+        }
+    }
+
+    private void sessionsClosed(String reason, SubProtocolWebSocketHandler.Stats stats,
+                                ToIntFunction<SubProtocolWebSocketHandler.Stats> count) {
+        FunctionCounter.builder("chat.websocket.sessions.closed", stats, s -> count.applyAsInt(s))
+                .description("Sessions closed by the server, by reason (Spring session stats)")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private double slowSessions(Map<String, Integer> pendingBySession) {
+        return pendingBySession.values().stream().filter(count -> count > slowConsumerPending).count();
+    }
+
+    private void payload(String direction, Message<?> message) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        // User destinations arrive resolved to /queue/private-user<session>; the original keeps /user/queue/private
+        Object original = message.getHeaders().get(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        String destination = destinationType(original instanceof String s
+                ? s : SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+        int size = message.getPayload() instanceof byte[] bytes ? bytes.length : 0;
+        payloads.computeIfAbsent(direction + "|" + destination, key -> DistributionSummary.builder("chat.websocket.payload")
+                        .description("STOMP message payload size")
+                        .baseUnit("bytes")
+                        .tag("direction", direction)
+                        .tag("destination", destination)
+                        .register(meterRegistry))
+                .record(size);
+    }
+
+    // Two segments without the /user prefix and without ids: /topic/team-42 -> topic/team.
+    // Clients choose the destinations they send and subscribe to, so anything not in KNOWN_DESTINATIONS
+    // is "other" instead of a new tag value
+    static String destinationType(String destination) {
+        if (destination == null || destination.isBlank()) {
+            return "none";
+        }
+        String path = destination.startsWith("/user/") ? destination.substring("/user".length()) : destination;
+        String[] segments = path.split("/", 4);
+        if (segments.length < 3) {
+            return "other";
+        }
+        String second = segments[2];
+        int userSuffix = second.indexOf("-user");
+        if (userSuffix > 0) {
+            second = second.substring(0, userSuffix);
+        }
+        if (second.startsWith("team-")) {
+            second = "team";
+        }
+        String type = segments[1] + "/" + second;
+        return KNOWN_DESTINATIONS.contains(type) ? type : "other";
+    }
+
+    private static String reasonOf(CloseStatus status) {
+        if (status == null) {
+            return "unknown";
+        }
+        if (status.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)) {
+            return "slow_consumer";
+        }
+        return switch (status.getCode()) {
+            case 1000 -> "normal";
+            case 1001 -> "going_away";
+            case 1006 -> "no_close_frame";
+            case 1009 -> "too_big";
+            default -> "error";
+        };
+    }
+
+    private class InboundInterceptor implements ChannelInterceptor {
+
+        @Override
+        public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+            payload("inbound", message);
+            return message;
+        }
+    }
+
+    // preSend runs on the sending thread before the message is queued, afterMessageHandled once it is written
+    private class OutboundInterceptor implements ExecutorChannelInterceptor {
+
+        @Override
+        public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+            payload("outbound", message);
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+            if (sessionId != null) {
+                Integer before = pending.get(sessionId);
+                pendingOnSend.record(before != null ? before : 0);
+                pending.merge(sessionId, 1, Integer::sum);
+            }
+            return message;
+        }
+
+        // A rejected or dropped send never reaches the handler
+        @Override
+        public void afterSendCompletion(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                        boolean sent, Exception ex) {
+            if (ex != null || !sent) {
+                written(message);
+            }
+        }
+
+        @Override
+        public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                        @NonNull MessageHandler handler, Exception ex) {
+            written(message);
+        }
+
+        private void written(Message<?> message) {
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+            if (sessionId != null) {
+                pending.computeIfPresent(sessionId, (id, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+}
@@ -6,6 +6,8 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.NotFound;
+import org.hibernate.annotations.NotFoundAction;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -21,7 +23,8 @@ import java.time.LocalDateTime;
 public class ChatMessage {
  
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chat_messages_id")
+    @SequenceGenerator(name = "chat_messages_id", sequenceName = "chat_messages_id_seq", allocationSize = 50)
     private Long id;
  
     @Column(nullable = false)
@@ -63,8 +66,11 @@ public class ChatMessage {
     @Column(name = "is_read")
     private boolean read;
  
+    // No FK since partitioning (V2): the original may have been purged or archived, which reads as no reply.
+    // @NotFound makes Hibernate fetch it eagerly to find out
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "reply_to_id")
+    @JoinColumn(name = "reply_to_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    @NotFound(action = NotFoundAction.IGNORE)
     @JsonIgnore
     private ChatMessage replyToMessage;
  
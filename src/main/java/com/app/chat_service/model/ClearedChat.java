@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 public class ClearedChat {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cleared_chat_id")
+    @SequenceGenerator(name = "cleared_chat_id", sequenceName = "cleared_chat_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 public class MessageAction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_action_id")
+    @SequenceGenerator(name = "message_action_id", sequenceName = "message_action_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,53 @@
+package com.app.chat_service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per employee @-mentioned in a message, written when the message is sent or edited.
+ * conversation_key is the team id for group chats and the sorted "a:b" pair for private chats.
+ */
+@Entity
+@Table(name = "message_mention",
+       uniqueConstraints = @UniqueConstraint(name = "uk_mention_message_employee", columnNames = {"message_id", "employee_id"}),
+       indexes = {
+           @Index(name = "idx_mention_employee_message", columnList = "employee_id, message_id"),
+           @Index(name = "idx_mention_employee_unseen", columnList = "employee_id, seen, conversation_key"),
+           @Index(name = "idx_mention_message", columnList = "message_id")
+       })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageMention {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_mention_id")
+    @SequenceGenerator(name = "message_mention_id", sequenceName = "message_mention_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "message_id", nullable = false)
+    private Long messageId;
+
+    @Column(name = "employee_id", nullable = false)
+    private String employeeId;
+
+    @Column(name = "conversation_key", nullable = false)
+    private String conversationKey;
+
+    // Cleared when the mentioned employee reads or clears the conversation
+    @Column(name = "seen", nullable = false)
+    private boolean seen;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 public class MessageReadStatus {
  
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_read_status_id")
+    @SequenceGenerator(name = "message_read_status_id", sequenceName = "message_read_status_id_seq", allocationSize = 50)
     private Long id;
  
     @ManyToOne(fetch = FetchType.LAZY)
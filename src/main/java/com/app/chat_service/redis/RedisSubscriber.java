@@ -1,7 +1,12 @@
 package com.app.chat_service.redis;
 
 import com.app.chat_service.dto.ChatMessageResponse;
+import com.app.chat_service.feignclient.EmployeeServiceUnavailableException;
 import com.app.chat_service.dto.MessageStatusUpdateDTO;
+import com.app.chat_service.lane.Lane;
+import com.app.chat_service.metrics.MessageStageMetrics;
+import com.app.chat_service.metrics.MessageStageMetrics.Point;
+import com.app.chat_service.metrics.MessageStageMetrics.Stage;
 import com.app.chat_service.model.ChatMessage;
 import com.app.chat_service.model.MessageReadStatus;
 import com.app.chat_service.repo.ChatMessageRepository;
@@ -12,6 +17,7 @@ import com.app.chat_service.service.TeamService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -19,8 +25,10 @@ import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /** The RedisSubscriber will handle the actual delivery to WebSocket clients. **/
@@ -37,19 +45,25 @@ public class RedisSubscriber implements MessageListener {
     private final OnlineUserService onlineUserService;
     private final ChatMessageRepository chatMessageRepository;
     private final MessageReadStatusRepository readStatusRepo;
+    private final MessageStageMetrics stageMetrics;
+    @Qualifier("receiptExecutor")
+    private final Executor receiptExecutor;
 
     @Override
     public void onMessage(Message message, byte[] pattern) {
+        long received = stageMetrics.start();
         try {
             String body = new String(message.getBody(), StandardCharsets.UTF_8);
             ChatMessageResponse chatMessage = objectMapper.readValue(body, ChatMessageResponse.class);
             log.info("Received message {} from Redis.", chatMessage.getId());
+            stageMetrics.elapsed(Point.REDIS_RECEIVE, chatMessage.getType(), chatMessage.getTimestamp());
 
             if ("PRIVATE".equalsIgnoreCase(chatMessage.getType())) {
                 handlePrivateMessage(chatMessage);
             } else if ("TEAM".equalsIgnoreCase(chatMessage.getType())) {
                 handleTeamMessage(chatMessage);
             }
+            stageMetrics.record(Stage.REDIS_RECEIVE, chatMessage.getType(), received);
 
         } catch (Exception e) {
             log.error("❌ Error processing Redis message", e);
@@ -61,7 +75,8 @@ public class RedisSubscriber implements MessageListener {
         String senderUser = chatMessage.getSender();
 
         if (senderUser != null) {
-            messagingTemplate.convertAndSendToUser(senderUser, "/queue/private-ack", chatMessage);
+            stageMetrics.record(Stage.ACK_SEND, chatMessage.getType(),
+                    () -> messagingTemplate.convertAndSendToUser(senderUser, "/queue/private-ack", chatMessage));
         }
 
         if (targetUser == null) {
@@ -70,60 +85,80 @@ public class RedisSubscriber implements MessageListener {
 
         boolean isWindowOpen = chatTracker.isChatWindowOpen(targetUser, senderUser);
 
+        // The message goes out first; marking it read and telling the sender is receipt work
         if (isWindowOpen) {
-            // ---- LIVE SEEN LOGIC ----
-            chatMessageRepository.findById(chatMessage.getId()).ifPresent(msg -> {
-                if (!msg.isRead()) {
-                    msg.setRead(true);
-                    chatMessageRepository.save(msg);
-                    log.info("Marked new message {} as read from RedisSubscriber", msg.getId());
-                }
-            });
-
-            // 2. Set the 'seen' flag to true in the response
             chatMessage.setSeen(true);
+        }
+        deliver(chatMessage, () -> messagingTemplate.convertAndSendToUser(targetUser, "/queue/private", chatMessage));
+        receipts(chatMessage, () -> {
+            if (isWindowOpen) {
+                markSeen(chatMessage, targetUser, senderUser);
+            } else if (onlineUserService.isOnline(targetUser)) {
+                sendStatus(senderUser, targetUser, "DELIVERED", chatMessage.getId());
+            }
+        });
+    }
 
-            // 3. Send the message with 'seen' status to the receiver
-            messagingTemplate.convertAndSendToUser(targetUser, "/queue/private", chatMessage);
+    // ---- LIVE SEEN LOGIC ----
+    private void markSeen(ChatMessageResponse chatMessage, String targetUser, String senderUser) {
+        chatMessageRepository.findById(chatMessage.getId()).ifPresent(msg -> {
+            if (!msg.isRead()) {
+                msg.setRead(true);
+                chatMessageRepository.save(msg);
+                log.info("Marked new message {} as read from RedisSubscriber", msg.getId());
+            }
+        });
+        sendStatus(senderUser, targetUser, "SEEN", chatMessage.getId());
+    }
 
-            // 4. Send 'SEEN' status update to the sender
-            MessageStatusUpdateDTO statusUpdate = MessageStatusUpdateDTO.builder()
-                    .type("STATUS_UPDATE")
-                    .status("SEEN")
-                    .chatId(targetUser) // the user who saw the message
-                    .messageIds(List.of(chatMessage.getId()))
-                    .build();
-            messagingTemplate.convertAndSendToUser(senderUser, "/queue/private", statusUpdate);
-            log.info("Sent SEEN status for new message {} to sender {}", chatMessage.getId(), senderUser);
+    // STATUS_UPDATE to the sender; chatId is the user who received or saw the message
+    private void sendStatus(String senderUser, String targetUser, String status, Long messageId) {
+        MessageStatusUpdateDTO statusUpdate = MessageStatusUpdateDTO.builder()
+                .type("STATUS_UPDATE")
+                .status(status)
+                .chatId(targetUser)
+                .messageIds(List.of(messageId))
+                .build();
+        messagingTemplate.convertAndSendToUser(senderUser, "/queue/private", statusUpdate, Lane.RECEIPT.headers());
+        log.info("Sent {} status for message {} to sender {}", status, messageId, senderUser);
+    }
 
-        } else {
-            // ---- DELIVERED LOGIC ----
-            // 1. Send the normal message to the receiver (for unread count)
-            messagingTemplate.convertAndSendToUser(targetUser, "/queue/private", chatMessage);
-
-            // 2. If the receiver is online, send 'DELIVERED' status to the sender
-            if (onlineUserService.isOnline(targetUser)) {
-                MessageStatusUpdateDTO statusUpdate = MessageStatusUpdateDTO.builder()
-                        .type("STATUS_UPDATE")
-                        .status("DELIVERED")
-                        .chatId(targetUser)
-                        .messageIds(List.of(chatMessage.getId()))
-                        .build();
-                messagingTemplate.convertAndSendToUser(senderUser, "/queue/private", statusUpdate);
-                log.info("Sent DELIVERED status for message {} to sender {}", chatMessage.getId(), senderUser);
+    private void handleTeamMessage(ChatMessageResponse chatMessage) {
+        String teamId = chatMessage.getGroupId();
+
+        deliver(chatMessage, () -> messagingTemplate.convertAndSend("/topic/team-" + teamId, chatMessage));
+        stageMetrics.record(Stage.ACK_SEND, chatMessage.getType(),
+                () -> messagingTemplate.convertAndSendToUser(chatMessage.getSender(), "/queue/group-ack", chatMessage));
+        receipts(chatMessage, () -> markTeamSeen(chatMessage));
+    }
+
+    // Receipt work runs on its own pool, after the message went out
+    private void receipts(ChatMessageResponse chatMessage, Runnable work) {
+        receiptExecutor.execute(() -> {
+            try {
+                work.run();
+            } catch (Exception e) {
+                log.error("❌ Error processing receipts for message {}", chatMessage.getId(), e);
             }
-        }
+        });
     }
 
-    private void handleTeamMessage(ChatMessageResponse chatMessage) {
+    //mark messages as 'read' for active users 
+    private void markTeamSeen(ChatMessageResponse chatMessage) {
         String teamId = chatMessage.getGroupId();
         String senderId = chatMessage.getSender();
 
-        //mark messages as 'read' for active users 
         Optional<ChatMessage> messageOpt = chatMessageRepository.findById(chatMessage.getId());
         if (messageOpt.isPresent()) {
             ChatMessage messageEntity = messageOpt.get();
-            List<String> members = teamService.getEmployeeIdsByTeamId(teamId);
+            List<String> members;
+            try {
+                members = teamService.getEmployeeIdsByTeamId(teamId);
+            } catch (EmployeeServiceUnavailableException e) {
+                // Read receipts are best effort, the message itself has been delivered already
+                log.warn("Team {} members unavailable, skipping read statuses: {}", teamId, e.getMessage());
+                members = Collections.emptyList();
+            }
 
             // Create 'MessageReadStatus' records for members whose chat window is open
             List<MessageReadStatus> newReadStatuses = members.stream()
@@ -142,8 +177,11 @@ public class RedisSubscriber implements MessageListener {
         } else {
             log.warn("Could not find ChatMessage with ID {} to create read statuses.", chatMessage.getId());
         }
+    }
 
-        messagingTemplate.convertAndSend("/topic/team-" + teamId, chatMessage);
-        messagingTemplate.convertAndSendToUser(chatMessage.getSender(), "/queue/group-ack", chatMessage);
+    // Hand-off to the broker, which fans the frame out to the recipients' sessions
+    private void deliver(ChatMessageResponse chatMessage, Runnable send) {
+        stageMetrics.record(Stage.WEBSOCKET_SEND, chatMessage.getType(), send);
+        stageMetrics.elapsed(Point.DELIVERED, chatMessage.getType(), chatMessage.getTimestamp());
     }
 }
@@ -0,0 +1,245 @@
+package com.app.chat_service.redis;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Unread counters in Redis, one hash per user: {@code unread:{userId}} with one field per
+ * conversation (partner id for private chats, group id for teams).
+ * <p>
+ * A hash is only trusted once it carries the {@code _seeded} marker, i.e. after it was built
+ * from Postgres. Increments against an unseeded hash are dropped; the first read seeds it
+ * with counts that already include those messages.
+ * <p>
+ * {@code _total} holds the sum of all fields. Every script keeps it in step, so the app-level
+ * badge is a single HGET and each change can push the new total to {@code /queue/unread-total}.
+ */
+@Slf4j
+@Component
+public class UnreadCounterStore {
+
+    public static final String SEEDED_FIELD = "_seeded";
+    public static final String TOTAL_FIELD = "_total";
+
+    private static final String KEY_PREFIX = "unread:";
+    /** userId -> last time their counters changed; drives the reconciler */
+    private static final String TOUCHED_KEY = "unread:touched";
+
+    // Returns the new total, or -1 when the hash is not seeded
+    private static final String INCREMENT_SCRIPT = """
+            if redis.call('HEXISTS', KEYS[1], '_seeded') == 0 then return -1 end
+            redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            redis.call('HINCRBY', KEYS[1], ARGV[1], 1)
+            return redis.call('HINCRBY', KEYS[1], '_total', 1)
+            """;
+
+    // Drops one conversation and takes its count off the total; returns the new total or -1
+    private static final RedisScript<Long> RESET = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], '_seeded') == 0 then return -1 end
+            local count = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0')
+            if count == 0 then return tonumber(redis.call('HGET', KEYS[1], '_total') or '0') end
+            redis.call('HDEL', KEYS[1], ARGV[1])
+            return redis.call('HINCRBY', KEYS[1], '_total', -count)
+            """, Long.class);
+
+    // ARGV: ttl, then field, count pairs; replaces the whole hash in one step
+    private static final RedisScript<Long> SEED = new DefaultRedisScript<>("""
+            redis.call('DEL', KEYS[1])
+            local total = 0
+            for i = 2, #ARGV, 2 do
+              redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+              total = total + tonumber(ARGV[i + 1])
+            end
+            redis.call('HSET', KEYS[1], '_seeded', '1', '_total', total)
+            redis.call('PEXPIRE', KEYS[1], ARGV[1])
+            return total
+            """, Long.class);
+
+    // ARGV: field, expected, new (repeated); a field only changes if nobody touched it since the snapshot.
+    // Returns {fields changed, new total}
+    private static final RedisScript<List> COMPARE_AND_SET = new DefaultRedisScript<>("""
+            local changed = 0
+            local delta = 0
+            for i = 1, #ARGV, 3 do
+              local current = redis.call('HGET', KEYS[1], ARGV[i]) or '0'
+              if current == ARGV[i + 1] then
+                if ARGV[i + 2] == '0' then
+                  redis.call('HDEL', KEYS[1], ARGV[i])
+                else
+                  redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 2])
+                end
+                delta = delta + tonumber(ARGV[i + 2]) - tonumber(current)
+                changed = changed + 1
+              end
+            end
+            local total = redis.call('HINCRBY', KEYS[1], '_total', delta)
+            return {changed, total}
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Duration ttl;
+
+    public UnreadCounterStore(StringRedisTemplate redisTemplate,
+                              SimpMessagingTemplate messagingTemplate,
+                              @Value("${chat.unread.ttl}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.messagingTemplate = messagingTemplate;
+        this.ttl = ttl;
+    }
+
+    /** +1 on {@code conversationId} for every recipient, pipelined into one round trip */
+    public void increment(Collection<String> recipientIds, String conversationId) {
+        if (recipientIds.isEmpty() || conversationId == null) {
+            return;
+        }
+        byte[] script = INCREMENT_SCRIPT.getBytes(StandardCharsets.UTF_8);
+        byte[] field = bytes(conversationId);
+        byte[] ttlMs = bytes(String.valueOf(ttl.toMillis()));
+        long now = System.currentTimeMillis();
+        List<String> recipients = List.copyOf(recipientIds);
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String recipientId : recipients) {
+                    connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1, bytes(key(recipientId)), field, ttlMs);
+                    connection.zSetCommands().zAdd(bytes(TOUCHED_KEY), now, bytes(recipientId));
+                }
+                return null;
+            });
+            // Two results per recipient: script, then ZADD
+            for (int i = 0; i < recipients.size(); i++) {
+                if (results.get(i * 2) instanceof Long total) {
+                    pushTotal(recipients.get(i), total);
+                }
+            }
+        } catch (Exception e) {
+            // Counters drift until the next reconcile; the message itself is already stored
+            log.warn("Unread increment for {} recipients of {} failed: {}", recipientIds.size(), conversationId, e.getMessage());
+        }
+    }
+
+    /** Conversation read or cleared: drops its counter */
+    public void reset(String userId, String conversationId) {
+        try {
+            Long total = redisTemplate.execute(RESET, List.of(key(userId)), conversationId);
+            touch(userId);
+            if (total != null) {
+                pushTotal(userId, total);
+            }
+        } catch (Exception e) {
+            log.warn("Unread reset for {} / {} failed: {}", userId, conversationId, e.getMessage());
+        }
+    }
+
+    /** All counters of a user in one HGETALL, or null when the hash has not been seeded */
+    public Map<String, Long> read(String userId) {
+        Map<Object, Object> raw = redisTemplate.opsForHash().entries(key(userId));
+        if (!raw.containsKey(SEEDED_FIELD)) {
+            return null;
+        }
+        Map<String, Long> counts = new HashMap<>();
+        raw.forEach((field, value) -> {
+            String name = (String) field;
+            if (!name.startsWith("_")) {
+                counts.put(name, Long.parseLong((String) value));
+            }
+        });
+        return counts;
+    }
+
+    /** Sum of all counters from {@code _total}, or null when the hash has not been seeded */
+    public Long readTotal(String userId) {
+        List<Object> values = redisTemplate.opsForHash().multiGet(key(userId), List.of(SEEDED_FIELD, TOTAL_FIELD));
+        if (values.get(0) == null) {
+            return null;
+        }
+        return values.get(1) != null ? Long.parseLong((String) values.get(1)) : 0L;
+    }
+
+    /** Replaces the user's counters with values computed from Postgres and marks the hash trusted */
+    public void seed(String userId, Map<String, Long> counts) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(ttl.toMillis()));
+        counts.forEach((conversationId, count) -> {
+            if (count > 0) {
+                args.add(conversationId);
+                args.add(String.valueOf(count));
+            }
+        });
+        Long total = redisTemplate.execute(SEED, List.of(key(userId)), args.toArray());
+        touch(userId);
+        if (total != null) {
+            pushTotal(userId, total);
+        }
+    }
+
+    /**
+     * Writes corrected values for fields that still hold the value seen in {@code snapshot}.
+     * Returns how many fields were changed.
+     */
+    public long correct(String userId, Map<String, Long> snapshot, Map<String, Long> corrected) {
+        List<String> args = new ArrayList<>();
+        corrected.forEach((conversationId, value) -> {
+            args.add(conversationId);
+            args.add(String.valueOf(snapshot.getOrDefault(conversationId, 0L)));
+            args.add(String.valueOf(value));
+        });
+        if (args.isEmpty()) {
+            return 0;
+        }
+        List<?> result = redisTemplate.execute(COMPARE_AND_SET, List.of(key(userId)), args.toArray());
+        if (result == null || result.size() < 2) {
+            return 0;
+        }
+        long changed = ((Number) result.get(0)).longValue();
+        if (changed > 0) {
+            pushTotal(userId, ((Number) result.get(1)).longValue());
+        }
+        return changed;
+    }
+
+    /** Users whose counters changed in the given window, oldest first */
+    public Set<String> touchedBetween(long fromEpochMs, long toEpochMs, int limit) {
+        return redisTemplate.opsForZSet().rangeByScore(TOUCHED_KEY, fromEpochMs, toEpochMs, 0, limit);
+    }
+
+    /** Forgets users whose hashes have expired anyway */
+    public void pruneTouched(long olderThanEpochMs) {
+        redisTemplate.opsForZSet().removeRangeByScore(TOUCHED_KEY, 0, olderThanEpochMs);
+    }
+
+    private void pushTotal(String userId, long total) {
+        if (total >= 0) {
+            messagingTemplate.convertAndSendToUser(userId, "/queue/unread-total", Map.of("total", total));
+        }
+    }
+
+    private void touch(String userId) {
+        redisTemplate.opsForZSet().add(TOUCHED_KEY, userId, System.currentTimeMillis());
+    }
+
+    private String key(String userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,24 @@
+package com.app.chat_service.repo;
+
+import com.app.chat_service.model.ChatArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ChatArchiveSegmentRepository extends JpaRepository<ChatArchiveSegment, Long> {
+
+    // Newest first, only segments that still hold something after the user's cleared-at
+    List<ChatArchiveSegment> findByConversationKeyAndPeriodEndAfterOrderByPeriodStartDesc(
+            String conversationKey, LocalDateTime after);
+
+    // Private conversation keys are "a:b", team keys are the team id
+    List<ChatArchiveSegment> findTop100ByConversationKeyContainingAndPeriodEndBeforeOrderByPeriodEndAsc(
+            String part, LocalDateTime before);
+
+    List<ChatArchiveSegment> findTop100ByConversationKeyNotContainingAndPeriodEndBeforeOrderByPeriodEndAsc(
+            String part, LocalDateTime before);
+
+    Optional<ChatArchiveSegment> findByConversationKeyAndPeriodStart(String conversationKey, LocalDateTime periodStart);
+}
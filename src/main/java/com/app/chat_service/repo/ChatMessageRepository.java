@@ -1,8 +1,8 @@
 package com.app.chat_service.repo;
 
+import com.app.chat_service.dto.ChatHistoryRow;
 import com.app.chat_service.model.ChatMessage;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -75,7 +76,8 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
               AND (
                     m.sender = :empId
                     OR (m.receiver IS NOT NULL AND m.receiver = :empId)
-                    OR (m.content IS NOT NULL AND m.content LIKE CONCAT('%@', :empId, '%'))
+                    OR m.id IN (SELECT mm.messageId FROM MessageMention mm
+                                WHERE mm.employeeId = :empId AND mm.conversationKey = :teamId)
               )
             ORDER BY m.timestamp ASC
             """)
@@ -99,21 +101,71 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
                                 @Param("user1") String user1,
                                 @Param("user2") String user2);
 
+    // ================== SEARCH ==================
+
+    // Full-text search over search_vector (GIN, maintained by trigger, see MessageSearchSchema).
+    // Scoped to the caller's private chats and teams; keyset on id, newest first.
+    // Rows: id, sender, receiver, group_id, type, timestamp, snippet
+    @Query(value = """
+        SELECT m.id, m.sender, m.receiver, m.group_id, m.type, m.timestamp,
+               ts_headline(CAST(:config AS regconfig), m.content, q, :headlineOptions)
+        FROM {h-schema}chat_messages m, websearch_to_tsquery(CAST(:config AS regconfig), :query) q
+        WHERE m.search_vector @@ q
+          AND m.is_deleted = false
+          AND m.id < :beforeId
+          AND ((m.type = 'PRIVATE' AND (m.sender = :employeeId OR m.receiver = :employeeId))
+               OR (m.type = 'TEAM' AND m.group_id IN (:teamIds)))
+          AND (CAST(:chatId AS text) IS NULL
+               OR m.group_id = :chatId
+               OR (m.type = 'PRIVATE' AND (m.sender = :chatId OR m.receiver = :chatId)))
+        ORDER BY m.id DESC
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Object[]> searchMessages(@Param("config") String config,
+                                  @Param("query") String query,
+                                  @Param("headlineOptions") String headlineOptions,
+                                  @Param("employeeId") String employeeId,
+                                  @Param("teamIds") List<String> teamIds,
+                                  @Param("chatId") String chatId,
+                                  @Param("beforeId") Long beforeId,
+                                  @Param("limit") int limit);
+
     // ================== CLEARED CHAT ==================
 
-    @Query("SELECT m FROM ChatMessage m " +
+    // History pages: constructor projection, so no file_data and no per-reply SELECT.
+    // List + Pageable means Spring Data skips the count query.
+    String HISTORY_ROW = "SELECT new com.app.chat_service.dto.ChatHistoryRow(" +
+           "m.id, m.sender, m.receiver, m.groupId, m.type, m.content, m.timestamp, " +
+           "m.fileName, m.fileType, m.fileSize, m.duration, m.read, m.replyPreviewContent, " +
+           "m.forwarded, m.forwardedFrom, m.isDeleted, r.id, r.sender, r.fileName, r.fileType) " +
+           "FROM ChatMessage m LEFT JOIN m.replyToMessage r ";
+
+    @Query(HISTORY_ROW +
            "WHERE ((m.sender = :empId AND m.receiver = :chatId) OR (m.sender = :chatId AND m.receiver = :empId)) " +
            "AND m.type = 'PRIVATE' AND m.timestamp > :clearedAt")
-    Page<ChatMessage> findPrivateChatMessagesAfter(@Param("empId") String empId,
-                                                   @Param("chatId") String chatId,
-                                                   @Param("clearedAt") LocalDateTime clearedAt,
-                                                   Pageable pageable);
+    List<ChatHistoryRow> findPrivateChatHistoryAfter(@Param("empId") String empId,
+                                                     @Param("chatId") String chatId,
+                                                     @Param("clearedAt") LocalDateTime clearedAt,
+                                                     Pageable pageable);
 
-    @Query("SELECT m FROM ChatMessage m " +
+    @Query(HISTORY_ROW +
            "WHERE m.groupId = :teamId AND m.type = 'TEAM' AND m.timestamp > :clearedAt")
-    Page<ChatMessage> findTeamChatMessagesAfter(@Param("teamId") String teamId,
-                                                @Param("clearedAt") LocalDateTime clearedAt,
-                                                Pageable pageable);
+    List<ChatHistoryRow> findTeamChatHistoryAfter(@Param("teamId") String teamId,
+                                                  @Param("clearedAt") LocalDateTime clearedAt,
+                                                  Pageable pageable);
+
+    // Live row counts for the history queries above, to find where the archive takes over
+    @Query("SELECT COUNT(m) FROM ChatMessage m " +
+           "WHERE ((m.sender = :empId AND m.receiver = :chatId) OR (m.sender = :chatId AND m.receiver = :empId)) " +
+           "AND m.type = 'PRIVATE' AND m.timestamp > :clearedAt")
+    long countPrivateChatHistoryAfter(@Param("empId") String empId,
+                                      @Param("chatId") String chatId,
+                                      @Param("clearedAt") LocalDateTime clearedAt);
+
+    @Query("SELECT COUNT(m) FROM ChatMessage m " +
+           "WHERE m.groupId = :teamId AND m.type = 'TEAM' AND m.timestamp > :clearedAt")
+    long countTeamChatHistoryAfter(@Param("teamId") String teamId,
+                                   @Param("clearedAt") LocalDateTime clearedAt);
     
     
     @Query("SELECT COUNT(m) FROM ChatMessage m " +
@@ -139,6 +191,46 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     @Query("SELECT COUNT(m) FROM ChatMessage m WHERE m.receiver = :userId AND m.sender = :chatPartnerId AND m.read = false AND m.timestamp > :clearedAt AND m.type = 'PRIVATE'")
     long countUnreadPrivateMessages(@Param("userId") String userId, @Param("chatPartnerId") String chatPartnerId, @Param("clearedAt") LocalDateTime clearedAt);
 
+    // ================== SIDEBAR ==================
+
+    // Newest message of each team in one round trip instead of one query per team.
+    // Rows: group_id, content, sender, type, timestamp; teams without messages are absent
+    @Query(value = """
+        SELECT t.team_id, last.content, last.sender, last.type, last."timestamp"
+        FROM unnest(ARRAY[:teamIds]) AS t(team_id)
+        CROSS JOIN LATERAL (
+            SELECT m.content, m.sender, m.type, m."timestamp"
+            FROM {h-schema}chat_messages m
+            WHERE m.group_id = t.team_id AND m.type = 'TEAM'
+            ORDER BY m."timestamp" DESC
+            LIMIT 1) last
+        """, nativeQuery = true)
+    List<Object[]> findLatestTeamMessages(@Param("teamIds") Collection<String> teamIds);
+
+    // Newest private message between the employee and each partner, either direction; each
+    // branch is a backward scan of idx_chat_messages_private_ts.
+    // Rows: partner id, content, sender, type, timestamp; partners without messages are absent
+    @Query(value = """
+        SELECT p.partner_id, last.content, last.sender, last.type, last."timestamp"
+        FROM unnest(ARRAY[:partnerIds]) AS p(partner_id)
+        CROSS JOIN LATERAL (
+            (SELECT m.content, m.sender, m.type, m."timestamp"
+             FROM {h-schema}chat_messages m
+             WHERE m.sender = :employeeId AND m.receiver = p.partner_id AND m.type = 'PRIVATE'
+             ORDER BY m."timestamp" DESC
+             LIMIT 1)
+            UNION ALL
+            (SELECT m.content, m.sender, m.type, m."timestamp"
+             FROM {h-schema}chat_messages m
+             WHERE m.sender = p.partner_id AND m.receiver = :employeeId AND m.type = 'PRIVATE'
+             ORDER BY m."timestamp" DESC
+             LIMIT 1)
+            ORDER BY "timestamp" DESC
+            LIMIT 1) last
+        """, nativeQuery = true)
+    List<Object[]> findLatestPrivateMessages(@Param("employeeId") String employeeId,
+                                             @Param("partnerIds") Collection<String> partnerIds);
+
     Optional<ChatMessage> findTopByGroupIdAndTypeAndTimestampAfterOrderByTimestampDesc(
             String groupId,
             String type,
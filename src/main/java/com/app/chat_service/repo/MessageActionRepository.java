@@ -17,4 +17,8 @@ public interface MessageActionRepository extends JpaRepository<MessageAction, Lo
     List<MessageAction> findDeleteActionsForUser(
             @Param("messageIds") List<Long> messageIds,
             @Param("userId") String userId);
+
+    /** Every message this user deleted for themselves */
+    @Query("SELECT DISTINCT m.messageId FROM MessageAction m WHERE m.userId = :userId")
+    List<Long> findHiddenMessageIdsForUser(@Param("userId") String userId);
 }
@@ -0,0 +1,45 @@
+package com.app.chat_service.repo;
+
+import com.app.chat_service.dto.MentionDTO;
+import com.app.chat_service.model.MessageMention;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface MessageMentionRepository extends JpaRepository<MessageMention, Long> {
+
+    @Modifying
+    @Query("DELETE FROM MessageMention mm WHERE mm.messageId = :messageId")
+    int deleteByMessageId(@Param("messageId") Long messageId);
+
+    // Keyset page on (employee_id, message_id): newest first, strictly older than the cursor
+    @Query("""
+        SELECT new com.app.chat_service.dto.MentionDTO(
+            mm.messageId, mm.conversationKey, m.sender, m.receiver, m.groupId, m.type,
+            m.content, m.timestamp, mm.seen)
+        FROM MessageMention mm JOIN ChatMessage m ON m.id = mm.messageId
+        WHERE mm.employeeId = :employeeId AND mm.messageId < :beforeMessageId AND m.isDeleted = false
+        ORDER BY mm.messageId DESC
+    """)
+    List<MentionDTO> findFeed(@Param("employeeId") String employeeId,
+                              @Param("beforeMessageId") Long beforeMessageId,
+                              Pageable pageable);
+
+    @Query("""
+        SELECT mm.conversationKey, COUNT(mm) FROM MessageMention mm
+        WHERE mm.employeeId = :employeeId AND mm.seen = false
+        GROUP BY mm.conversationKey
+    """)
+    List<Object[]> countUnseenByConversation(@Param("employeeId") String employeeId);
+
+    @Modifying
+    @Query("""
+        UPDATE MessageMention mm SET mm.seen = true
+        WHERE mm.employeeId = :employeeId AND mm.conversationKey = :conversationKey AND mm.seen = false
+    """)
+    int markSeen(@Param("employeeId") String employeeId, @Param("conversationKey") String conversationKey);
+}
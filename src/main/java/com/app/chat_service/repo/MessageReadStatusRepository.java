@@ -2,6 +2,7 @@ package com.app.chat_service.repo;
  
 import com.app.chat_service.model.MessageReadStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
  
@@ -13,4 +14,14 @@ public interface MessageReadStatusRepository extends JpaRepository<MessageReadSt
     // Find all message IDs that a specific user has read in a specific group
     @Query("SELECT mrs.chatMessage.id FROM MessageReadStatus mrs WHERE mrs.userId = :userId AND mrs.chatMessage.groupId = :groupId")
     Set<Long> findReadMessageIdsByUserIdAndGroupId(@Param("userId") String userId, @Param("groupId") String groupId);
-}
\ No newline at end of file
+
+    // One multi-row INSERT ... SELECT instead of loading every team message; ids come from the column default
+    @Modifying
+    @Query(value = "INSERT INTO {h-schema}message_read_status (message_id, user_id, read_at) " +
+                   "SELECT m.id, :userId, now() FROM {h-schema}chat_messages m " +
+                   "WHERE m.group_id = :groupId AND m.type = 'TEAM' AND m.sender <> :userId " +
+                   "AND NOT EXISTS (SELECT 1 FROM {h-schema}message_read_status rs " +
+                   "                WHERE rs.message_id = m.id AND rs.user_id = :userId)",
+           nativeQuery = true)
+    int insertMissingForGroup(@Param("userId") String userId, @Param("groupId") String groupId);
+}
@@ -0,0 +1,23 @@
+package com.app.chat_service.retention;
+
+/** Conversation kinds a retention policy can be set for */
+public enum ConversationType {
+
+    PRIVATE("type = 'PRIVATE'"),
+    TEAM("type <> 'PRIVATE'");
+
+    private final String predicate;
+
+    ConversationType(String predicate) {
+        this.predicate = predicate;
+    }
+
+    /** SQL condition on chat_messages selecting this kind */
+    String predicate() {
+        return predicate;
+    }
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
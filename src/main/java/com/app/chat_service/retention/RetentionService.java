@@ -0,0 +1,270 @@
+package com.app.chat_service.retention;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.app.chat_service.archive.ArchivedMessage;
+import com.app.chat_service.archive.ChatArchiveStore;
+import com.app.chat_service.datasource.ReplicaLagMonitor;
+import com.app.chat_service.model.ChatArchiveSegment;
+import com.app.chat_service.repo.ChatArchiveSegmentRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes messages older than the retention configured for their conversation type, together
+ * with their read receipts, actions, mentions and file large objects, and expired archive
+ * segments with their archived files.
+ * <p>
+ * Live rows go in small keyset batches on id, one short transaction each, with a pause between
+ * batches and a back-off while replicas lag, so a purge never holds long locks or floods the
+ * WAL. A replica that does not answer is waited for at most {@code max-unreachable-wait} per run,
+ * then left out of the lag check. A run stops at {@code max-run-time} and the next run picks up
+ * where it left.
+ */
+@Slf4j
+@Service
+public class RetentionService {
+
+    private static final String PURGE_BATCH = """
+            WITH batch AS (SELECT id, file_data FROM %1$s
+                           WHERE %2$s AND "timestamp" < ? AND id > ? ORDER BY id LIMIT ?),
+                 read_status AS (DELETE FROM %3$s WHERE message_id IN (SELECT id FROM batch) RETURNING 1),
+                 actions AS (DELETE FROM %4$s WHERE message_id IN (SELECT id FROM batch) RETURNING 1),
+                 mentions AS (DELETE FROM %5$s WHERE message_id IN (SELECT id FROM batch) RETURNING 1),
+                 files AS (SELECT lo_unlink(file_data) FROM batch WHERE file_data IS NOT NULL),
+                 messages AS (DELETE FROM %1$s m USING batch
+                              WHERE m.id = batch.id AND m."timestamp" < ? RETURNING 1)
+            SELECT (SELECT max(id) FROM batch), (SELECT count(*) FROM messages),
+                   (SELECT count(*) FROM read_status), (SELECT count(*) FROM actions),
+                   (SELECT count(*) FROM mentions), (SELECT count(*) FROM files)
+            """;
+    private static final String[] TABLES = {"chat_messages", "message_read_status", "message_action", "message_mention", "file_data"};
+
+    private final ChatArchiveSegmentRepository segmentRepository;
+    private final ChatArchiveStore archiveStore;
+    private final ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String schema;
+    private final boolean enabled;
+    private final Map<ConversationType, Duration> policies = new EnumMap<>(ConversationType.class);
+    private final int batchSize;
+    private final Duration pause;
+    private final double maxReplicaLagSeconds;
+    private final Duration maxRunTime;
+    private final long maxUnreachableWaitNanos;
+
+    // Per run: time spent backing off for unreachable replicas, and whether that was logged
+    private long unreachableWaitedNanos;
+    private boolean unreachableWarned;
+
+    public RetentionService(ChatArchiveSegmentRepository segmentRepository,
+                            ChatArchiveStore archiveStore,
+                            ObjectProvider<ReplicaLagMonitor> replicaLagMonitor,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${spring.jpa.properties.hibernate.default_schema:}") String schema,
+                            @Value("${chat.retention.enabled}") boolean enabled,
+                            @Value("${chat.retention.private}") String privateRetention,
+                            @Value("${chat.retention.team}") String teamRetention,
+                            @Value("${chat.retention.batch-size}") int batchSize,
+                            @Value("${chat.retention.pause}") Duration pause,
+                            @Value("${chat.retention.max-replica-lag}") Duration maxReplicaLag,
+                            @Value("${chat.retention.max-run-time}") Duration maxRunTime,
+                            @Value("${chat.retention.max-unreachable-wait}") Duration maxUnreachableWait) {
+        this.segmentRepository = segmentRepository;
+        this.archiveStore = archiveStore;
+        this.replicaLagMonitor = replicaLagMonitor;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.schema = schema == null ? "" : schema.trim();
+        this.enabled = enabled;
+        // Blank keeps that type forever
+        if (!privateRetention.isBlank()) {
+            policies.put(ConversationType.PRIVATE, Duration.parse(privateRetention));
+        }
+        if (!teamRetention.isBlank()) {
+            policies.put(ConversationType.TEAM, Duration.parse(teamRetention));
+        }
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.maxReplicaLagSeconds = maxReplicaLag.toMillis() / 1000.0;
+        this.maxRunTime = maxRunTime;
+        this.maxUnreachableWaitNanos = maxUnreachableWait.toNanos();
+    }
+
+    @Scheduled(cron = "${chat.retention.cron}")
+    public void run() {
+        if (!enabled || policies.isEmpty()) {
+            return;
+        }
+        long deadline = System.nanoTime() + maxRunTime.toNanos();
+        unreachableWaitedNanos = 0;
+        unreachableWarned = false;
+        for (Map.Entry<ConversationType, Duration> policy : policies.entrySet()) {
+            LocalDateTime cutoff = LocalDateTime.now().minus(policy.getValue());
+            try {
+                purgeLive(policy.getKey(), cutoff, deadline);
+                purgeArchived(policy.getKey(), cutoff, deadline);
+            } catch (Exception e) {
+                log.error("Retention purge of {} messages failed; it is retried on the next run", policy.getKey(), e);
+            }
+        }
+    }
+
+    /** Deletes live messages of the type sent before the cutoff; returns how many were deleted */
+    public long purgeLive(ConversationType type, LocalDateTime cutoff, long deadlineNanos) {
+        String sql = PURGE_BATCH.formatted(qualified("chat_messages"), type.predicate(),
+                qualified("message_read_status"), qualified("message_action"), qualified("message_mention"));
+        Timer batchTimer = Timer.builder("chat.retention.batch")
+                .description("Time per retention delete batch")
+                .tag("type", type.tag())
+                .register(meterRegistry);
+
+        long lastId = 0;
+        long total = 0;
+        while (System.nanoTime() < deadlineNanos) {
+            long cursor = lastId;
+            long[] counts = batchTimer.record(() -> transactionTemplate.execute(status ->
+                    jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new long[] {
+                            rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getLong(6)},
+                            cutoff, cursor, batchSize, cutoff)));
+            if (counts == null || counts[1] == 0) {
+                break;
+            }
+            lastId = counts[0];
+            total += counts[1];
+            for (int i = 0; i < TABLES.length; i++) {
+                deleted(type, TABLES[i]).increment(counts[i + 1]);
+            }
+            throttle(deadlineNanos);
+        }
+        if (total > 0) {
+            log.info("Retention deleted {} {} messages sent before {}", total, type, cutoff);
+        }
+        return total;
+    }
+
+    /** Deletes archive segments of the type that ended before the cutoff, with their files and actions */
+    public long purgeArchived(ConversationType type, LocalDateTime cutoff, long deadlineNanos) {
+        long total = 0;
+        while (System.nanoTime() < deadlineNanos) {
+            List<ChatArchiveSegment> expired = type == ConversationType.PRIVATE
+                    ? segmentRepository.findTop100ByConversationKeyContainingAndPeriodEndBeforeOrderByPeriodEndAsc(":", cutoff)
+                    : segmentRepository.findTop100ByConversationKeyNotContainingAndPeriodEndBeforeOrderByPeriodEndAsc(":", cutoff);
+            if (expired.isEmpty()) {
+                break;
+            }
+            for (ChatArchiveSegment segment : expired) {
+                total += purgeSegment(type, segment);
+                throttle(deadlineNanos);
+            }
+        }
+        if (total > 0) {
+            log.info("Retention deleted {} archived {} messages sent before {}", total, type, cutoff);
+        }
+        return total;
+    }
+
+    // Files and actions first: the segment row is what a repeated run finds its way back by
+    private int purgeSegment(ConversationType type, ChatArchiveSegment segment) {
+        List<ArchivedMessage> messages;
+        try {
+            messages = archiveStore.readSegment(segment.getStorageKey());
+        } catch (IllegalStateException e) {
+            // Object already gone (a repeated run): only the row is left to delete
+            log.warn("Archive segment {} missing, dropping its record", segment.getStorageKey());
+            messages = List.of();
+        }
+        List<Long> ids = new ArrayList<>(messages.size());
+        for (ArchivedMessage message : messages) {
+            ids.add(message.id());
+            if (message.fileName() != null) {
+                archiveStore.deleteFile(message.id());
+            }
+        }
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            Long[] chunk = ids.subList(from, Math.min(ids.size(), from + batchSize)).toArray(Long[]::new);
+            int actions = jdbcTemplate.update("DELETE FROM " + qualified("message_action") + " WHERE message_id = ANY (?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", chunk)));
+            deleted(type, "message_action").increment(actions);
+        }
+        archiveStore.deleteSegment(segment.getStorageKey());
+        segmentRepository.delete(segment);
+        deleted(type, "archive").increment(messages.size());
+        return messages.size();
+    }
+
+    // Fixed pause between batches; waits longer while any replica is behind. An unreachable replica
+    // counts as infinitely behind until max-unreachable-wait is used up, then only reachable ones count
+    private void throttle(long deadlineNanos) {
+        sleep(pause);
+        ReplicaLagMonitor monitor = replicaLagMonitor.getIfAvailable();
+        Duration backoff = pause.multipliedBy(5);
+        while (monitor != null && System.nanoTime() < deadlineNanos && !Thread.currentThread().isInterrupted()) {
+            boolean waitForUnreachable = unreachableWaitedNanos < maxUnreachableWaitNanos;
+            double lag = waitForUnreachable ? monitor.maxLagSeconds() : monitor.maxReachableLagSeconds();
+            if (lag <= maxReplicaLagSeconds) {
+                return;
+            }
+            if (Double.isInfinite(lag)) {
+                if (!unreachableWarned) {
+                    log.warn("Replica unreachable; retention waits up to {} for it, then ignores it for this run",
+                            Duration.ofNanos(maxUnreachableWaitNanos));
+                    unreachableWarned = true;
+                }
+                unreachableWaitedNanos += backoff.toNanos();
+                backoff("unreachable").increment();
+            } else {
+                backoff("lag").increment();
+            }
+            sleep(backoff);
+        }
+    }
+
+    private Counter backoff(String reason) {
+        return Counter.builder("chat.retention.replica.backoff")
+                .description("Retention back-offs while a replica lagged or did not answer")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private Counter deleted(ConversationType type, String table) {
+        return Counter.builder("chat.retention.deleted")
+                .description("Rows, large objects and archived messages removed by retention")
+                .tag("type", type.tag())
+                .tag("table", table)
+                .register(meterRegistry);
+    }
+
+    private String qualified(String name) {
+        return schema.isEmpty() ? name : schema + "." + name;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
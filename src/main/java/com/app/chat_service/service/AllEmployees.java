@@ -1,11 +1,23 @@
 package com.app.chat_service.service;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import com.app.chat_service.cache.PresignedUrlCache;
+import com.app.chat_service.cache.PresignedUrlCache.PresignedUrl;
+import com.app.chat_service.cache.TwoLevelCache;
 import com.app.chat_service.feignclient.EmployeeClient;
 import com.app.chat_service.model.employee_details;
 import com.app.chat_service.repo.EmployeeDetailsRepository;
@@ -16,16 +28,22 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class AllEmployees {
 
+    private static final String CACHE_NAME = "employeeDetails";
+
     @Autowired
     private EmployeeClient employeeClient;
 
     @Autowired
     private EmployeeDetailsRepository employeeDetailsRepository;
-    
+
+    @Autowired
+    private PresignedUrlCache presignedUrlCache;
+
     @Autowired
-    private S3Service s3Service;
+    private CacheManager cacheManager;
 
-    @Cacheable(value = "employeeDetails", key = "#id", unless="#result == null")
+    // sync = true: concurrent misses share one lookup; null results are never cached by TwoLevelCache
+    @Cacheable(value = CACHE_NAME, key = "#id", sync = true)
     public employee_details getEmployeeById(String id) {
         Optional<employee_details> optionalEmployee = employeeDetailsRepository.findById(id);
 
@@ -33,20 +51,8 @@ public class AllEmployees {
             employee_details employee = optionalEmployee.get();
             log.info("Original S3 Key from DB: {}", employee.getProfileLink());
 
-            // Check if the profileLink is a valid S3 key and not already a URL
-            if (employee.getProfileLink() != null && !employee.getProfileLink().isBlank() && !employee.getProfileLink().startsWith("http")) {
-                
-                // 1. Generate the presigned URL from the S3 key
-                String presignedUrl = s3Service.generatePresignedUrl(employee.getProfileLink());
-
-                // 2. Create a NEW, detached employee object to avoid DB updates
-                employee_details responseDto = new employee_details();
-                responseDto.setEmployeeId(employee.getEmployeeId());
-                responseDto.setEmployeeName(employee.getEmployeeName());
-                
-                // 3. Set the temporary presigned URL on the new object
-                responseDto.setProfileLink(presignedUrl); 
-                
+            if (needsPresigning(employee)) {
+                employee_details responseDto = withPresignedUrl(employee, presignedUrlCache.getUrl(employee.getProfileLink()));
                 log.info("Returning employee with presigned URL: {}", responseDto);
                 return responseDto; // Return the new object with the URL
 
@@ -55,15 +61,58 @@ public class AllEmployees {
                 log.warn("Profile link for employee {} is already a URL. It should be an S3 key. Returning it as is for now.", id);
                 return employee;
             }
-            
+
             // Return the original employee if there's no profile link
             return employee;
-            
+
         } else {
             return null;
         }
     }
 
+    /**
+     * Batch version of {@link #getEmployeeById} for building chat lists.
+     * One multi-get against the employeeDetails cache, one findAllById for the misses,
+     * one presigned-URL batch for the loaded rows. Unknown ids are left out of the result.
+     */
+    public Map<String, employee_details> getEmployeesByIds(Collection<String> ids) {
+        Set<String> wanted = ids.stream()
+                .filter(id -> id != null && !id.isBlank())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<String, employee_details> result = new LinkedHashMap<>();
+        if (wanted.isEmpty()) {
+            return result;
+        }
+
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        Map<Object, Object> cached = cachedEntries(cache, wanted);
+        cached.forEach((id, value) -> result.put((String) id, (employee_details) value));
+
+        List<String> missing = wanted.stream().filter(id -> !result.containsKey(id)).toList();
+        if (missing.isEmpty()) {
+            return orderedAs(wanted, result);
+        }
+
+        List<employee_details> loaded = employeeDetailsRepository.findAllById(missing);
+        // One batch for every profile link; new signatures are created in parallel by the URL cache
+        Map<String, PresignedUrl> urls = presignedUrlCache.getAll(loaded.stream()
+                .filter(this::needsPresigning)
+                .map(employee_details::getProfileLink)
+                .collect(Collectors.toSet()));
+
+        Map<String, employee_details> fills = new LinkedHashMap<>();
+        for (employee_details row : loaded) {
+            employee_details employee = needsPresigning(row)
+                    ? withPresignedUrl(row, urls.get(row.getProfileLink()).url())
+                    : row;
+            fills.put(employee.getEmployeeId(), employee);
+        }
+        result.putAll(fills);
+        fillCache(cache, fills);
+        log.debug("Employee batch lookup: {} requested, {} cached, {} loaded", wanted.size(), cached.size(), loaded.size());
+        return orderedAs(wanted, result);
+    }
+
     public boolean existsById(String employeeId) {
         try {
             employee_details emp = getEmployeeById(employeeId);
@@ -73,4 +122,50 @@ public class AllEmployees {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    // Both levels in one round trip, without telling the other pods: a fresh load makes nothing stale
+    private void fillCache(Cache cache, Map<String, employee_details> fills) {
+        if (cache instanceof TwoLevelCache twoLevel) {
+            twoLevel.putAll(fills);
+        } else if (cache != null) {
+            fills.forEach(cache::put);
+        }
+    }
+
+    private Map<Object, Object> cachedEntries(Cache cache, Set<String> ids) {
+        if (cache instanceof TwoLevelCache twoLevel) {
+            return twoLevel.getAll(ids);
+        }
+        Map<Object, Object> found = new LinkedHashMap<>();
+        if (cache != null) {
+            for (String id : ids) {
+                Cache.ValueWrapper hit = cache.get(id);
+                if (hit != null && hit.get() != null) {
+                    found.put(id, hit.get());
+                }
+            }
+        }
+        return found;
+    }
+
+    private Map<String, employee_details> orderedAs(Set<String> ids, Map<String, employee_details> byId) {
+        Map<String, employee_details> ordered = new LinkedHashMap<>();
+        ids.stream().filter(byId::containsKey).forEach(id -> ordered.put(id, byId.get(id)));
+        return ordered;
+    }
+
+    // Valid S3 key, not already a URL
+    private boolean needsPresigning(employee_details employee) {
+        return employee.getProfileLink() != null && !employee.getProfileLink().isBlank()
+                && !employee.getProfileLink().startsWith("http");
+    }
+
+    // Detached copy so the managed entity (and the DB row) keeps the S3 key
+    private employee_details withPresignedUrl(employee_details employee, String presignedUrl) {
+        employee_details responseDto = new employee_details();
+        responseDto.setEmployeeId(employee.getEmployeeId());
+        responseDto.setEmployeeName(employee.getEmployeeName());
+        responseDto.setProfileLink(presignedUrl);
+        return responseDto;
+    }
+}
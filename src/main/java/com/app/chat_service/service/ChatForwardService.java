@@ -2,18 +2,48 @@ package com.app.chat_service.service;
 import com.app.chat_service.dto.ReplyForwardMessageDTO;
 import com.app.chat_service.dto.ForwardTarget;
 import com.app.chat_service.dto.ChatMessageResponse;
+import com.app.chat_service.feignclient.EmployeeServiceUnavailableException;
 import com.app.chat_service.model.ChatMessage;
+import com.app.chat_service.redis.UnreadCounterStore;
 import com.app.chat_service.repo.ChatMessageRepository;
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
+import java.util.List;
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class ChatForwardService {
     private final ChatMessageRepository messageRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final UnreadCounterStore unreadCounterStore;
+    private final ChatPresenceTracker presenceTracker;
+    private final TeamService teamService;
+    private final MentionService mentionService;
+    // Runs after the forward's own transaction has committed, so it cannot join it
+    private final TransactionTemplate mentionTransaction;
+    public ChatForwardService(ChatMessageRepository messageRepository,
+                              SimpMessagingTemplate messagingTemplate,
+                              UnreadCounterStore unreadCounterStore,
+                              ChatPresenceTracker presenceTracker,
+                              TeamService teamService,
+                              MentionService mentionService,
+                              PlatformTransactionManager transactionManager) {
+        this.messageRepository = messageRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.unreadCounterStore = unreadCounterStore;
+        this.presenceTracker = presenceTracker;
+        this.teamService = teamService;
+        this.mentionService = mentionService;
+        this.mentionTransaction = new TransactionTemplate(transactionManager);
+        this.mentionTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
     @Transactional
     public void handleReplyOrForward(ReplyForwardMessageDTO dto) {
         if (dto.getReplyToMessageId() != null) {
@@ -41,6 +71,8 @@ public class ChatForwardService {
             message.setGroupId(dto.getGroupId());
         }
         ChatMessage saved = messageRepository.save(message);
+        countUnreadAfterCommit(saved);
+        mentionService.index(saved);
         ChatMessageResponse response = mapToResponse(saved);
         if ("PRIVATE".equalsIgnoreCase(dto.getType())) {
             messagingTemplate.convertAndSendToUser(dto.getReceiver(), "/queue/private", response);
@@ -77,6 +109,8 @@ public class ChatForwardService {
                 throw new IllegalArgumentException("Forward target must have either receiver or groupId.");
             }
             ChatMessage saved = messageRepository.save(message);
+            countUnreadAfterCommit(saved);
+            indexMentionsAfterCommit(saved);
             ChatMessageResponse response = mapToResponse(saved);
             if ("PRIVATE".equalsIgnoreCase(message.getType())) {
                 messagingTemplate.convertAndSendToUser(target.getReceiver(), "/queue/private", response);
@@ -85,6 +119,48 @@ public class ChatForwardService {
             }
         }
     }
+    // Replies and forwards skip the async processor, so they bump the unread counters here, once the
+    // message is committed so a rolled-back reply or forward is never counted
+    private void countUnreadAfterCommit(ChatMessage message) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                countUnread(message);
+            }
+        });
+    }
+    // Forwarded content can mention people too; a failed index only costs the mention feed entry
+    private void indexMentionsAfterCommit(ChatMessage message) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    mentionTransaction.executeWithoutResult(status -> mentionService.index(message));
+                } catch (RuntimeException e) {
+                    log.warn("Indexing mentions of forwarded message {} failed: {}", message.getId(), e.toString());
+                }
+            }
+        });
+    }
+    private void countUnread(ChatMessage message) {
+        if ("PRIVATE".equalsIgnoreCase(message.getType())) {
+            if (message.getReceiver() != null && !presenceTracker.isChatWindowOpen(message.getReceiver(), message.getSender())) {
+                unreadCounterStore.increment(List.of(message.getReceiver()), message.getSender());
+            }
+            return;
+        }
+        List<String> members;
+        try {
+            members = teamService.getEmployeeIdsByTeamId(message.getGroupId());
+        } catch (EmployeeServiceUnavailableException e) {
+            // Reconciler picks these up once employee-service is back
+            return;
+        }
+        unreadCounterStore.increment(members.stream()
+                .filter(memberId -> !memberId.equals(message.getSender())
+                        && !presenceTracker.isChatWindowOpen(memberId, message.getGroupId()))
+                .toList(), message.getGroupId());
+    }
     private ChatMessageResponse mapToResponse(ChatMessage message) {
         ChatMessageResponse response = new ChatMessageResponse(
                 message.getId(),
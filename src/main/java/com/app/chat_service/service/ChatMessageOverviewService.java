@@ -2,24 +2,23 @@ package com.app.chat_service.service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.app.chat_service.archive.ChatArchiveReader;
+import com.app.chat_service.cache.ChatVisibilityCache;
+import com.app.chat_service.dto.ChatHistoryRow;
 import com.app.chat_service.dto.ChatMessageOverviewDTO;
 import com.app.chat_service.dto.ReplyInfoDTO;
-import com.app.chat_service.model.ChatMessage;
-import com.app.chat_service.model.MessageAction;
 import com.app.chat_service.repo.ChatMessageRepository;
-import com.app.chat_service.repo.MessageActionRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,9 +29,11 @@ import lombok.extern.slf4j.Slf4j;
 public class ChatMessageOverviewService {
 
     private final ChatMessageRepository chatMessageRepository;
-    private final MessageActionRepository messageActionRepository;
     // Injected this service here
     private final ClearedChatService clearedChatService;
+    // Delete-for-me / delete-for-all ids, so a page needs no action lookup
+    private final ChatVisibilityCache visibilityCache;
+    private final ChatArchiveReader archiveReader;
 
     @Transactional(readOnly = true)
     
@@ -42,48 +43,48 @@ public class ChatMessageOverviewService {
     	log.info("Database hit: Getting the data from Database for {} and {}", empId,chatId);
         LocalDateTime clearedAt = clearedChatService.getClearedAt(empId, chatId);
      
-        Page<ChatMessage> messagesPage;
+        // Display columns only: file_size instead of the blob, reply target via LEFT JOIN
+        List<ChatHistoryRow> messages;
         if (isTeamId(chatId)) {
-            messagesPage = chatMessageRepository.findTeamChatMessagesAfter(chatId, clearedAt, pageable);
+            messages = chatMessageRepository.findTeamChatHistoryAfter(chatId, clearedAt, pageable);
         } else {
-            messagesPage = chatMessageRepository.findPrivateChatMessagesAfter(empId, chatId, clearedAt, pageable);
+            messages = chatMessageRepository.findPrivateChatHistoryAfter(empId, chatId, clearedAt, pageable);
+        }
+        if (messages == null) {
+            messages = Collections.emptyList();
+        }
+        if (messages.size() < pageable.getPageSize()) {
+            messages = appendArchived(empId, chatId, clearedAt, pageable, messages);
         }
      
-        if (messagesPage == null || !messagesPage.hasContent()) {
+        if (messages.isEmpty()) {
             return Collections.emptyList();
         }
-     
-        List<ChatMessage> messages = messagesPage.getContent();
 
-        List<Long> messageIds = messages.stream()
-                .map(ChatMessage::getId)
-                .collect(Collectors.toList());
-        List<MessageAction> actions = messageActionRepository
-                .findDeleteActionsForUser(messageIds, empId);
-        Set<Long> hiddenMessageIds = actions.stream()
-                .map(MessageAction::getMessageId)
-                .collect(Collectors.toSet());
+        return toOverview(empId, messages);
+    }
 
+    // Row to DTO mapping, package-private for the JMH benchmarks
+    List<ChatMessageOverviewDTO> toOverview(String empId, List<ChatHistoryRow> messages) {
         DateTimeFormatter timeFmt = DateTimeFormatter.ofPattern("hh:mm a");
         DateTimeFormatter dateFmt = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
         return messages.stream()
-            .filter(msg -> !hiddenMessageIds.contains(msg.getId()))
+            .filter(msg -> !visibilityCache.isHidden(empId, msg.getId()))
             .map(msg -> {
                 boolean isFile = msg.getFileName() != null;
                 ReplyInfoDTO replyInfo = null;
-                if (msg.getReplyToMessage() != null) {
-                    ChatMessage original = msg.getReplyToMessage();
+                if (msg.getReplyToId() != null) {
                     String originalMessageType = "text";
-                    if (original.getFileName() != null && original.getFileType() != null) {
-                        if (original.getFileType().startsWith("image/")) originalMessageType = "image";
-                        else if (original.getFileType().startsWith("audio/")) originalMessageType = "audio";
+                    if (msg.getReplyToFileName() != null && msg.getReplyToFileType() != null) {
+                        if (msg.getReplyToFileType().startsWith("image/")) originalMessageType = "image";
+                        else if (msg.getReplyToFileType().startsWith("audio/")) originalMessageType = "audio";
                         else originalMessageType = "file";
                     }
                     replyInfo = ReplyInfoDTO.builder()
-                        .senderId(original.getSender())
+                        .senderId(msg.getReplyToSender())
                         .content(msg.getReplyPreviewContent())
-                        .originalMessageId(original.getId())
+                        .originalMessageId(msg.getReplyToId())
                         .type(originalMessageType)
                         .build();
                 }
@@ -100,7 +101,7 @@ public class ChatMessageOverviewService {
                     .content(isFile ? msg.getId().toString() : extractActualContent(msg.getContent()))
                     .fileName(msg.getFileName())
                     .fileType(msg.getFileType())
-                    .fileSize(msg.getFileData() != null ? (long) msg.getFileData().length : 0L)
+                    .fileSize(msg.getFileSize() != null ? msg.getFileSize() : 0L)
                     .duration(msg.getDuration())
                     .replyTo(replyInfo)
                     .forwarded(msg.getForwarded())
@@ -110,11 +111,36 @@ public class ChatMessageOverviewService {
             .collect(Collectors.toList());
     }
 
+    // A short live page means the live partitions are exhausted; the rest comes from the archive
+    private List<ChatHistoryRow> appendArchived(String empId, String chatId, LocalDateTime clearedAt,
+                                                Pageable pageable, List<ChatHistoryRow> live) {
+        boolean team = isTeamId(chatId);
+        long offset = pageable.getOffset();
+        long liveTotal;
+        if (!live.isEmpty() || offset == 0) {
+            liveTotal = offset + live.size();
+        } else {
+            liveTotal = team
+                    ? chatMessageRepository.countTeamChatHistoryAfter(chatId, clearedAt)
+                    : chatMessageRepository.countPrivateChatHistoryAfter(empId, chatId, clearedAt);
+        }
+        int skip = (int) Math.max(0, offset - liveTotal);
+        String conversationKey = team ? chatId : MentionService.privateKey(empId, chatId);
+        List<ChatHistoryRow> archived = archiveReader.getHistory(conversationKey, clearedAt, skip,
+                pageable.getPageSize() - live.size());
+        if (archived.isEmpty()) {
+            return live;
+        }
+        List<ChatHistoryRow> page = new ArrayList<>(live);
+        page.addAll(archived);
+        return page;
+    }
+
     private boolean isTeamId(String chatId) {
         return chatId != null && chatId.toUpperCase().startsWith("TEAM");
     }
 
-    private String resolveKind(ChatMessage msg) {
+    private String resolveKind(ChatHistoryRow msg) {
         if (msg.isDeleted()) {
              return "deleted";
         }
@@ -1,5 +1,6 @@
 package com.app.chat_service.service;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.Comparator;
@@ -10,9 +11,13 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -23,9 +28,14 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 import com.app.chat_service.dto.EmployeeTeamResponse;
 import com.app.chat_service.dto.MessageStatusUpdateDTO;
 import com.app.chat_service.dto.TeamResponse;
+import com.app.chat_service.feignclient.EmployeeServiceUnavailableException;
+import com.app.chat_service.feignclient.ResilientEmployeeClient;
+import com.app.chat_service.lane.Lane;
+import com.app.chat_service.lane.SlowConsumerPolicy;
 import com.app.chat_service.model.ChatMessage;
 import com.app.chat_service.model.MessageReadStatus;
 import com.app.chat_service.model.employee_details;
+import com.app.chat_service.redis.UnreadCounterStore;
 import com.app.chat_service.repo.ChatMessageRepository;
 import com.app.chat_service.repo.MessageReadStatusRepository;
 
@@ -46,45 +56,63 @@ public class ChatMessageService {
     private final ChatPresenceTracker chatPresenceTracker;
     private final ClearedChatService clearedChatService;
     private final EmployeeDetailsService employeeDetailsService;
-    private final AllEmployees allEmployees;    
+    private final AllEmployees allEmployees;
+    private final ResilientEmployeeClient employeeClient;
+    private final UnreadCounterService unreadCounterService;
+    private final UnreadCounterStore unreadCounterStore;
+    private final MentionService mentionService;
+    // Proxied self, so the refreshes started from after-commit callbacks still go through @Async
+    @Lazy
+    @Autowired
+    private ChatMessageService self;
     
+    // Pure read, eligible for a read replica: an open chat window is only shown as read here, the
+    // reads themselves are written by openChat and the message processor
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getChattedEmployeesInSameTeam(String employeeId, int page, int size) {
     	
-        // 1. Fetch all groups and create previews
-        List<TeamResponse> teams = Optional.ofNullable(teamService.getTeamsByEmployeeId(employeeId))
-                .orElse(Collections.emptyList());
-        List<Map<String, Object>> groupChats = teams.stream()
-                .map(team -> buildGroupPreview(team, employeeId))
-                .collect(Collectors.toList());
-        log.info("Step 1");
+        // 1. Start the team lookup (employee-service) while the private partners are read from the DB
+        CompletableFuture<List<TeamResponse>> teamsFuture =
+                employeeClient.callAsync(() -> teamService.getTeamsByEmployeeId(employeeId));
      
         // 2. Fetch all unique private chat partners
         Set<String> privateChatIds = new HashSet<>();
         privateChatIds.addAll(chatRepo.findDistinctReceiversBySender(employeeId));
         privateChatIds.addAll(chatRepo.findDistinctSendersByReceiver(employeeId));
         privateChatIds.remove(employeeId);
-     
         log.info("Step 2");
-        // 3. Create previews for all private chats
-        List<Map<String, Object>> privateChats = privateChatIds.stream()
-                .map(otherId -> {
-                    if (otherId == null || otherId.isBlank() || "pin".equalsIgnoreCase(otherId) || "deleteforeveryone".equalsIgnoreCase(otherId) || "edit".equalsIgnoreCase(otherId)) {
-                        return null;
-                    }
-                    employee_details response = allEmployees.getEmployeeById(otherId);
-                    log.info("Employee details{}", response);
-                    if (response == null) return null;
+
+        // Unread badges for every conversation in one HGETALL
+        Map<String, Long> unreadCounts = unreadCounterService.getCounts(employeeId);
+
+        // Group previews need this thread's transaction, so only the remote call runs on the client pool
+        List<TeamResponse> teams = joinTeams(teamsFuture, employeeId);
+        // Last message of every team in one query
+        Set<String> teamIds = teams.stream().map(TeamResponse::getTeamId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<String, LastMessage> lastTeamMessages = teamIds.isEmpty()
+                ? Map.of() : lastMessages(chatRepo.findLatestTeamMessages(teamIds));
+        List<Map<String, Object>> groupChats = teams.stream()
+                .map(team -> buildGroupPreview(team, employeeId, unreadCounts, lastTeamMessages.get(team.getTeamId())))
+                .collect(Collectors.toList());
+        log.info("Step 1");
      
+        // 3. Create previews for all private chats (one batch lookup for every partner)
+        privateChatIds.removeIf(otherId -> otherId == null || otherId.isBlank() || "pin".equalsIgnoreCase(otherId)
+                || "deleteforeveryone".equalsIgnoreCase(otherId) || "edit".equalsIgnoreCase(otherId));
+        Map<String, employee_details> partners = allEmployees.getEmployeesByIds(privateChatIds);
+        Map<String, LastMessage> lastPrivateMessages = partners.isEmpty()
+                ? Map.of() : lastMessages(chatRepo.findLatestPrivateMessages(employeeId, partners.keySet()));
+        List<Map<String, Object>> privateChats = partners.values().stream()
+                .map(response -> {
                     EmployeeTeamResponse emp = new EmployeeTeamResponse();
                     emp.setEmployeeId(response.getEmployeeId());
                     emp.setDisplayName(response.getEmployeeName());
                     emp.setProfilelink(response.getProfileLink());
-                    return buildPrivatePreview(emp, employeeId);
+                    return buildPrivatePreview(emp, employeeId, unreadCounts, lastPrivateMessages.get(response.getEmployeeId()));
                 })
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
-        log.info("Done")
-        ;
+        log.info("Done");
         // 4. Combine both lists into one
         List<Map<String, Object>> allChats = Stream.concat(groupChats.stream(), privateChats.stream())
                 .collect(Collectors.toList());
@@ -109,21 +137,48 @@ public class ChatMessageService {
         return allChats.subList(start, end);
     }
 
-    private Map<String, Object> buildGroupPreview(TeamResponse team, String employeeId) {
-        LocalDateTime clearedAt = clearedChatService.getClearedAt(employeeId, team.getTeamId());
+    // An unavailable employee-service degrades the sidebar to private chats only
+    private List<TeamResponse> joinTeams(CompletableFuture<List<TeamResponse>> teamsFuture, String employeeId) {
+        try {
+            return Optional.ofNullable(teamsFuture.join()).orElse(Collections.emptyList());
+        } catch (CompletionException e) {
+            log.warn("Teams for {} unavailable, showing private chats only: {}", employeeId, e.getCause().toString());
+            return Collections.emptyList();
+        }
+    }
 
-        Optional<ChatMessage> lastMsgOpt = chatRepo.findTopByGroupIdAndTypeAndTimestampAfterOrderByTimestampDesc(
-                team.getTeamId(), "TEAM", clearedAt);
+    /** Newest message of a conversation, from the sidebar's batched lookups */
+    private record LastMessage(String content, String sender, String type, LocalDateTime timestamp) {
+    }
 
-        ChatMessage lastMessage = lastMsgOpt.orElse(null);
+    // Rows: conversation id, content, sender, type, timestamp
+    private static Map<String, LastMessage> lastMessages(List<Object[]> rows) {
+        Map<String, LastMessage> lastMessages = new HashMap<>();
+        for (Object[] row : rows) {
+            Object ts = row[4];
+            LocalDateTime timestamp = ts instanceof Timestamp t ? t.toLocalDateTime() : (LocalDateTime) ts;
+            lastMessages.put((String) row[0], new LastMessage((String) row[1], (String) row[2], (String) row[3], timestamp));
+        }
+        return lastMessages;
+    }
+
+    // The newest message overall is the newest after the clear, if any is
+    private static LastMessage visibleAfter(LastMessage last, LocalDateTime clearedAt) {
+        return last != null && last.timestamp() != null && last.timestamp().isAfter(clearedAt) ? last : null;
+    }
+
+    private Map<String, Object> buildGroupPreview(TeamResponse team, String employeeId, Map<String, Long> unreadCounts,
+                                                  LastMessage newest) {
+        LocalDateTime clearedAt = clearedChatService.getClearedAt(employeeId, team.getTeamId());
+
+        LastMessage lastMessage = visibleAfter(newest, clearedAt);
         
         long unreadCount; 
 
         if (chatPresenceTracker.isChatWindowOpen(employeeId, team.getTeamId())) {
-            markGroupMessagesAsRead(employeeId, team.getTeamId()); // Database lo update cheyadaniki
             unreadCount = 0; 
         } else {
-            unreadCount = chatRepo.countUnreadMessagesForUserInGroup(employeeId, team.getTeamId(), clearedAt);
+            unreadCount = unreadCounts.getOrDefault(team.getTeamId(), 0L);
         }
 
         Map<String, Object> groupChat = new HashMap<>();
@@ -132,10 +187,10 @@ public class ChatMessageService {
         groupChat.put("groupName", team.getTeamName());
 
         if (lastMessage != null) {
-            groupChat.put("lastMessage", lastMessage.getContent());
-            groupChat.put("lastSeen", lastMessage.getTimestamp());
-            groupChat.put("LastMessageSenderId", lastMessage.getSender());
-            groupChat.put("lastMessageType", lastMessage.getType());
+            groupChat.put("lastMessage", lastMessage.content());
+            groupChat.put("lastSeen", lastMessage.timestamp());
+            groupChat.put("LastMessageSenderId", lastMessage.sender());
+            groupChat.put("lastMessageType", lastMessage.type());
         } else {
             groupChat.put("lastMessage", "Chat cleared");
             groupChat.put("lastSeen", clearedAt);
@@ -147,20 +202,15 @@ public class ChatMessageService {
         return groupChat;
     }
 
-    private Map<String, Object> buildPrivatePreview(EmployeeTeamResponse emp, String employeeId) {
+    private Map<String, Object> buildPrivatePreview(EmployeeTeamResponse emp, String employeeId, Map<String, Long> unreadCounts,
+                                                    LastMessage newest) {
         String chatPartnerId = emp.getEmployeeId();
         LocalDateTime clearedAt = clearedChatService.getClearedAt(employeeId, chatPartnerId);
      
-        Optional<ChatMessage> lastMsgOpt = chatRepo.findTopByTypeAndSenderInAndReceiverInAndTimestampAfterOrderByTimestampDesc(
-                "PRIVATE",
-                List.of(employeeId, chatPartnerId),
-                List.of(employeeId, chatPartnerId),
-                clearedAt
-        );
+        LastMessage lastMessage = visibleAfter(newest, clearedAt);
      
-        long unreadCount = chatRepo.countUnreadPrivateMessages(employeeId, chatPartnerId, clearedAt);
+        long unreadCount = unreadCounts.getOrDefault(chatPartnerId, 0L);
         if (chatPresenceTracker.isChatWindowOpen(employeeId, chatPartnerId)) {
-            markMessagesAsRead(employeeId, chatPartnerId);
             unreadCount = 0;
         }
      
@@ -169,12 +219,11 @@ public class ChatMessageService {
         privateChat.put("chatId", chatPartnerId);
         privateChat.put("employeeName", emp.getDisplayName());
      
-        if (lastMsgOpt.isPresent()) {
-            ChatMessage lastMessage = lastMsgOpt.get();
-            privateChat.put("lastMessage", lastMessage.getContent());
-            privateChat.put("lastSeen", lastMessage.getTimestamp());
-            privateChat.put("lastMessageSenderId", lastMessage.getSender());
-            privateChat.put("lastMessageType", lastMessage.getType());  
+        if (lastMessage != null) {
+            privateChat.put("lastMessage", lastMessage.content());
+            privateChat.put("lastSeen", lastMessage.timestamp());
+            privateChat.put("lastMessageSenderId", lastMessage.sender());
+            privateChat.put("lastMessageType", lastMessage.type());  
         } else {
             privateChat.put("lastMessage", "Chat cleared");
             privateChat.put("lastSeen", clearedAt);
@@ -187,14 +236,24 @@ public class ChatMessageService {
     }
 
 
+    @Transactional(readOnly = true)
     public void broadcastChatOverview(String employeeId) {
         log.info("Broadcasting chat overview for user: {}", employeeId);
         List<Map<String, Object>> overview = getChattedEmployeesInSameTeam(employeeId, 0, 15); 
-        messagingTemplate.convertAndSendToUser(employeeId, "/queue/sidebar", overview);
+        messagingTemplate.convertAndSendToUser(employeeId, "/queue/sidebar", overview,
+                SlowConsumerPolicy.coalescing("overview"));
     }
 
 
-    @Async("asyncTaskExecutor")
+    // Best effort, on the sidebar pool so it never holds up a STOMP or delivery thread
+    @Async("sidebarExecutor")
+    @Transactional(readOnly = true)
+    public void refreshChatOverview(String employeeId) {
+        broadcastChatOverview(employeeId);
+    }
+
+    @Async("sidebarExecutor")
+    @Transactional(readOnly = true)
     public void broadcastOverviewAsynchronously(String senderId, String receiverId, String groupId, String type) {
         broadcastChatOverview(senderId);
         
@@ -206,7 +265,13 @@ public class ChatMessageService {
     }
 
     public void broadcastGroupChatOverview(String groupId) {
-        List<String> members = teamService.getEmployeeIdsByTeamId(groupId);
+        List<String> members;
+        try {
+            members = teamService.getEmployeeIdsByTeamId(groupId);
+        } catch (EmployeeServiceUnavailableException e) {
+            log.warn("Team {} members unavailable, skipping overview broadcast: {}", groupId, e.getMessage());
+            return;
+        }
         if (members != null) {
             members.forEach(this::broadcastChatOverview);
         }
@@ -232,43 +297,34 @@ public class ChatMessageService {
                 .messageIds(messageIds)
                 .build();
 
-        messagingTemplate.convertAndSendToUser(chatPartnerId, "/queue/private", statusUpdate);
+        messagingTemplate.convertAndSendToUser(chatPartnerId, "/queue/private", statusUpdate, Lane.RECEIPT.headers());
         log.info("Sent SEEN status update for {} messages to sender {}", messageIds.size(), chatPartnerId);
 
+        mentionService.markSeen(userId, MentionService.privateKey(userId, chatPartnerId));
+
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
                 log.info("Transaction committed for private read status. Broadcasting update to {}", userId);
-                broadcastChatOverview(userId);
+                unreadCounterStore.reset(userId, chatPartnerId);
+                self.refreshChatOverview(userId);
             }
         });
     }
 
     public void markGroupMessagesAsRead(String userId, String groupId) {
-        Set<Long> readMessageIds = readStatusRepo.findReadMessageIdsByUserIdAndGroupId(userId, groupId);
-
-        List<ChatMessage> unreadMessages = chatRepo.findByGroupIdAndType(groupId, "TEAM")
-                .stream()
-                .filter(msg -> !userId.equals(msg.getSender()) && !readMessageIds.contains(msg.getId()))
-                .toList();
-
-        if (!unreadMessages.isEmpty()) {
-            log.info("Marking {} group messages as read for user {} in group {}", unreadMessages.size(), userId, groupId);
-            List<MessageReadStatus> newReadStatuses = unreadMessages.stream()
-                    .map(msg -> MessageReadStatus.builder()
-                            .chatMessage(msg)
-                            .userId(userId)
-                            .readAt(LocalDateTime.now())
-                            .build())
-                    .collect(Collectors.toList());
-            readStatusRepo.saveAll(newReadStatuses);
+        int marked = readStatusRepo.insertMissingForGroup(userId, groupId);
+        if (marked > 0) {
+            log.info("Marked {} group messages as read for user {} in group {}", marked, userId, groupId);
         }
+        mentionService.markSeen(userId, groupId);
 
         TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
             @Override
             public void afterCommit() {
                 log.info("Transaction committed for group read status. Broadcasting update to {}", userId);
-                broadcastChatOverview(userId);
+                unreadCounterStore.reset(userId, groupId);
+                self.refreshChatOverview(userId);
             }
         });
     }
@@ -15,7 +15,7 @@ import com.app.chat_service.dto.ChatMessageRequest;
 import com.app.chat_service.dto.EmployeeDepartmentDTO;
 import com.app.chat_service.dto.EmployeeTeamResponse;
 import com.app.chat_service.dto.TeamResponse;
-import com.app.chat_service.kakfa.KafkaMessageProcessorService;
+import com.app.chat_service.kakfa.MessageDispatcher;
 import com.app.chat_service.model.ChatMessage;
 import com.app.chat_service.repo.ChatMessageRepository;
 
@@ -33,7 +33,7 @@ public class ChatService {
     private SimpMessagingTemplate messagingTemplate;
    
     @Autowired
-    KafkaMessageProcessorService messageProcessor;
+    MessageDispatcher messageDispatcher;
     
     public String sendMessage(ChatMessageRequest request) {
         String type = request.getType() != null ? request.getType().toUpperCase() : "";
@@ -73,7 +73,7 @@ public class ChatService {
             messagingTemplate.convertAndSend("/topic/group/" + groupId, message);
         }
 
-        messageProcessor.processChatMessage(message);
+        messageDispatcher.dispatch(message);
 
         return "Message sent successfully.";
     }
@@ -1,6 +1,8 @@
 package com.app.chat_service.service;
 
+import com.app.chat_service.cache.ChatVisibilityCache;
 import com.app.chat_service.model.ClearedChat;
+import com.app.chat_service.redis.UnreadCounterStore;
 import com.app.chat_service.repo.ClearedChatRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -12,6 +14,9 @@ import java.time.LocalDateTime;
 public class ClearedChatService {
 
     private final ClearedChatRepository clearedChatRepository;
+    private final UnreadCounterStore unreadCounterStore;
+    private final ChatVisibilityCache visibilityCache;
+    private final MentionService mentionService;
 
     public void clearChat(String userId, String chatId) {
         ClearedChat clearedChat = clearedChatRepository
@@ -23,12 +28,15 @@ public class ClearedChatService {
         clearedChat.setClearedAt(LocalDateTime.now());
 
         clearedChatRepository.save(clearedChat);
+        visibilityCache.onChatCleared(userId, chatId, clearedChat.getClearedAt());
+        unreadCounterStore.reset(userId, chatId);
+        // Team ids look like TEAM...; anything else is the private chat partner
+        mentionService.markSeen(userId, chatId.toUpperCase().startsWith("TEAM")
+                ? chatId : MentionService.privateKey(userId, chatId));
     }
 
     public LocalDateTime getClearedAt(String userId, String chatId) {
-        return clearedChatRepository
-                .findByUserIdAndChatId(userId, chatId)
-                .map(ClearedChat::getClearedAt)
-                .orElse(LocalDateTime.of(1970, 1, 1, 0, 0)); // default = show all
+        // Served from the per-user visibility cache; 1970-01-01 = never cleared, show all
+        return visibilityCache.getClearedAt(userId, chatId);
     }
 }
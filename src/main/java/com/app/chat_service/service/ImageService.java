@@ -5,6 +5,8 @@ import java.util.concurrent.CompletableFuture;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.app.chat_service.cache.PresignedUrlCache;
+import com.app.chat_service.cache.PresignedUrlCache.PresignedUrl;
 import com.app.chat_service.model.employee_details;
 import com.app.chat_service.repo.EmployeeDetailsRepository;
 
@@ -18,9 +20,9 @@ public class ImageService {
 	private EmployeeDetailsRepository employeeDetailsRepository;
 	
 	@Autowired
-	private S3Service s3Service;
+	private PresignedUrlCache presignedUrlCache;
 	
-	public CompletableFuture<String> getEmployeeImage(String employeeId) throws Exception {
+	public CompletableFuture<PresignedUrl> getEmployeeImage(String employeeId) throws Exception {
 	    log.info("Fetching image for employeeId={} on thread={}", employeeId, Thread.currentThread().getName());
 	    employee_details employee = employeeDetailsRepository.findById(employeeId)
 	            .orElseThrow(() -> new Exception("Employee Not Found with id: " + employeeId));
@@ -31,7 +33,7 @@ public class ImageService {
 	        throw new Exception("No image uploaded for employee: " + employeeId);
 	    }
 
-	    return CompletableFuture.completedFuture(s3Service.generatePresignedUrl(s3Key));
+	    return CompletableFuture.completedFuture(presignedUrlCache.get(s3Key));
 	}
 	 
 
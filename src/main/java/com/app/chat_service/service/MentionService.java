@@ -0,0 +1,162 @@
+package com.app.chat_service.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.app.chat_service.cache.ChatVisibilityCache;
+import com.app.chat_service.dto.MentionDTO;
+import com.app.chat_service.dto.MentionFeedResponse;
+import com.app.chat_service.feignclient.EmployeeServiceUnavailableException;
+import com.app.chat_service.model.ChatMessage;
+import com.app.chat_service.model.MessageMention;
+import com.app.chat_service.repo.MessageMentionRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the message_mention index in step with message content and serves the
+ * "mentions of me" feed from it, so no query has to LIKE-scan chat history.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MentionService {
+
+    private static final Pattern MENTION = Pattern.compile("@([A-Za-z0-9_-]+)");
+    private static final int MAX_MENTIONS_PER_MESSAGE = 50;
+    private static final int MAX_FEED_PAGE = 100;
+
+    private final MessageMentionRepository mentionRepository;
+    private final TeamService teamService;
+    private final ChatVisibilityCache visibilityCache;
+
+    /** Team id for group chats, "a:b" with the ids sorted for private chats */
+    public static String conversationKey(ChatMessage message) {
+        if ("PRIVATE".equalsIgnoreCase(message.getType())) {
+            return privateKey(message.getSender(), message.getReceiver());
+        }
+        return message.getGroupId();
+    }
+
+    public static String privateKey(String userA, String userB) {
+        return userA.compareTo(userB) <= 0 ? userA + ":" + userB : userB + ":" + userA;
+    }
+
+    /** New message: stores one row per mentioned employee */
+    @Transactional
+    public void index(ChatMessage message) {
+        Set<String> mentioned = mentionedEmployees(message);
+        if (mentioned.isEmpty()) {
+            return;
+        }
+        String key = conversationKey(message);
+        List<MessageMention> rows = new ArrayList<>(mentioned.size());
+        for (String employeeId : mentioned) {
+            rows.add(MessageMention.builder()
+                    .messageId(message.getId())
+                    .employeeId(employeeId)
+                    .conversationKey(key)
+                    .build());
+        }
+        mentionRepository.saveAll(rows);
+        log.debug("Indexed {} mentions for message {}", rows.size(), message.getId());
+    }
+
+    /** Edited message: mentions are rebuilt from the new content */
+    @Transactional
+    public void reindex(ChatMessage message) {
+        mentionRepository.deleteByMessageId(message.getId());
+        mentionRepository.flush();
+        index(message);
+    }
+
+    @Transactional
+    public void remove(Long messageId) {
+        mentionRepository.deleteByMessageId(messageId);
+    }
+
+    @Transactional
+    public void markSeen(String employeeId, String conversationKey) {
+        if (employeeId == null || conversationKey == null) {
+            return;
+        }
+        mentionRepository.markSeen(employeeId, conversationKey);
+    }
+
+    /**
+     * Newest mentions first, {@code size} at a time. {@code before} is the message id the previous
+     * page ended at (null for the first page); each page is one index range scan.
+     */
+    @Transactional(readOnly = true)
+    public MentionFeedResponse getFeed(String employeeId, Long before, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_FEED_PAGE));
+        List<MentionDTO> rows = mentionRepository.findFeed(employeeId,
+                before != null ? before : Long.MAX_VALUE, PageRequest.of(0, pageSize));
+
+        List<MentionDTO> visible = rows.stream()
+                .filter(row -> isVisible(employeeId, row))
+                .toList();
+        Long nextBefore = rows.size() == pageSize ? rows.get(rows.size() - 1).getMessageId() : null;
+        return new MentionFeedResponse(visible, nextBefore);
+    }
+
+    /** Unseen mentions per conversation key; conversations without any are left out */
+    @Transactional(readOnly = true)
+    public Map<String, Long> getUnreadCounts(String employeeId) {
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : mentionRepository.countUnseenByConversation(employeeId)) {
+            counts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    // Deleted-for-me and cleared messages stay out of the feed, same as in chat history
+    private boolean isVisible(String employeeId, MentionDTO row) {
+        if (visibilityCache.isHidden(employeeId, row.getMessageId())) {
+            return false;
+        }
+        String chatId = "PRIVATE".equalsIgnoreCase(row.getType()) ? row.getSender() : row.getGroupId();
+        return row.getTimestamp() == null
+                || row.getTimestamp().isAfter(visibilityCache.getClearedAt(employeeId, chatId));
+    }
+
+    // Only people who can see the conversation count as mentioned; the sender never does
+    private Set<String> mentionedEmployees(ChatMessage message) {
+        // File and voice messages carry the file name as content, never mentions
+        if (message.getId() == null || message.getFileName() != null
+                || message.getContent() == null || message.getContent().indexOf('@') < 0) {
+            return Set.of();
+        }
+        Set<String> candidates = new LinkedHashSet<>();
+        Matcher matcher = MENTION.matcher(message.getContent());
+        while (matcher.find() && candidates.size() < MAX_MENTIONS_PER_MESSAGE) {
+            candidates.add(matcher.group(1));
+        }
+        candidates.remove(message.getSender());
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+
+        if ("PRIVATE".equalsIgnoreCase(message.getType())) {
+            return candidates.contains(message.getReceiver()) ? Set.of(message.getReceiver()) : Set.of();
+        }
+        try {
+            candidates.retainAll(Set.copyOf(teamService.getEmployeeIdsByTeamId(message.getGroupId())));
+        } catch (EmployeeServiceUnavailableException e) {
+            // Unknown ids are harmless: nobody ever queries the feed for them
+            log.warn("Team {} members unavailable, indexing mentions unchecked: {}", message.getGroupId(), e.getMessage());
+        }
+        return candidates;
+    }
+}
@@ -1,5 +1,6 @@
 package com.app.chat_service.service;
  
+import com.app.chat_service.cache.ChatVisibilityCache;
 import com.app.chat_service.dto.DeleteNotificationDTO;
 import com.app.chat_service.model.ChatMessage;
 import com.app.chat_service.model.MessageAction;
@@ -21,6 +22,8 @@ public class MessageDeleteService {
  
     private final ChatMessageRepository chatMessageRepository;
     private final MessageActionRepository messageActionRepository;
+    private final ChatVisibilityCache visibilityCache;
+    private final MentionService mentionService;
     // private final ChatKafkaProducer chatKafkaProducer; // We will bypass Kafka for direct notification
    
     // *** BUG FIX: Injected SimpMessagingTemplate for direct WebSocket communication ***
@@ -40,6 +43,7 @@ public class MessageDeleteService {
                 .build();
  
         messageActionRepository.save(action);
+        visibilityCache.onDeletedForMe(userId, messageId);
         log.info("✅ Recorded 'DELETE_FOR_ME' action for message ID {} by user {}", messageId, userId);
     }
  
@@ -68,6 +72,7 @@ public class MessageDeleteService {
         message.setFileSize(null);
         message.setFileData(null);
         chatMessageRepository.save(message);
+        mentionService.remove(messageId);
         log.info("✅ Soft deleted message ID: {}", messageId);
  
         // 2. Create a notification payload for the frontend
@@ -0,0 +1,145 @@
+package com.app.chat_service.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.HtmlUtils;
+
+import com.app.chat_service.cache.ChatVisibilityCache;
+import com.app.chat_service.config.MessageSearchSchema;
+import com.app.chat_service.dto.MessageSearchResponse;
+import com.app.chat_service.dto.MessageSearchResult;
+import com.app.chat_service.dto.TeamResponse;
+import com.app.chat_service.feignclient.EmployeeServiceUnavailableException;
+import com.app.chat_service.repo.ChatMessageRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Message search for one user: Postgres full-text match limited to the user's private chats
+ * and teams, then the same cleared-chat and delete-for-me rules as chat history.
+ */
+@Slf4j
+@Service
+public class MessageSearchService {
+
+    // Control characters as match markers: they cannot come from user text, so escaping
+    // the snippet first and swapping them for <mark> afterwards is safe
+    private static final String START = "\u0002";
+    private static final String STOP = "\u0003";
+    private static final String HEADLINE_OPTIONS =
+            "StartSel=" + START + ", StopSel=" + STOP + ", MaxWords=25, MinWords=8, MaxFragments=2";
+    private static final int MAX_PAGE = 50;
+    // Hidden rows can leave a page short; fetch again at most this many times
+    private static final int MAX_ROUNDS = 3;
+
+    private final ChatMessageRepository chatRepo;
+    private final TeamService teamService;
+    private final ChatVisibilityCache visibilityCache;
+    private final String textSearchConfig;
+    private final int maxQueryLength;
+
+    public MessageSearchService(ChatMessageRepository chatRepo,
+                                TeamService teamService,
+                                ChatVisibilityCache visibilityCache,
+                                MessageSearchSchema searchSchema,
+                                @Value("${chat.search.max-query-length}") int maxQueryLength) {
+        this.chatRepo = chatRepo;
+        this.teamService = teamService;
+        this.visibilityCache = visibilityCache;
+        this.textSearchConfig = searchSchema.getTextSearchConfig();
+        this.maxQueryLength = maxQueryLength;
+    }
+
+    /**
+     * Newest matches first. {@code chatId} (partner or team id) narrows the search to one
+     * conversation; {@code before} is the nextBefore of the previous page.
+     */
+    @Transactional(readOnly = true)
+    public MessageSearchResponse search(String employeeId, String query, String chatId, Long before, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Search query must not be empty");
+        }
+        String text = query.length() > maxQueryLength ? query.substring(0, maxQueryLength) : query;
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE));
+        List<String> teamIds = teamIdsOf(employeeId);
+
+        List<MessageSearchResult> results = new ArrayList<>(pageSize);
+        long cursor = before != null ? before : Long.MAX_VALUE;
+        boolean exhausted = false;
+        for (int round = 0; round < MAX_ROUNDS && results.size() < pageSize && !exhausted; round++) {
+            int wanted = pageSize - results.size();
+            List<Object[]> rows = chatRepo.searchMessages(textSearchConfig, text, HEADLINE_OPTIONS,
+                    employeeId, teamIds, chatId, cursor, wanted);
+            for (Object[] row : rows) {
+                cursor = ((Number) row[0]).longValue();
+                MessageSearchResult hit = toResult(employeeId, row);
+                if (isVisible(employeeId, hit)) {
+                    results.add(hit);
+                }
+            }
+            exhausted = rows.size() < wanted;
+        }
+        return new MessageSearchResponse(results, exhausted ? null : cursor);
+    }
+
+    private List<String> teamIdsOf(String employeeId) {
+        try {
+            List<String> ids = teamService.getTeamsByEmployeeId(employeeId).stream()
+                    .map(TeamResponse::getTeamId)
+                    .toList();
+            // IN () is not valid SQL; a value no team has keeps the clause well-formed
+            return ids.isEmpty() ? List.of("") : ids;
+        } catch (EmployeeServiceUnavailableException e) {
+            log.warn("Teams for {} unavailable, searching private chats only: {}", employeeId, e.getMessage());
+            return List.of("");
+        }
+    }
+
+    private MessageSearchResult toResult(String employeeId, Object[] row) {
+        String sender = (String) row[1];
+        String receiver = (String) row[2];
+        String groupId = (String) row[3];
+        String type = (String) row[4];
+        String chatId = "PRIVATE".equals(type)
+                ? (employeeId.equals(sender) ? receiver : sender)
+                : groupId;
+        return MessageSearchResult.builder()
+                .messageId(((Number) row[0]).longValue())
+                .chatId(chatId)
+                .sender(sender)
+                .type(type)
+                .timestamp(toLocalDateTime(row[5]))
+                .snippet(highlight((String) row[6]))
+                .build();
+    }
+
+    private boolean isVisible(String employeeId, MessageSearchResult hit) {
+        if (visibilityCache.isHidden(employeeId, hit.getMessageId())) {
+            return false;
+        }
+        return hit.getTimestamp() == null
+                || hit.getTimestamp().isAfter(visibilityCache.getClearedAt(employeeId, hit.getChatId()));
+    }
+
+    private static String highlight(String headline) {
+        if (headline == null) {
+            return "";
+        }
+        return HtmlUtils.htmlEscape(headline)
+                .replace(START, "<mark>")
+                .replace(STOP, "</mark>");
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp ts) {
+            return ts.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
@@ -1,46 +1,40 @@
 package com.app.chat_service.service;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
+// Who is connected to this pod; contacts are told about changes by PresenceService
 @Service
-@RequiredArgsConstructor
 public class OnlineUserService {
 
-    private final SimpMessagingTemplate messagingTemplate;
-
     /** userId -> active session IDs */
     private final Map<String, Set<String>> userSessions = new ConcurrentHashMap<>();
 
-    /** Add session for a user */
-    public void addUser(String userId, String sessionId) {
+    /** Add session for a user; true when it is their first active session */
+    public boolean addUser(String userId, String sessionId) {
+        boolean[] first = {false};
         userSessions.compute(userId, (id, sessions) -> {
             if (sessions == null) {
                 sessions = ConcurrentHashMap.newKeySet();
+                first[0] = true;
             }
             sessions.add(sessionId);
             return sessions;
         });
-        // Only broadcast online when this is their first active session
-        if (userSessions.get(userId).size() == 1) {
-            broadcastPresence(userId, true);
-        }
+        return first[0];
     }
 
-    /** Remove session for a user */
-    public void removeUser(String userId, String sessionId) {
-        Set<String> sessions = userSessions.get(userId);
-        if (sessions != null) {
+    /** Remove session for a user; true when it was their last one */
+    public boolean removeUser(String userId, String sessionId) {
+        boolean[] last = {false};
+        userSessions.computeIfPresent(userId, (id, sessions) -> {
             sessions.remove(sessionId);
-            if (sessions.isEmpty()) {
-                userSessions.remove(userId);
-                broadcastPresence(userId, false);
-            }
-        }
+            last[0] = sessions.isEmpty();
+            return last[0] ? null : sessions;
+        });
+        return last[0];
     }
 
     /** Check if user has at least one active session */
@@ -53,14 +47,8 @@ public class OnlineUserService {
         return Collections.unmodifiableSet(userSessions.keySet());
     }
 
-    /** Send WebSocket presence update */
-    private void broadcastPresence(String userId, boolean isOnline) {
-        messagingTemplate.convertAndSend(
-            "/topic/presence",
-            new PresenceUpdate(userId, isOnline)
-        );
+    /** Open sessions across all users */
+    public int getSessionCount() {
+        return userSessions.values().stream().mapToInt(Set::size).sum();
     }
-
-    /** Inner DTO for WebSocket presence updates */
-    public record PresenceUpdate(String userId, boolean online) { }
 }
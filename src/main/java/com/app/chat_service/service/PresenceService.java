@@ -0,0 +1,230 @@
+package com.app.chat_service.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.app.chat_service.dto.EmployeeTeamResponse;
+import com.app.chat_service.dto.PresenceDiffDTO;
+import com.app.chat_service.dto.TeamResponse;
+import com.app.chat_service.feignclient.EmployeeServiceUnavailableException;
+import com.app.chat_service.feignclient.ResilientEmployeeClient;
+import com.app.chat_service.repo.ChatMessageRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Presence for the people a user can see: their private chat partners and the members of their
+ * teams. While a user is online this pod keeps who they watch; a contact's connects and
+ * disconnects are collected and sent every {@code chat.presence.interval} as one
+ * {@link PresenceDiffDTO} per watching user on {@code /user/queue/presence}. Clients load the
+ * starting state from {@link #snapshot(String)}, which also refreshes what they watch (new chat
+ * partners, team changes); a diff dropped for a slow client is repaired by the next snapshot.
+ * Contacts that cannot be loaded on connect (employee-service down) are loaded again on the next
+ * flush until they are, so a user is not left watching their chat partners only.
+ * <p>
+ * Meters: {@code chat.presence.changes} collected, {@code chat.presence.frames} sent and
+ * {@code chat.presence.contacts.failed} loads to retry.
+ */
+@Slf4j
+@Service
+public class PresenceService {
+
+    private final OnlineUserService onlineUserService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatMessageRepository chatRepo;
+    private final TeamService teamService;
+    private final ResilientEmployeeClient employeeClient;
+    private final Executor presenceExecutor;
+
+    // Watched user -> online users who have them as a contact, and the reverse for cleanup
+    private final ConcurrentMap<String, Set<String>> watchers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<String>> watching = new ConcurrentHashMap<>();
+    // User -> online (true) or offline (false) since the last flush; the last change wins
+    private final ConcurrentMap<String, Boolean> changes = new ConcurrentHashMap<>();
+    // Online users whose contacts failed to load
+    private final Set<String> contactsToRetry = ConcurrentHashMap.newKeySet();
+
+    private final Counter changeCount;
+    private final Counter frames;
+    private final Counter contactFailures;
+
+    public PresenceService(OnlineUserService onlineUserService,
+                           SimpMessagingTemplate messagingTemplate,
+                           ChatMessageRepository chatRepo,
+                           TeamService teamService,
+                           ResilientEmployeeClient employeeClient,
+                           @Qualifier("presenceExecutor") Executor presenceExecutor,
+                           MeterRegistry meterRegistry) {
+        this.onlineUserService = onlineUserService;
+        this.messagingTemplate = messagingTemplate;
+        this.chatRepo = chatRepo;
+        this.teamService = teamService;
+        this.employeeClient = employeeClient;
+        this.presenceExecutor = presenceExecutor;
+        this.changeCount = Counter.builder("chat.presence.changes")
+                .description("Users coming online or going offline on this pod")
+                .register(meterRegistry);
+        this.frames = Counter.builder("chat.presence.frames")
+                .description("Presence diff frames sent, one per watching user and interval")
+                .register(meterRegistry);
+        this.contactFailures = Counter.builder("chat.presence.contacts.failed")
+                .description("Contact loads for a connecting user that failed and are retried on the next flush")
+                .register(meterRegistry);
+    }
+
+    /** First session of a user opened: tell their contacts, and start watching theirs (off the STOMP thread) */
+    public void online(String userId) {
+        changed(userId, true);
+        presenceExecutor.execute(() -> loadContacts(userId));
+    }
+
+    /** Last session of a user closed */
+    public void offline(String userId) {
+        changed(userId, false);
+        contactsToRetry.remove(userId);
+        unwatch(userId);
+    }
+
+    /**
+     * Whether each contact of the user is online; refreshes the contacts whose changes they are sent.
+     * Throws {@link EmployeeServiceUnavailableException} (503) when their teams cannot be loaded.
+     */
+    public Map<String, Boolean> snapshot(String employeeId) {
+        Set<String> contacts = contacts(employeeId);
+        if (onlineUserService.isOnline(employeeId)) {
+            watch(employeeId, contacts);
+            contactsToRetry.remove(employeeId);
+        }
+        return onlineStatus(contacts);
+    }
+
+    /** Whether each of the given users is online */
+    public Map<String, Boolean> onlineStatus(Collection<String> userIds) {
+        Map<String, Boolean> status = new TreeMap<>();
+        for (String userId : userIds) {
+            status.put(userId, onlineUserService.isOnline(userId));
+        }
+        return status;
+    }
+
+    /** Sends the collected changes, one diff per watching user, and retries failed contact loads */
+    @Scheduled(fixedDelayString = "${chat.presence.interval}")
+    public void flush() {
+        for (String userId : contactsToRetry) {
+            if (contactsToRetry.remove(userId) && onlineUserService.isOnline(userId)) {
+                presenceExecutor.execute(() -> loadContacts(userId));
+            }
+        }
+        Map<String, PresenceDiffDTO> diffs = new HashMap<>();
+        for (String userId : changes.keySet()) {
+            Boolean online = changes.remove(userId);
+            if (online == null) {
+                continue;
+            }
+            for (String watcher : watchers.getOrDefault(userId, Set.of())) {
+                PresenceDiffDTO diff = diffs.computeIfAbsent(watcher,
+                        key -> new PresenceDiffDTO(new ArrayList<>(), new ArrayList<>()));
+                (online ? diff.getOnline() : diff.getOffline()).add(userId);
+            }
+        }
+        diffs.forEach((watcher, diff) -> {
+            messagingTemplate.convertAndSendToUser(watcher, "/queue/presence", diff);
+            frames.increment();
+        });
+    }
+
+    private void loadContacts(String userId) {
+        try {
+            watch(userId, contacts(userId));
+        } catch (RuntimeException e) {
+            contactFailures.increment();
+            contactsToRetry.add(userId);
+            log.warn("Presence contacts for {} unavailable, retrying on the next flush: {}", userId, e.toString());
+        }
+    }
+
+    private void changed(String userId, boolean online) {
+        changes.put(userId, online);
+        changeCount.increment();
+    }
+
+    // Private chat partners and team members, without the user themself; fails rather than leaving
+    // out the team members when their teams cannot be loaded
+    Set<String> contacts(String employeeId) {
+        Set<String> contacts = new HashSet<>();
+        contacts.addAll(chatRepo.findDistinctReceiversBySender(employeeId));
+        contacts.addAll(chatRepo.findDistinctSendersByReceiver(employeeId));
+        List<TeamResponse> teams;
+        try {
+            teams = employeeClient.callAsync(() -> teamService.getTeamsByEmployeeId(employeeId)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof EmployeeServiceUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw new EmployeeServiceUnavailableException("teams for " + employeeId + " unavailable", e.getCause());
+        }
+        for (TeamResponse team : teams != null ? teams : List.<TeamResponse>of()) {
+            for (EmployeeTeamResponse member : team.getEmployees() != null ? team.getEmployees() : List.<EmployeeTeamResponse>of()) {
+                contacts.add(member.getEmployeeId());
+            }
+        }
+        contacts.remove(employeeId);
+        contacts.removeIf(id -> id == null || id.isBlank() || "pin".equalsIgnoreCase(id)
+                || "deleteforeveryone".equalsIgnoreCase(id) || "edit".equalsIgnoreCase(id));
+        return contacts;
+    }
+
+    void watch(String watcher, Set<String> contacts) {
+        Set<String> previous = watching.put(watcher, Set.copyOf(contacts));
+        if (previous != null) {
+            for (String contact : previous) {
+                if (!contacts.contains(contact)) {
+                    stopWatching(watcher, contact);
+                }
+            }
+        }
+        for (String contact : contacts) {
+            // compute, not computeIfAbsent().add(): stopWatching may drop the set in between
+            watchers.compute(contact, (key, users) -> {
+                Set<String> watchedBy = users != null ? users : ConcurrentHashMap.newKeySet();
+                watchedBy.add(watcher);
+                return watchedBy;
+            });
+        }
+        // Went offline while the contacts were loading
+        if (!onlineUserService.isOnline(watcher)) {
+            unwatch(watcher);
+        }
+    }
+
+    private void unwatch(String watcher) {
+        Set<String> previous = watching.remove(watcher);
+        if (previous != null) {
+            previous.forEach(contact -> stopWatching(watcher, contact));
+        }
+    }
+
+    private void stopWatching(String watcher, String contact) {
+        watchers.computeIfPresent(contact, (key, users) -> {
+            users.remove(watcher);
+            return users.isEmpty() ? null : users;
+        });
+    }
+}
@@ -2,13 +2,21 @@ package com.app.chat_service.service;
 
 
 import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 
@@ -25,14 +33,15 @@ public class S3Service  {
     @Autowired
     private S3Presigner s3Presigner;
 
-    public String generatePresignedUrl(String key) {
+    // Callers should go through PresignedUrlCache so the same URL is reused for its whole lifetime
+    public String generatePresignedUrl(String key, Duration signatureDuration) {
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                 .bucket(bucketName)
                 .key(key)
                 .build();
 
         GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                .signatureDuration(Duration.ofHours(24))
+                .signatureDuration(signatureDuration)
                 .getObjectRequest(getObjectRequest)
                 .build();
 
@@ -41,6 +50,44 @@ public class S3Service  {
                 .toString();
     }
 
+    /** Stores bytes under the key; storageClass is an S3 storage class name such as STANDARD_IA */
+    public void putObject(String key, byte[] bytes, String contentType, Map<String, String> metadata, String storageClass) {
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .metadata(metadata)
+                .storageClass(storageClass)
+                .build();
+        s3Client.putObject(request, RequestBody.fromBytes(bytes));
+    }
+
+    /** The object, or empty when the key does not exist */
+    public Optional<StoredObject> getObject(String key) {
+        GetObjectRequest request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build();
+        try {
+            ResponseBytes<GetObjectResponse> response = s3Client.getObjectAsBytes(request);
+            return Optional.of(new StoredObject(response.asByteArray(),
+                    response.response().contentType(),
+                    response.response().metadata()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** Deletes the key; deleting a missing key is not an error */
+    public void deleteObject(String key) {
+        s3Client.deleteObject(DeleteObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .build());
+    }
+
+    public record StoredObject(byte[] bytes, String contentType, Map<String, String> metadata) { }
+
   
    
 
@@ -10,12 +10,14 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import com.app.chat_service.dto.GroupChatDetailsResponse;
 import com.app.chat_service.dto.TeamResponse;
-import com.app.chat_service.feignclient.EmployeeClient;
+import com.app.chat_service.feignclient.EmployeeServiceUnavailableException;
+import com.app.chat_service.feignclient.ResilientEmployeeClient;
 import com.app.chat_service.repo.ChatMessageRepository;
 
 import lombok.extern.slf4j.Slf4j;
@@ -25,65 +27,47 @@ import lombok.extern.slf4j.Slf4j;
 public class TeamService {
 
     @Autowired
-    private EmployeeClient employeeClient;
+    private ResilientEmployeeClient employeeClient;
 
     @Autowired
     private ChatMessageRepository chatMessageRepository;
 
+    // employeeClient falls back to the last known good response and otherwise throws
+    // EmployeeServiceUnavailableException, so an outage is never cached as an empty team.
+
     /** Check if a given team exists */
-    @Cacheable(value = "teamExists", key = "#teamId")
+    @Cacheable(value = "teamExists", key = "#teamId", sync = true)
     public boolean existsByTeamId(String teamId) {
-        try {
-            ResponseEntity<List<TeamResponse>> response = employeeClient.getTeamById(teamId);
-            return response.getStatusCode().is2xxSuccessful() && response.getBody() != null && !response.getBody().isEmpty();
-        } catch (Exception e) {
-            return false;
-        }
+        return !employeeClient.getTeamById(teamId).isEmpty();
     }
 
     /** Get all teams where an employee belongs */
-    @Cacheable(value = "employeeTeams", key = "#employeeId")
+    @Cacheable(value = "employeeTeams", key = "#employeeId", sync = true)
     
     public List<TeamResponse> getTeamsByEmployeeId(String employeeId) {
-        try {
-            ResponseEntity<List<TeamResponse>> response = employeeClient.getTeamAllEmployees(employeeId);
-            log.info("got teams {}",response);
-            return response.getBody() != null ? response.getBody() : Collections.emptyList();
-        } catch (Exception e) {
-            return Collections.emptyList();
-        }
+        List<TeamResponse> teams = employeeClient.getTeamsByEmployeeId(employeeId);
+        log.info("got {} teams for {}", teams.size(), employeeId);
+        return teams;
     }
 
 
     /** Get team details by teamId */
-    @Cacheable(value = "teamDetails", key = "#teamId")
+    @Cacheable(value = "teamDetails", key = "#teamId", sync = true)
     public TeamResponse getGroupById(String teamId) {
-        try {
-            ResponseEntity<List<TeamResponse>> response = employeeClient.getTeamById(teamId);
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null && !response.getBody().isEmpty()) {
-                return response.getBody().get(0);
-            }
-        } catch (Exception e) {
-            // log error
-        }
-        return null;
+        List<TeamResponse> teams = employeeClient.getTeamById(teamId);
+        return teams.isEmpty() ? null : teams.get(0);
     }
 
     /** Get all members of a group */
-    @Cacheable(value = "groupMembers", key = "#teamId")
+    @Cacheable(value = "groupMembers", key = "#teamId", sync = true)
     public List<TeamResponse> getGroupMembers(String teamId) {
-        try {
-            ResponseEntity<List<TeamResponse>> response = employeeClient.getTeamById(teamId);
-            log.info("fetched emplyeess by Team id {}",response);
-            return response.getBody() != null ? response.getBody() : Collections.emptyList();
-        } catch (Exception e) {
-        	log.info("exception occured while fetching the members");
-            return Collections.emptyList();
-        }
+        List<TeamResponse> teams = employeeClient.getTeamById(teamId);
+        log.info("fetched employees by Team id {}", teamId);
+        return teams;
     }
 
     /** Get just the employee IDs of a given team */
-    @Cacheable(value = "teamMembers", key = "#teamId")
+    @Cacheable(value = "teamMembers", key = "#teamId", sync = true)
     public List<String> getEmployeeIdsByTeamId(String teamId) {
         List<TeamResponse> teams = getGroupMembers(teamId);
         if (teams.isEmpty()) {
@@ -98,16 +82,10 @@ public class TeamService {
     
     public ResponseEntity<List<TeamResponse>> ByEmpId(String employeeId) {
         try {
-            // Call Feign client directly
-            ResponseEntity<List<TeamResponse>> response = employeeClient.getTeamAllEmployees(employeeId);
-            if (response.getStatusCode().is2xxSuccessful()) {
-                return ResponseEntity.ok(response.getBody() != null ? response.getBody() : Collections.emptyList());
-            } else {
-                return ResponseEntity.status(response.getStatusCode()).body(Collections.emptyList());
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body(Collections.emptyList());
+            return ResponseEntity.ok(employeeClient.getTeamsByEmployeeId(employeeId));
+        } catch (EmployeeServiceUnavailableException e) {
+            log.warn("Teams for {} unavailable: {}", employeeId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Collections.emptyList());
         }
     }
     
@@ -0,0 +1,185 @@
+package com.app.chat_service.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.app.chat_service.dto.GroupTypingStatusDTO;
+import com.app.chat_service.dto.TypingStatusDTO;
+import com.app.chat_service.lane.SlowConsumerPolicy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Turns per-keystroke typing events into at most one frame per chat and {@code chat.typing.interval}.
+ * A chat's frame goes out when the set of people typing in it changes: right away if the previous
+ * one is at least an interval old, otherwise on the next flush. Someone whose last "typing" event is
+ * older than {@code chat.typing.ttl} counts as stopped, so a closed tab does not type for ever.
+ * <ul>
+ * <li>private chats - the sender's {@link TypingStatusDTO} on the receiver's {@code /queue/typing-status}</li>
+ * <li>team and department chats - one {@link GroupTypingStatusDTO} listing everyone typing, on
+ * {@code /topic/typing-status/{groupId}}</li>
+ * </ul>
+ * Meters: {@code chat.typing.events} received and {@code chat.typing.frames} sent, tagged {@code chat}.
+ */
+@Service
+public class TypingAggregator {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long intervalNanos;
+    private final long ttlNanos;
+    // sender|receiver -> private chat, group id -> team or department chat
+    private final ConcurrentMap<String, ChatTyping> privateChats = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ChatTyping> groupChats = new ConcurrentHashMap<>();
+
+    private final Counter events;
+    private final Counter privateFrames;
+    private final Counter groupFrames;
+
+    public TypingAggregator(SimpMessagingTemplate messagingTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${chat.typing.interval}") Duration interval,
+                            @Value("${chat.typing.ttl}") Duration ttl) {
+        this.messagingTemplate = messagingTemplate;
+        this.intervalNanos = interval.toNanos();
+        this.ttlNanos = ttl.toNanos();
+        this.events = Counter.builder("chat.typing.events")
+                .description("Typing events received from clients")
+                .register(meterRegistry);
+        this.privateFrames = frames("private", meterRegistry);
+        this.groupFrames = frames("group", meterRegistry);
+    }
+
+    private static Counter frames(String chat, MeterRegistry meterRegistry) {
+        return Counter.builder("chat.typing.frames")
+                .description("Typing frames sent to clients after aggregation")
+                .tag("chat", chat)
+                .register(meterRegistry);
+    }
+
+    public void typing(TypingStatusDTO event) {
+        record(event, System.nanoTime());
+    }
+
+    /** Sends the changes held back by the interval and stops senders whose ttl has run out */
+    @Scheduled(fixedDelayString = "${chat.typing.interval}")
+    public void flush() {
+        flush(System.nanoTime());
+    }
+
+    void record(TypingStatusDTO event, long now) {
+        events.increment();
+        String sender = event.getSenderId();
+        if (sender == null) {
+            return;
+        }
+        ConcurrentMap<String, ChatTyping> chats;
+        String key;
+        if ("PRIVATE".equalsIgnoreCase(event.getType()) && event.getReceiverId() != null) {
+            chats = privateChats;
+            key = sender + "|" + event.getReceiverId();
+        } else if (("TEAM".equalsIgnoreCase(event.getType()) || "DEPARTMENT".equalsIgnoreCase(event.getType()))
+                && event.getGroupId() != null) {
+            chats = groupChats;
+            key = event.getGroupId();
+        } else {
+            return;
+        }
+
+        AtomicReference<Set<String>> frame = new AtomicReference<>();
+        ChatTyping chat = chats.compute(key, (k, existing) -> {
+            ChatTyping state = existing != null ? existing : new ChatTyping(event, now - intervalNanos);
+            if (event.isTyping()) {
+                state.typers.put(sender, now + ttlNanos);
+            } else {
+                state.typers.remove(sender);
+            }
+            frame.set(state.due(now));
+            return state;
+        });
+        send(chat, frame.get());
+    }
+
+    void flush(long now) {
+        flush(privateChats, now);
+        flush(groupChats, now);
+    }
+
+    private void flush(ConcurrentMap<String, ChatTyping> chats, long now) {
+        for (String key : chats.keySet()) {
+            AtomicReference<Set<String>> frame = new AtomicReference<>();
+            AtomicReference<ChatTyping> flushed = new AtomicReference<>();
+            chats.computeIfPresent(key, (k, state) -> {
+                state.typers.values().removeIf(expiresAt -> expiresAt - now <= 0);
+                frame.set(state.due(now));
+                flushed.set(state);
+                // Kept for one more interval once idle, so a restart right after a stop still waits its turn
+                return state.idle(now) ? null : state;
+            });
+            send(flushed.get(), frame.get());
+        }
+    }
+
+    private void send(ChatTyping chat, Set<String> typing) {
+        if (chat == null || typing == null) {
+            return;
+        }
+        if (chat.group) {
+            List<String> typingIds = typing.stream().sorted().toList();
+            messagingTemplate.convertAndSend("/topic/typing-status/" + chat.chatId,
+                    new GroupTypingStatusDTO(chat.chatId, chat.type, typingIds),
+                    SlowConsumerPolicy.coalescing("typing"));
+            groupFrames.increment();
+        } else {
+            messagingTemplate.convertAndSendToUser(chat.chatId, "/queue/typing-status",
+                    new TypingStatusDTO(chat.senderId, chat.chatId, null, chat.type, !typing.isEmpty()),
+                    SlowConsumerPolicy.coalescing(chat.senderId));
+            privateFrames.increment();
+        }
+    }
+
+    // Guarded by the map entry it lives in: only touched inside compute/computeIfPresent
+    private final class ChatTyping {
+
+        private final boolean group;
+        private final String type;
+        private final String senderId; // private chats only
+        private final String chatId;   // receiver or group id
+        private final Map<String, Long> typers = new HashMap<>(); // sender -> nanoTime the typing state expires
+        private Set<String> reported = Set.of();
+        private long reportedAt;
+
+        private ChatTyping(TypingStatusDTO first, long reportedAt) {
+            this.group = !"PRIVATE".equalsIgnoreCase(first.getType());
+            this.type = first.getType().toUpperCase();
+            this.senderId = group ? null : first.getSenderId();
+            this.chatId = group ? first.getGroupId() : first.getReceiverId();
+            this.reportedAt = reportedAt;
+        }
+
+        // The typers to send now, or null if nothing changed or the last frame is too recent
+        private Set<String> due(long now) {
+            if (typers.keySet().equals(reported) || now - reportedAt < intervalNanos) {
+                return null;
+            }
+            reported = Set.copyOf(typers.keySet());
+            reportedAt = now;
+            return reported;
+        }
+
+        private boolean idle(long now) {
+            return typers.isEmpty() && reported.isEmpty() && now - reportedAt >= intervalNanos;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.app.chat_service.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.app.chat_service.dto.TeamResponse;
+import com.app.chat_service.feignclient.EmployeeServiceUnavailableException;
+import com.app.chat_service.redis.UnreadCounterStore;
+import com.app.chat_service.repo.ChatMessageRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read side of the Redis unread counters: seeds a user's hash from Postgres on first use
+ * and periodically repairs drift (missed increments, deleted messages, failed Redis calls).
+ */
+@Slf4j
+@Service
+public class UnreadCounterService {
+
+    private static final String RECONCILE_LOCK = "unread:reconcile:lock";
+
+    private final UnreadCounterStore store;
+    private final ChatMessageRepository chatRepo;
+    private final ClearedChatService clearedChatService;
+    private final TeamService teamService;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration reconcileInterval;
+    private final Duration ttl;
+    private final int reconcileBatchSize;
+
+    private final Counter seeds;
+    private final Counter corrections;
+
+    public UnreadCounterService(UnreadCounterStore store,
+                                ChatMessageRepository chatRepo,
+                                ClearedChatService clearedChatService,
+                                TeamService teamService,
+                                StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${chat.unread.reconcile.interval}") Duration reconcileInterval,
+                                @Value("${chat.unread.ttl}") Duration ttl,
+                                @Value("${chat.unread.reconcile.batch-size}") int reconcileBatchSize) {
+        this.store = store;
+        this.chatRepo = chatRepo;
+        this.clearedChatService = clearedChatService;
+        this.teamService = teamService;
+        this.redisTemplate = redisTemplate;
+        this.reconcileInterval = reconcileInterval;
+        this.ttl = ttl;
+        this.reconcileBatchSize = reconcileBatchSize;
+        this.seeds = Counter.builder("chat.unread.seeds")
+                .description("Unread hashes built from Postgres")
+                .register(meterRegistry);
+        this.corrections = Counter.builder("chat.unread.reconcile.corrections")
+                .description("Unread counters repaired by the reconciler")
+                .register(meterRegistry);
+    }
+
+    /** Unread count per conversation id (partner id or group id); conversations with nothing unread are absent */
+    public Map<String, Long> getCounts(String userId) {
+        try {
+            Map<String, Long> counts = store.read(userId);
+            if (counts != null) {
+                return counts;
+            }
+        } catch (Exception e) {
+            log.warn("Reading unread counters for {} failed, counting in Postgres: {}", userId, e.getMessage());
+            DatabaseCounts fallback = countInDatabase(userId);
+            return fallback.counts();
+        }
+
+        DatabaseCounts fromDb = countInDatabase(userId);
+        if (fromDb.complete()) {
+            try {
+                store.seed(userId, fromDb.counts());
+                seeds.increment();
+            } catch (Exception e) {
+                log.warn("Seeding unread counters for {} failed: {}", userId, e.getMessage());
+            }
+        }
+        return fromDb.counts();
+    }
+
+    /** Total unread across all conversations: one HGET once the hash is seeded */
+    public long getTotal(String userId) {
+        try {
+            Long total = store.readTotal(userId);
+            if (total != null) {
+                return total;
+            }
+        } catch (Exception e) {
+            log.warn("Reading unread total for {} failed: {}", userId, e.getMessage());
+        }
+        return getCounts(userId).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Recomputes counters of users whose hashes changed during the last interval.
+     * Runs on one pod at a time.
+     */
+    @Scheduled(fixedDelayString = "${chat.unread.reconcile.interval}",
+               initialDelayString = "${chat.unread.reconcile.interval}")
+    public void reconcileRecentlyTouched() {
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(RECONCILE_LOCK, "1", reconcileInterval);
+        if (!Boolean.TRUE.equals(acquired)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // Look back two intervals so users touched while the previous run was going are not missed
+        Set<String> users = store.touchedBetween(now - 2 * reconcileInterval.toMillis(), now, reconcileBatchSize);
+        long fixed = 0;
+        for (String userId : users) {
+            try {
+                fixed += reconcile(userId);
+            } catch (Exception e) {
+                log.warn("Unread reconcile for {} failed: {}", userId, e.getMessage());
+            }
+        }
+        store.pruneTouched(now - ttl.toMillis());
+        if (fixed > 0) {
+            log.info("Unread reconcile repaired {} counters across {} users", fixed, users.size());
+        }
+    }
+
+    long reconcile(String userId) {
+        Map<String, Long> snapshot = store.read(userId);
+        if (snapshot == null) {
+            return 0;
+        }
+        DatabaseCounts fromDb = countInDatabase(userId);
+        if (!fromDb.complete()) {
+            return 0;
+        }
+        Map<String, Long> drifted = new HashMap<>();
+        Set<String> conversations = new HashSet<>(snapshot.keySet());
+        conversations.addAll(fromDb.counts().keySet());
+        for (String conversationId : conversations) {
+            long actual = fromDb.counts().getOrDefault(conversationId, 0L);
+            if (snapshot.getOrDefault(conversationId, 0L) != actual) {
+                drifted.put(conversationId, actual);
+            }
+        }
+        if (drifted.isEmpty()) {
+            return 0;
+        }
+        long changed = store.correct(userId, snapshot, drifted);
+        corrections.increment(changed);
+        log.debug("Unread counters for {} drifted on {}, repaired {}", userId, drifted.keySet(), changed);
+        return changed;
+    }
+
+    private DatabaseCounts countInDatabase(String userId) {
+        Map<String, Long> counts = new HashMap<>();
+        for (String partnerId : chatRepo.findDistinctSendersByReceiver(userId)) {
+            if (partnerId.equals(userId)) {
+                continue;
+            }
+            long unread = chatRepo.countUnreadPrivateMessages(userId, partnerId,
+                    clearedChatService.getClearedAt(userId, partnerId));
+            if (unread > 0) {
+                counts.put(partnerId, unread);
+            }
+        }
+
+        try {
+            for (TeamResponse team : teamService.getTeamsByEmployeeId(userId)) {
+                long unread = chatRepo.countUnreadMessagesForUserInGroup(userId, team.getTeamId(),
+                        clearedChatService.getClearedAt(userId, team.getTeamId()));
+                if (unread > 0) {
+                    counts.put(team.getTeamId(), unread);
+                }
+            }
+        } catch (EmployeeServiceUnavailableException e) {
+            // Without the team list the group counters can't be trusted, so nothing is written back
+            log.warn("Teams for {} unavailable, unread counts cover private chats only: {}", userId, e.getMessage());
+            return new DatabaseCounts(counts, false);
+        }
+        return new DatabaseCounts(counts, true);
+    }
+
+    private record DatabaseCounts(Map<String, Long> counts, boolean complete) { }
+}
@@ -16,11 +16,14 @@ public class UpdateChatMessageService {
  
     private final ChatMessageRepository chatMessageRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final MentionService mentionService;
  
     public UpdateChatMessageService(ChatMessageRepository chatMessageRepository,
-                                  SimpMessagingTemplate messagingTemplate) {
+                                  SimpMessagingTemplate messagingTemplate,
+                                  MentionService mentionService) {
         this.chatMessageRepository = chatMessageRepository;
         this.messagingTemplate = messagingTemplate;
+        this.mentionService = mentionService;
     }
  
     @Transactional
@@ -47,6 +50,7 @@ public class UpdateChatMessageService {
             return "Error: Updated content cannot be null or empty.";
         }
         ChatMessage savedMessage = chatMessageRepository.save(message);
+        mentionService.reindex(savedMessage);
  
         // Prepare the response DTO with the isEdited flag
         ChatMessageResponse response = new ChatMessageResponse(
@@ -0,0 +1,54 @@
+-- Schema as ddl-auto=update left it before migrations were introduced.
+-- Existing databases are baselined at version 1 and skip this script.
+
+CREATE TABLE IF NOT EXISTS chat_messages (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    sender          varchar(255) NOT NULL,
+    receiver        varchar(255),
+    group_id        varchar(255),
+    type            varchar(255) NOT NULL,
+    content         text,
+    timestamp       timestamp(6),
+    file_name       varchar(255),
+    file_type       varchar(255),
+    file_size       bigint,
+    file_data       oid,
+    duration        integer,
+    is_read         boolean NOT NULL,
+    reply_to_id     bigint REFERENCES chat_messages (id),
+    reply_preview   text,
+    is_forwarded    boolean,
+    forwarded_from  varchar(255),
+    is_deleted      boolean DEFAULT FALSE,
+    is_edited       boolean DEFAULT FALSE,
+    is_pinned       boolean,
+    pinned_at       timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS message_read_status (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    message_id  bigint NOT NULL REFERENCES chat_messages (id),
+    user_id     varchar(255) NOT NULL,
+    read_at     timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS message_action (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    message_id   bigint NOT NULL,
+    user_id      varchar(255) NOT NULL,
+    action_type  varchar(255) NOT NULL,
+    created_at   timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS cleared_chat (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     varchar(255) NOT NULL,
+    chat_id     varchar(255) NOT NULL,
+    cleared_at  timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS employee_details (
+    employee_id    varchar(255) PRIMARY KEY,
+    employee_name  varchar(255),
+    profile_link   text
+);
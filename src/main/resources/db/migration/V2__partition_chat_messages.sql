@@ -0,0 +1,92 @@
+-- Turns chat_messages into a table range-partitioned by month on "timestamp".
+--
+-- The existing table is kept as-is and attached as one partition covering everything up to
+-- the start of next month, so no rows are copied. Monthly partitions after that, and their
+-- indexes, are created ahead of time by ChatPartitionManager.
+--
+-- A unique key on a partitioned table must contain the partition key, so there is no
+-- table-wide primary key on id: ids come from one sequence, and every partition has its own
+-- unique index on id (the legacy partition keeps its primary key). Foreign keys pointing at chat_messages are dropped for the same reason.
+
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN
+        SELECT conrelid::regclass AS tbl, conname
+        FROM pg_constraint
+        WHERE contype = 'f' AND confrelid = 'chat_messages'::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.tbl, fk.conname);
+    END LOOP;
+END $$;
+
+ALTER TABLE chat_messages RENAME TO chat_messages_legacy;
+
+-- Full-text search column (backfilled by MessageSearchSchema); may already exist
+ALTER TABLE chat_messages_legacy ADD COLUMN IF NOT EXISTS search_vector tsvector;
+DROP TRIGGER IF EXISTS trg_chat_messages_search_vector ON chat_messages_legacy;
+
+UPDATE chat_messages_legacy SET "timestamp" = TIMESTAMP '1970-01-01' WHERE "timestamp" IS NULL;
+ALTER TABLE chat_messages_legacy ALTER COLUMN "timestamp" SET NOT NULL;
+
+-- Ids move from the legacy identity column to a sequence shared by all partitions
+CREATE SEQUENCE chat_messages_id_seq;
+SELECT setval('chat_messages_id_seq', COALESCE((SELECT max(id) FROM chat_messages_legacy), 0) + 1, false);
+ALTER TABLE chat_messages_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE TABLE chat_messages (LIKE chat_messages_legacy INCLUDING DEFAULTS)
+    PARTITION BY RANGE ("timestamp");
+ALTER TABLE chat_messages ALTER COLUMN id SET DEFAULT nextval('chat_messages_id_seq');
+ALTER SEQUENCE chat_messages_id_seq OWNED BY chat_messages.id;
+
+-- The CHECK is added NOT VALID and validated separately, so its scan runs under SHARE UPDATE
+-- EXCLUSIVE rather than ACCESS EXCLUSIVE; once valid it lets ATTACH skip its own validation scan
+DO $$
+DECLARE
+    cutover timestamp := date_trunc('month', now()) + interval '1 month';
+BEGIN
+    EXECUTE format('ALTER TABLE chat_messages_legacy ADD CONSTRAINT chat_messages_legacy_range CHECK ("timestamp" < %L) NOT VALID', cutover);
+    ALTER TABLE chat_messages_legacy VALIDATE CONSTRAINT chat_messages_legacy_range;
+    EXECUTE format('ALTER TABLE chat_messages ATTACH PARTITION chat_messages_legacy FOR VALUES FROM (MINVALUE) TO (%L)', cutover);
+END $$;
+
+-- History indexes, declared on the parent so every partition created later gets its own copy.
+-- ON ONLY leaves the big legacy partition alone here; ChatPartitionManager builds its copies
+-- concurrently and attaches them (the existing search index is reused under the expected name).
+ALTER INDEX IF EXISTS idx_chat_messages_search RENAME TO chat_messages_legacy_search_idx;
+CREATE INDEX idx_chat_messages_group_ts ON ONLY chat_messages (group_id, "timestamp");
+CREATE INDEX idx_chat_messages_private_ts ON ONLY chat_messages (sender, receiver, "timestamp");
+CREATE INDEX idx_chat_messages_search ON ONLY chat_messages USING gin (search_vector);
+
+-- Catches rows outside every monthly partition so an insert never fails; kept empty in practice
+CREATE TABLE chat_messages_default PARTITION OF chat_messages DEFAULT;
+CREATE UNIQUE INDEX chat_messages_default_id_idx ON chat_messages_default (id);
+
+-- Search vector maintained on insert, edit and delete-for-everyone; cloned to every partition.
+-- searchTextConfig is chat.search.text-search-config (see spring.flyway.placeholders)
+CREATE OR REPLACE FUNCTION chat_messages_search_vector() RETURNS trigger AS $$
+BEGIN
+    NEW.search_vector := CASE WHEN NEW.is_deleted THEN NULL
+                              ELSE to_tsvector('${searchTextConfig}', coalesce(NEW.content, '')) END;
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_chat_messages_search_vector
+    BEFORE INSERT OR UPDATE OF content, is_deleted ON chat_messages
+    FOR EACH ROW EXECUTE FUNCTION chat_messages_search_vector();
+
+-- Where each archived conversation-month lives (see ChatArchiveJob)
+CREATE TABLE chat_archive_segment (
+    id                bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    conversation_key  varchar(255) NOT NULL,
+    period_start      timestamp(6) NOT NULL,
+    period_end        timestamp(6) NOT NULL,
+    storage_key       varchar(1024) NOT NULL,
+    message_count     integer NOT NULL,
+    min_message_id    bigint NOT NULL,
+    max_message_id    bigint NOT NULL,
+    created_at        timestamp(6) NOT NULL,
+    CONSTRAINT uk_archive_segment UNIQUE (conversation_key, period_start)
+);
+CREATE INDEX idx_archive_segment_conversation ON chat_archive_segment (conversation_key, period_start DESC);
@@ -0,0 +1,33 @@
+-- message_mention may already exist (created by ddl-auto before migrations); make sure it does,
+-- then index the mentions in messages sent before mention indexing existed.
+
+CREATE TABLE IF NOT EXISTS message_mention (
+    id                bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    message_id        bigint NOT NULL,
+    employee_id       varchar(255) NOT NULL,
+    conversation_key  varchar(255) NOT NULL,
+    seen              boolean NOT NULL,
+    created_at        timestamp(6) NOT NULL,
+    CONSTRAINT uk_mention_message_employee UNIQUE (message_id, employee_id)
+);
+CREATE INDEX IF NOT EXISTS idx_mention_employee_message ON message_mention (employee_id, message_id);
+CREATE INDEX IF NOT EXISTS idx_mention_employee_unseen ON message_mention (employee_id, seen, conversation_key);
+CREATE INDEX IF NOT EXISTS idx_mention_message ON message_mention (message_id);
+
+-- Same rules as MentionService, except team membership, which only employee-service knows.
+-- Old mentions are marked seen so the backfill does not light up every badge.
+INSERT INTO message_mention (message_id, employee_id, conversation_key, seen, created_at)
+SELECT DISTINCT m.id, mention[1],
+       CASE WHEN m.type = 'PRIVATE'
+            THEN least(m.sender COLLATE "C", m.receiver COLLATE "C") || ':' || greatest(m.sender COLLATE "C", m.receiver COLLATE "C")
+            ELSE m.group_id END,
+       true, now()
+FROM chat_messages m
+CROSS JOIN LATERAL regexp_matches(m.content, '@([A-Za-z0-9_-]+)', 'g') AS mention
+WHERE m.content LIKE '%@%'
+  AND m.file_name IS NULL
+  AND m.is_deleted IS NOT TRUE
+  AND mention[1] <> m.sender
+  AND ((m.type = 'PRIVATE' AND m.receiver IS NOT NULL AND mention[1] = m.receiver)
+       OR (m.type <> 'PRIVATE' AND m.group_id IS NOT NULL))
+ON CONFLICT (message_id, employee_id) DO NOTHING;
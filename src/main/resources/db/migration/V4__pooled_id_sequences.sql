@@ -0,0 +1,18 @@
+-- Ids are handed out by Hibernate in blocks of 50 (pooled-lo: nextval is the first id of the
+-- block), so inserts can be JDBC-batched. The sequences step by the same 50; plain DEFAULT
+-- inserts still draw from them and never collide with a block.
+
+ALTER SEQUENCE chat_messages_id_seq INCREMENT BY 50;
+
+DO $$
+DECLARE
+    tbl text;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY['message_read_status', 'message_action', 'cleared_chat', 'message_mention']
+    LOOP
+        EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', pg_get_serial_sequence(tbl, 'id'));
+    END LOOP;
+END $$;
+
+-- Read receipts are looked up per message and user (group read fan-out, unread counts)
+CREATE INDEX IF NOT EXISTS idx_read_status_message_user ON message_read_status (message_id, user_id);
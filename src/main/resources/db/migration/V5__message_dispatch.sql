@@ -0,0 +1,9 @@
+-- Saved messages whose processing (Redis fan-out, unread counters, mentions, sidebars) has not run
+-- yet. MessageDispatcher adds the row with the message, the processor deletes it in its own
+-- transaction, and rows left behind by a full pool or a crash are picked up again by id.
+
+CREATE TABLE IF NOT EXISTS message_dispatch (
+    message_id  bigint PRIMARY KEY,
+    queued_at   timestamp(6) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_message_dispatch_queued ON message_dispatch (queued_at);
@@ -0,0 +1,128 @@
+package com.app.chat_service.feignclient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.app.chat_service.dto.EmployeeTeamResponse;
+import com.app.chat_service.dto.TeamResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the HRMS employee-service, with injectable latency and failures.
+ * Serves the team endpoints used by {@link EmployeeClient}; every team has the members
+ * EMP001..EMP00n where n is {@code teamSize}.
+ *
+ * Run standalone with {@code main} and point the app at it with HRMS_API_URL=http://localhost:&lt;port&gt;.
+ */
+public class EmployeeServiceStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong latencyMs = new AtomicLong();
+    private final AtomicInteger failureStatus = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int teamSize = 3;
+
+    public EmployeeServiceStubServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/api/employee/team/employee/", exchange ->
+                handle(exchange, "/api/employee/team/employee/", id -> List.of(team(id))));
+        server.createContext("/api/employee/team/", exchange ->
+                handle(exchange, "/api/employee/team/", id -> List.of(team("TEAM-A"), team("TEAM-B"))));
+        server.setExecutor(Executors.newCachedThreadPool());
+    }
+
+    public EmployeeServiceStubServer start() {
+        server.start();
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /** Delay added before every response */
+    public void setLatency(Duration latency) {
+        latencyMs.set(latency.toMillis());
+    }
+
+    /** Status returned instead of a body, 0 to answer normally */
+    public void setFailureStatus(int status) {
+        failureStatus.set(status);
+    }
+
+    public void setTeamSize(int teamSize) {
+        this.teamSize = teamSize;
+    }
+
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange, String prefix, Function<String, List<TeamResponse>> body)
+            throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            long delay = latencyMs.get();
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int status = failureStatus.get();
+            if (status != 0) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            String id = exchange.getRequestURI().getPath().substring(prefix.length());
+            byte[] json = objectMapper.writeValueAsBytes(body.apply(id));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, json.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(json);
+            }
+        }
+    }
+
+    private TeamResponse team(String teamId) {
+        List<EmployeeTeamResponse> members = new ArrayList<>();
+        for (int i = 1; i <= teamSize; i++) {
+            EmployeeTeamResponse member = new EmployeeTeamResponse();
+            member.setEmployeeId(String.format("EMP%03d", i));
+            member.setDisplayName("Employee " + i);
+            members.add(member);
+        }
+        return new TeamResponse(teamId, "Team " + teamId, members);
+    }
+
+    /** Usage: EmployeeServiceStubServer [port] [latencyMs] [failureStatus] */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8090;
+        EmployeeServiceStubServer stub = new EmployeeServiceStubServer(port).start();
+        if (args.length > 1) {
+            stub.setLatency(Duration.ofMillis(Long.parseLong(args[1])));
+        }
+        if (args.length > 2) {
+            stub.setFailureStatus(Integer.parseInt(args[2]));
+        }
+        System.out.println("employee-service stub listening on " + stub.baseUrl());
+    }
+}
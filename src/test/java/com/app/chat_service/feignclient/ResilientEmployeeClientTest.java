@@ -0,0 +1,138 @@
+package com.app.chat_service.feignclient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.app.chat_service.dto.TeamResponse;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import feign.Feign;
+import feign.Request;
+import feign.Retryer;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/** Latency and failure injection against {@link EmployeeServiceStubServer}. */
+class ResilientEmployeeClientTest {
+
+    private static final Duration READ_TIMEOUT = Duration.ofMillis(300);
+
+    private EmployeeServiceStubServer stub;
+    private CircuitBreaker circuitBreaker;
+    private SimpleMeterRegistry meterRegistry;
+    private ResilientEmployeeClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new EmployeeServiceStubServer(0).start();
+        HttpMessageConverters converters = new HttpMessageConverters(new MappingJackson2HttpMessageConverter());
+        EmployeeClient feignClient = Feign.builder()
+                .contract(new SpringMvcContract())
+                .decoder(new ResponseEntityDecoder(new SpringDecoder(() -> converters)))
+                .options(new Request.Options(200, TimeUnit.MILLISECONDS,
+                        READ_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS, true))
+                .retryer(Retryer.NEVER_RETRY)
+                .target(EmployeeClient.class, stub.baseUrl());
+
+        circuitBreaker = CircuitBreaker.of("employeeService", CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        Bulkhead bulkhead = Bulkhead.of("employeeService", BulkheadConfig.custom()
+                .maxConcurrentCalls(4)
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        meterRegistry = new SimpleMeterRegistry();
+        client = new ResilientEmployeeClient(feignClient, circuitBreaker, bulkhead,
+                Executors.newFixedThreadPool(2), Duration.ofSeconds(1),
+                Caffeine.newBuilder().<String, List<TeamResponse>>build(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void returnsTeamMembersFromUpstream() {
+        List<TeamResponse> teams = client.getTeamById("TEAM-1");
+
+        assertThat(teams).hasSize(1);
+        assertThat(teams.get(0).getEmployees()).hasSize(3);
+    }
+
+    @Test
+    void slowUpstreamServesLastKnownGood() {
+        client.getTeamById("TEAM-1");
+        stub.setTeamSize(5);
+        stub.setLatency(READ_TIMEOUT.multipliedBy(3));
+
+        long start = System.nanoTime();
+        List<TeamResponse> teams = client.getTeamById("TEAM-1");
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(teams.get(0).getEmployees()).hasSize(3);
+        assertThat(elapsedMs).isLessThan(READ_TIMEOUT.multipliedBy(3).toMillis());
+        assertThat(meterRegistry.counter("chat.employee_client.fallback", "outcome", "last_known_good").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void failureWithoutLastKnownGoodThrowsInsteadOfEmptyList() {
+        stub.setFailureStatus(503);
+
+        assertThatThrownBy(() -> client.getTeamsByEmployeeId("EMP001"))
+                .isInstanceOf(EmployeeServiceUnavailableException.class);
+    }
+
+    @Test
+    void unknownTeamIsAnEmptyAnswerNotAFailure() {
+        stub.setFailureStatus(404);
+
+        assertThat(client.getTeamById("NOPE")).isEmpty();
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+    }
+
+    @Test
+    void circuitOpensAndStopsCallingUpstream() {
+        stub.setFailureStatus(500);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> client.getTeamById("TEAM-1"));
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        int before = stub.getRequestCount();
+        assertThatThrownBy(() -> client.getTeamById("TEAM-1"))
+                .isInstanceOf(EmployeeServiceUnavailableException.class);
+        assertThat(stub.getRequestCount()).isEqualTo(before);
+    }
+
+    @Test
+    void asyncVariantCompletesExceptionallyOnOutage() {
+        stub.setFailureStatus(502);
+
+        assertThatThrownBy(() -> client.getTeamByIdAsync("TEAM-1").join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(EmployeeServiceUnavailableException.class);
+    }
+}
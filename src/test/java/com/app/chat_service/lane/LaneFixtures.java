@@ -0,0 +1,64 @@
+package com.app.chat_service.lane;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * STOMP frames and a thread blocker for the lane tests. The channels under test run on a single
+ * thread; a {@link Blocker} holds it so that everything sent afterwards queues.
+ */
+final class LaneFixtures {
+
+    private LaneFixtures() {
+    }
+
+    static Message<byte[]> message(String destination, Map<String, Object> nativeHeaders) {
+        return message(null, destination, "", nativeHeaders);
+    }
+
+    static Message<byte[]> message(String sessionId, String destination, String payload,
+                                   Map<String, Object> nativeHeaders) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        nativeHeaders.forEach((name, value) -> accessor.setNativeHeader(name, value.toString()));
+        return MessageBuilder.createMessage(payload.getBytes(), accessor.getMessageHeaders());
+    }
+
+    static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static final class Blocker {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        /** Called by the handler for the blocking frame; returns once {@link #release()} is called */
+        void hold() {
+            started.countDown();
+            awaitQuietly(released);
+        }
+
+        /** Waits until the handler is holding the thread */
+        void awaitStarted() throws InterruptedException {
+            assertThat(started.await(5, TimeUnit.SECONDS)).as("blocker started").isTrue();
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.app.chat_service.lane;
+
+import static com.app.chat_service.lane.LaneFixtures.message;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+
+import com.app.chat_service.lane.LaneFixtures.Blocker;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LaneTaskExecutorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final LaneTaskExecutor executor = new LaneTaskExecutor("clientOutboundChannel", 1, 10, 2, registry);
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void classifiesByDestinationAndDeclaredLane() {
+        assertThat(Lane.of(message("/queue/private-user123", Map.of()))).isEqualTo(Lane.DELIVERY);
+        assertThat(Lane.of(message("/queue/private-user123", Lane.RECEIPT.headers()))).isEqualTo(Lane.RECEIPT);
+        assertThat(Lane.of(message("/queue/unread-total-user123", Map.of()))).isEqualTo(Lane.RECEIPT);
+        assertThat(Lane.of(message("/queue/sidebar-user123", Map.of()))).isEqualTo(Lane.BACKGROUND);
+        assertThat(Lane.of(message("/app/typing", Map.of()))).isEqualTo(Lane.BACKGROUND);
+    }
+
+    @Test
+    void clientAdmissionIgnoresALaneTheClientDeclared() {
+        Message<?> admitted = executor.clientAdmission().preSend(
+                message("/app/send", Lane.BACKGROUND.headers()), new ExecutorSubscribableChannel());
+
+        assertThat(Lane.of(admitted)).isEqualTo(Lane.DELIVERY);
+    }
+
+    @Test
+    void runsHigherLanesFirstAndShedsAFullLowerLane() throws InterruptedException {
+        executor.initialize();
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel(executor);
+        channel.addInterceptor(executor.admission());
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Blocker blocker = new Blocker();
+        CountDownLatch handled = new CountDownLatch(5);
+        channel.subscribe(message -> {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            if (destination.equals("/queue/blocker")) {
+                blocker.hold();
+            } else {
+                order.add(destination);
+            }
+            handled.countDown();
+        });
+
+        // Occupy the only thread so everything after it queues
+        channel.send(message("/queue/blocker", Map.of()));
+        blocker.awaitStarted();
+        channel.send(message("/queue/typing-status-user1", Map.of()));
+        channel.send(message("/queue/sidebar-user1", Map.of()));
+        boolean accepted = channel.send(message("/queue/sidebar-user2", Map.of()));
+        channel.send(message("/queue/unread-total-user1", Map.of()));
+        channel.send(message("/queue/private-user1", Map.of()));
+        blocker.release();
+
+        assertThat(handled.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(accepted).isFalse();
+        assertThat(order).containsExactly("/queue/private-user1", "/queue/unread-total-user1",
+                "/queue/typing-status-user1", "/queue/sidebar-user1");
+        assertThat(registry.get("chat.lane.shed").tag("lane", "background").counter().count()).isEqualTo(1);
+        assertThat(registry.get("chat.lane.queued").tag("lane", "background").gauge().value()).isZero();
+    }
+}
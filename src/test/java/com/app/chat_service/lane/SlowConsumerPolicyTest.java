@@ -0,0 +1,95 @@
+package com.app.chat_service.lane;
+
+import static com.app.chat_service.lane.LaneFixtures.message;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+
+import com.app.chat_service.lane.LaneFixtures.Blocker;
+import com.app.chat_service.metrics.WebSocketMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SlowConsumerPolicyTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final WebSocketMetrics metrics = new WebSocketMetrics(registry, 100);
+    private final SlowConsumerPolicy policy = new SlowConsumerPolicy(metrics, registry, 3, Duration.ofSeconds(1));
+    private final LaneTaskExecutor executor = new LaneTaskExecutor("clientOutboundChannel", 1, 100, 100, registry);
+    private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+    private final Blocker blocker = new Blocker();
+    private ExecutorSubscribableChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        executor.initialize();
+        channel = new ExecutorSubscribableChannel(executor);
+        channel.addInterceptor(metrics.outbound());
+        channel.addInterceptor(policy.outbound());
+        channel.subscribe(message -> {
+            String payload = new String((byte[]) message.getPayload());
+            if (payload.equals("blocker")) {
+                blocker.hold();
+            } else {
+                written.add(payload);
+            }
+        });
+    }
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void onlyTheNewestQueuedSnapshotIsWritten() throws InterruptedException {
+        channel.send(message("s2", "/queue/private-users2", "blocker", Map.of()));
+        blocker.awaitStarted();
+        channel.send(message("s1", "/queue/sidebar-users1", "sidebar 1", SlowConsumerPolicy.coalescing("overview")));
+        channel.send(message("s1", "/queue/typing-status-users1", "EMP002 typing", SlowConsumerPolicy.coalescing("EMP002")));
+        channel.send(message("s1", "/queue/sidebar-users1", "sidebar 2", SlowConsumerPolicy.coalescing("overview")));
+        blocker.release();
+
+        awaitWritten(2);
+        assertThat(written).containsExactly("EMP002 typing", "sidebar 2");
+        assertThat(registry.get("chat.websocket.outbound.dropped").tag("reason", "superseded").counter().count())
+                .isEqualTo(1);
+        assertThat(metrics.pending("s1")).isZero();
+    }
+
+    @Test
+    void backgroundTrafficIsDroppedForABackedUpSessionButMessagesAreNot() throws InterruptedException {
+        channel.send(message("s1", "/queue/private-users1", "blocker", Map.of()));
+        blocker.awaitStarted();
+        for (int i = 1; i <= 3; i++) {
+            channel.send(message("s1", "/queue/private-users1", "message " + i, Map.of()));
+        }
+        boolean typingAccepted = channel.send(message("s1", "/queue/typing-status-users1", "typing", Map.of()));
+        channel.send(message("s1", "/queue/private-users1", "message 4", Map.of()));
+        blocker.release();
+
+        awaitWritten(4);
+        assertThat(typingAccepted).isFalse();
+        assertThat(written).containsExactly("message 1", "message 2", "message 3", "message 4");
+        assertThat(registry.get("chat.websocket.outbound.dropped").tag("reason", "backlog").counter().count())
+                .isEqualTo(1);
+        assertThat(metrics.pending("s1")).isZero();
+    }
+
+    private void awaitWritten(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((written.size() < count || executor.getActiveCount() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.app.chat_service.repo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import com.app.chat_service.model.ChatMessage;
+import com.app.chat_service.model.MessageReadStatus;
+import com.app.chat_service.support.PostgresJpaTest;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Regression guard for the read-receipt fan-out to a 500-member team, through the real entities and
+ * the application's Hibernate settings: pooled-lo ids fetch one block of 50 per sequence call, and
+ * the inserts go out as JDBC batches of 50 instead of one statement per row. The throughput this
+ * buys is measured by ReadStatusFanOutBenchmark in src/jmh.
+ */
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ReadStatusBatchingTest extends PostgresJpaTest {
+
+    private static final int TEAM_SIZE = 500;
+    private static final int BLOCK = 50;
+
+    @Autowired
+    private ChatMessageRepository chatRepo;
+
+    @Autowired
+    private MessageReadStatusRepository readStatusRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void fanOutToFiveHundredMembersUsesOneSequenceCallAndOneBatchPerFiftyRows() {
+        ChatMessage message = new ChatMessage();
+        message.setSender("EMP001");
+        message.setGroupId("TEAM-1");
+        message.setType("TEAM");
+        message.setContent("hello team");
+        message.setTimestamp(LocalDateTime.now());
+        chatRepo.saveAndFlush(message);
+
+        List<MessageReadStatus> receipts = new ArrayList<>();
+        for (int member = 0; member < TEAM_SIZE; member++) {
+            receipts.add(MessageReadStatus.builder()
+                    .chatMessage(message)
+                    .userId("EMP" + member)
+                    .readAt(LocalDateTime.now())
+                    .build());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        readStatusRepo.saveAll(receipts);
+        entityManager.flush();
+
+        // One nextval per block of ids and one prepared INSERT per batch; IDENTITY needed one per row
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(TEAM_SIZE);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2L * TEAM_SIZE / BLOCK);
+        assertThat(readStatusRepo.count()).isEqualTo(TEAM_SIZE);
+    }
+}
@@ -0,0 +1,172 @@
+package com.app.chat_service.retention;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.app.chat_service.archive.ArchivedMessage;
+import com.app.chat_service.archive.ChatArchiveStore;
+import com.app.chat_service.datasource.ReplicaLagMonitor;
+import com.app.chat_service.model.ChatArchiveSegment;
+import com.app.chat_service.repo.ChatArchiveSegmentRepository;
+import com.app.chat_service.support.PostgresJpaTest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Retention purges against the real schema (Flyway migrations on a throwaway Postgres): the
+ * four-table batch delete with its large objects, and expired archive segments.
+ */
+class RetentionServiceTest extends PostgresJpaTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now().withNano(0);
+    private static final LocalDateTime CUTOFF = NOW.minusDays(30);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ChatArchiveSegmentRepository segmentRepository;
+
+    private final ChatArchiveStore archiveStore = mock(ChatArchiveStore.class);
+    private final ReplicaLagMonitor lagMonitor = mock(ReplicaLagMonitor.class);
+    private RetentionService retention;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectProvider<ReplicaLagMonitor> monitorProvider = mock(ObjectProvider.class);
+        when(monitorProvider.getIfAvailable()).thenReturn(lagMonitor);
+        // Batches of two, so the keyset cursor has to move
+        retention = new RetentionService(segmentRepository, archiveStore, monitorProvider, jdbcTemplate,
+                transactionManager, new SimpleMeterRegistry(), "public", true, "P30D", "P30D",
+                2, Duration.ZERO, Duration.ofSeconds(1), Duration.ofMinutes(1), Duration.ZERO);
+    }
+
+    @Test
+    void liveMessagesBeforeTheCutoffGoWithTheirReceiptsActionsMentionsAndFiles() {
+        long oldWithFile = message("PRIVATE", NOW.minusDays(40), true);
+        long oldPlain = message("PRIVATE", NOW.minusDays(35), false);
+        message("PRIVATE", NOW.minusDays(31), false);
+        long recent = message("PRIVATE", NOW.minusDays(1), false);
+        long oldTeam = message("TEAM", NOW.minusDays(40), false);
+        long largeObject = jdbcTemplate.queryForObject("SELECT file_data FROM chat_messages WHERE id = ?", Long.class, oldWithFile);
+        for (long id : List.of(oldWithFile, oldPlain, recent, oldTeam)) {
+            related(id);
+        }
+
+        long deleted = retention.purgeLive(ConversationType.PRIVATE, CUTOFF, deadline());
+
+        assertThat(deleted).isEqualTo(3);
+        assertThat(ids("chat_messages")).containsExactlyInAnyOrder(recent, oldTeam);
+        assertThat(ids("message_read_status")).containsExactlyInAnyOrder(recent, oldTeam);
+        assertThat(ids("message_action")).containsExactlyInAnyOrder(recent, oldTeam);
+        assertThat(ids("message_mention")).containsExactlyInAnyOrder(recent, oldTeam);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_largeobject_metadata WHERE oid = ?",
+                Long.class, largeObject)).isZero();
+    }
+
+    @Test
+    void expiredArchiveSegmentsGoWithTheirFilesAndActions() {
+        ChatArchiveSegment expired = segment("TEAM-1", NOW.minusDays(60), NOW.minusDays(45), "archive/expired");
+        ChatArchiveSegment current = segment("TEAM-1", NOW.minusDays(20), NOW.minusDays(10), "archive/current");
+        ChatArchiveSegment privateChat = segment("EMP001:EMP002", NOW.minusDays(60), NOW.minusDays(45), "archive/private");
+        when(archiveStore.readSegment("archive/expired")).thenReturn(List.of(
+                archived(901L, "photo.png"), archived(902L, null)));
+        action(901L);
+        action(903L);
+
+        long deleted = retention.purgeArchived(ConversationType.TEAM, CUTOFF, deadline());
+
+        assertThat(deleted).isEqualTo(2);
+        assertThat(segmentRepository.findAll()).extracting(ChatArchiveSegment::getId)
+                .containsExactlyInAnyOrder(current.getId(), privateChat.getId());
+        verify(archiveStore).deleteFile(901L);
+        verify(archiveStore, never()).deleteFile(902L);
+        verify(archiveStore).deleteSegment("archive/expired");
+        verify(archiveStore, never()).readSegment("archive/current");
+        assertThat(ids("message_action")).containsExactly(903L);
+    }
+
+    @Test
+    void anUnreachableReplicaDoesNotStallThePurgePastItsWait() {
+        // max-unreachable-wait is zero here: the unreachable replica is ignored straight away
+        when(lagMonitor.maxLagSeconds()).thenReturn(Double.POSITIVE_INFINITY);
+        when(lagMonitor.maxReachableLagSeconds()).thenReturn(0.0);
+        for (int i = 0; i < 5; i++) {
+            message("PRIVATE", NOW.minusDays(40 + i), false);
+        }
+
+        assertThat(retention.purgeLive(ConversationType.PRIVATE, CUTOFF, deadline())).isEqualTo(5);
+    }
+
+    private static long deadline() {
+        return System.nanoTime() + Duration.ofMinutes(1).toNanos();
+    }
+
+    private long message(String type, LocalDateTime at, boolean withFile) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO chat_messages (sender, receiver, group_id, type, content, "timestamp", is_read, file_name, file_data)
+                VALUES ('EMP001', ?, ?, ?, 'hello @EMP002', ?, false, ?,
+                        CASE WHEN ? THEN lo_from_bytea(0, 'file bytes'::bytea) END)
+                RETURNING id
+                """, Long.class, "PRIVATE".equals(type) ? "EMP002" : null, "PRIVATE".equals(type) ? null : "TEAM-1",
+                type, at, withFile ? "file.txt" : null, withFile);
+    }
+
+    // A read receipt, an action and a mention pointing at the message
+    private void related(long messageId) {
+        jdbcTemplate.update("INSERT INTO message_read_status (message_id, user_id, read_at) VALUES (?, 'EMP002', now())", messageId);
+        action(messageId);
+        jdbcTemplate.update("""
+                INSERT INTO message_mention (message_id, employee_id, conversation_key, seen, created_at)
+                VALUES (?, 'EMP002', 'EMP001:EMP002', false, now())
+                """, messageId);
+    }
+
+    private void action(long messageId) {
+        jdbcTemplate.update("""
+                INSERT INTO message_action (message_id, user_id, action_type, created_at)
+                VALUES (?, 'EMP002', 'DELETE_ME', now())
+                """, messageId);
+    }
+
+    private List<Long> ids(String table) {
+        String column = "chat_messages".equals(table) ? "id" : "message_id";
+        return jdbcTemplate.queryForList("SELECT " + column + " FROM " + table, Long.class);
+    }
+
+    private ChatArchiveSegment segment(String conversationKey, LocalDateTime start, LocalDateTime end, String storageKey) {
+        return segmentRepository.save(ChatArchiveSegment.builder()
+                .conversationKey(conversationKey)
+                .periodStart(start)
+                .periodEnd(end)
+                .storageKey(storageKey)
+                .messageCount(2)
+                .minMessageId(901L)
+                .maxMessageId(902L)
+                .build());
+    }
+
+    private static ArchivedMessage archived(long id, String fileName) {
+        return new ArchivedMessage(id, "EMP001", null, "TEAM-1", "TEAM", "archived", NOW.minusDays(50),
+                fileName, fileName != null ? "image/png" : null, null, null, true, null, null, null,
+                false, false, null, null, null, null);
+    }
+}
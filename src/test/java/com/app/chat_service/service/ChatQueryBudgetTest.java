@@ -0,0 +1,146 @@
+package com.app.chat_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.app.chat_service.archive.ChatArchiveReader;
+import com.app.chat_service.cache.ChatVisibilityCache;
+import com.app.chat_service.dto.TeamResponse;
+import com.app.chat_service.feignclient.ResilientEmployeeClient;
+import com.app.chat_service.model.ChatMessage;
+import com.app.chat_service.model.employee_details;
+import com.app.chat_service.redis.UnreadCounterStore;
+import com.app.chat_service.repo.ChatMessageRepository;
+import com.app.chat_service.repo.MessageReadStatusRepository;
+import com.app.chat_service.support.PostgresJpaTest;
+import com.app.chat_service.support.QueryBudget;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * SQL statement budgets for the sidebar and history paths, against the real schema (Flyway
+ * migrations on a throwaway Postgres). The budgets do not depend on how many chats a user has,
+ * so a per-chat query anywhere on these paths fails the build.
+ */
+class ChatQueryBudgetTest extends PostgresJpaTest {
+
+    private static final String USER = "EMP001";
+    private static final int PARTNERS = 50;
+    private static final int TEAMS = 5;
+
+    @Autowired
+    private ChatMessageRepository chatRepo;
+
+    @Autowired
+    private MessageReadStatusRepository readStatusRepo;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private ChatMessageService chatMessageService;
+    private ChatMessageOverviewService overviewService;
+
+    @BeforeEach
+    void setUp() {
+        List<ChatMessage> messages = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Map<String, employee_details> partners = new LinkedHashMap<>();
+        for (int i = 2; i < PARTNERS + 2; i++) {
+            String partner = String.format("EMP%03d", i);
+            partners.put(partner, new employee_details(partner, "Employee " + i, null));
+            messages.add(message(USER, partner, null, "PRIVATE", now.minusMinutes(i * 2L)));
+            messages.add(message(partner, USER, null, "PRIVATE", now.minusMinutes(i)));
+        }
+        List<TeamResponse> teams = new ArrayList<>();
+        for (int i = 1; i <= TEAMS; i++) {
+            String team = "TEAM-" + i;
+            teams.add(new TeamResponse(team, "Team " + i, List.of()));
+            for (int j = 0; j < 3; j++) {
+                messages.add(message("EMP00" + (j + 2), null, team, "TEAM", now.minusMinutes(i * 10L + j)));
+            }
+        }
+        // A page of history for one conversation, with replies that must not be loaded one by one
+        int history = messages.size();
+        for (int i = 0; i < 60; i++) {
+            messages.add(message(i % 2 == 0 ? USER : "EMP002", i % 2 == 0 ? "EMP002" : USER, null, "PRIVATE",
+                    now.minusHours(1).minusSeconds(i)));
+        }
+        chatRepo.saveAll(messages);
+        for (int i = history; i < history + 10; i++) {
+            messages.get(i).setReplyToMessage(messages.get(i + 20));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        TeamService teamService = mock(TeamService.class);
+        when(teamService.getTeamsByEmployeeId(USER)).thenReturn(teams);
+        ResilientEmployeeClient employeeClient = mock(ResilientEmployeeClient.class);
+        when(employeeClient.callAsync(any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(0).get()));
+        AllEmployees allEmployees = mock(AllEmployees.class);
+        when(allEmployees.getEmployeesByIds(anyCollection())).thenReturn(partners);
+        ClearedChatService clearedChatService = mock(ClearedChatService.class);
+        when(clearedChatService.getClearedAt(anyString(), anyString())).thenReturn(ChatVisibilityCache.NEVER_CLEARED);
+        UnreadCounterService unreadCounterService = mock(UnreadCounterService.class);
+        when(unreadCounterService.getCounts(USER)).thenReturn(Map.of());
+        ChatVisibilityCache visibilityCache = mock(ChatVisibilityCache.class);
+        when(visibilityCache.isHidden(anyString(), anyLong())).thenReturn(false);
+
+        chatMessageService = new ChatMessageService(chatRepo, teamService,
+                new OnlineUserService(), mock(SimpMessagingTemplate.class),
+                readStatusRepo, new ChatPresenceTracker(), clearedChatService, mock(EmployeeDetailsService.class),
+                allEmployees, employeeClient, unreadCounterService, mock(UnreadCounterStore.class),
+                mock(MentionService.class));
+        overviewService = new ChatMessageOverviewService(chatRepo, clearedChatService, visibilityCache,
+                mock(ChatArchiveReader.class));
+    }
+
+    @Test
+    void sidebarForFiftyChatsAndFiveTeamsIssuesAFixedNumberOfStatements() {
+        // Partners sent, partners received, last team messages, last private messages
+        List<Map<String, Object>> chats = QueryBudget.atMost(4, "sidebar for a user with 50 chats and 5 teams",
+                () -> chatMessageService.getChattedEmployeesInSameTeam(USER, 0, 100));
+
+        assertThat(chats).hasSize(PARTNERS + TEAMS);
+        assertThat(chats).allSatisfy(chat -> assertThat(chat.get("lastMessage")).isNotEqualTo("Chat cleared"));
+    }
+
+    @Test
+    void historyPageWithRepliesIsOneStatement() {
+        var page = QueryBudget.atMost(1, "history page of 50 messages with replies",
+                () -> overviewService.getChatMessages(USER, "EMP002", PageRequest.of(0, 50)));
+
+        assertThat(page).hasSize(50);
+        assertThat(page).filteredOn(message -> message.getReplyTo() != null).isNotEmpty();
+    }
+
+    private static ChatMessage message(String sender, String receiver, String groupId, String type, LocalDateTime at) {
+        ChatMessage message = new ChatMessage();
+        message.setSender(sender);
+        message.setReceiver(receiver);
+        message.setGroupId(groupId);
+        message.setType(type);
+        message.setContent("message from " + sender + " at " + at);
+        message.setTimestamp(at);
+        return message;
+    }
+}
@@ -0,0 +1,137 @@
+package com.app.chat_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.app.chat_service.dto.EmployeeTeamResponse;
+import com.app.chat_service.dto.PresenceDiffDTO;
+import com.app.chat_service.dto.TeamResponse;
+import com.app.chat_service.feignclient.EmployeeServiceUnavailableException;
+import com.app.chat_service.feignclient.ResilientEmployeeClient;
+import com.app.chat_service.repo.ChatMessageRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PresenceServiceTest {
+
+    private final SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+    private final ChatMessageRepository chatRepo = mock(ChatMessageRepository.class);
+    private final TeamService teamService = mock(TeamService.class);
+    private final ResilientEmployeeClient employeeClient = mock(ResilientEmployeeClient.class);
+    private final OnlineUserService onlineUsers = new OnlineUserService();
+    private final PresenceService presence = new PresenceService(onlineUsers, template, chatRepo, teamService,
+            employeeClient, Runnable::run, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        when(employeeClient.callAsync(any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(0).get()));
+        when(chatRepo.findDistinctReceiversBySender(anyString())).thenReturn(Set.of());
+        when(chatRepo.findDistinctSendersByReceiver(anyString())).thenReturn(Set.of());
+        when(teamService.getTeamsByEmployeeId(anyString())).thenReturn(List.of());
+        // A and B chat with each other, A and D share a team, C knows nobody
+        when(chatRepo.findDistinctReceiversBySender("A")).thenReturn(Set.of("B"));
+        when(chatRepo.findDistinctSendersByReceiver("B")).thenReturn(Set.of("A"));
+        when(teamService.getTeamsByEmployeeId("A")).thenReturn(List.of(new TeamResponse("T1", "Team 1",
+                List.of(member("A"), member("D")))));
+    }
+
+    @Test
+    void changesReachOnlyWatchingContactsInOneDiffPerInterval() {
+        connect("A");
+        connect("B");
+        connect("C");
+        presence.flush();
+
+        assertThat(diff("A", 1)).isEqualTo(new PresenceDiffDTO(List.of("B"), List.of()));
+        assertThat(diff("B", 1)).isEqualTo(new PresenceDiffDTO(List.of("A"), List.of()));
+        verify(template, never()).convertAndSendToUser(eq("C"), anyString(), any());
+
+        connect("D");
+        disconnect("B");
+        presence.flush();
+
+        assertThat(diff("A", 2)).isEqualTo(new PresenceDiffDTO(List.of("D"), List.of("B")));
+        verify(template, times(1)).convertAndSendToUser(eq("B"), anyString(), any());
+    }
+
+    @Test
+    void snapshotListsEveryContactWithItsStatus() {
+        connect("A");
+        connect("D");
+
+        assertThat(presence.snapshot("A")).containsExactly(Map.entry("B", false), Map.entry("D", true));
+    }
+
+    @Test
+    void contactsThatFailToLoadOnConnectAreLoadedAgainOnTheNextFlush() {
+        doReturn(CompletableFuture.failedFuture(new EmployeeServiceUnavailableException(
+                "employee-service call teams/A failed", null))).when(employeeClient).callAsync(any());
+        connect("A");
+        connect("D");
+        presence.flush();
+        verify(template, never()).convertAndSendToUser(eq("A"), anyString(), any());
+
+        doAnswer(invocation -> CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(0).get()))
+                .when(employeeClient).callAsync(any());
+        presence.flush();
+        disconnect("D");
+        presence.flush();
+
+        assertThat(diff("A", 1)).isEqualTo(new PresenceDiffDTO(List.of(), List.of("D")));
+    }
+
+    @Test
+    void snapshotFailsWhenTheTeamsCannotBeLoaded() {
+        doReturn(CompletableFuture.failedFuture(new EmployeeServiceUnavailableException(
+                "employee-service call teams/A failed", null))).when(employeeClient).callAsync(any());
+
+        assertThatThrownBy(() -> presence.snapshot("A")).isInstanceOf(EmployeeServiceUnavailableException.class);
+    }
+
+    private void connect(String user) {
+        if (onlineUsers.addUser(user, "session-" + user)) {
+            presence.online(user);
+        }
+    }
+
+    private void disconnect(String user) {
+        if (onlineUsers.removeUser(user, "session-" + user)) {
+            presence.offline(user);
+        }
+    }
+
+    // The latest of the expected number of diffs sent to the user
+    private PresenceDiffDTO diff(String user, int expected) {
+        ArgumentCaptor<PresenceDiffDTO> diffs = ArgumentCaptor.forClass(PresenceDiffDTO.class);
+        verify(template, times(expected)).convertAndSendToUser(eq(user), eq("/queue/presence"), diffs.capture());
+        return diffs.getValue();
+    }
+
+    private static EmployeeTeamResponse member(String employeeId) {
+        EmployeeTeamResponse member = new EmployeeTeamResponse();
+        member.setEmployeeId(employeeId);
+        return member;
+    }
+}
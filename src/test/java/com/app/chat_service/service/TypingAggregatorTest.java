@@ -0,0 +1,87 @@
+package com.app.chat_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.app.chat_service.dto.GroupTypingStatusDTO;
+import com.app.chat_service.dto.TypingStatusDTO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TypingAggregatorTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+    private final TypingAggregator aggregator = new TypingAggregator(template, new SimpleMeterRegistry(),
+            Duration.ofSeconds(1), Duration.ofSeconds(5));
+
+    @Test
+    void keystrokesWithinAnIntervalBecomeOneFrameAndTheStopFollowsOnFlush() {
+        for (int i = 0; i < 10; i++) {
+            aggregator.record(privateEvent(true), i * 50 * MS);
+        }
+        aggregator.record(privateEvent(false), 600 * MS);
+        aggregator.flush(900 * MS);
+
+        List<TypingStatusDTO> sent = privateFrames(1);
+        assertThat(sent.get(0).isTyping()).isTrue();
+
+        aggregator.flush(1_100 * MS);
+        sent = privateFrames(2);
+        assertThat(sent.get(1).isTyping()).isFalse();
+        assertThat(sent.get(1).getSenderId()).isEqualTo("EMP001");
+    }
+
+    @Test
+    void aSenderWhoGoesQuietStopsTypingAfterTheTtl() {
+        aggregator.record(privateEvent(true), 0);
+        aggregator.flush(4_000 * MS);
+        privateFrames(1);
+
+        aggregator.flush(5_000 * MS);
+        assertThat(privateFrames(2).get(1).isTyping()).isFalse();
+    }
+
+    @Test
+    void groupTypersAreSentTogetherOncePerInterval() {
+        aggregator.record(groupEvent("EMP002", true), 0);
+        aggregator.record(groupEvent("EMP003", true), 100 * MS);
+        aggregator.record(groupEvent("EMP004", true), 200 * MS);
+        aggregator.flush(1_000 * MS);
+
+        ArgumentCaptor<GroupTypingStatusDTO> frames = ArgumentCaptor.forClass(GroupTypingStatusDTO.class);
+        verify(template, times(2)).convertAndSend(eq("/topic/typing-status/TEAM-1"), frames.capture(), anyMap());
+        assertThat(frames.getAllValues()).extracting(GroupTypingStatusDTO::getTypingIds)
+                .containsExactly(List.of("EMP002"), List.of("EMP002", "EMP003", "EMP004"));
+        verify(template, never()).convertAndSendToUser(any(), any(), any(), anyMap());
+    }
+
+    private List<TypingStatusDTO> privateFrames(int expected) {
+        ArgumentCaptor<TypingStatusDTO> frames = ArgumentCaptor.forClass(TypingStatusDTO.class);
+        verify(template, times(expected)).convertAndSendToUser(eq("EMP002"), eq("/queue/typing-status"),
+                frames.capture(), anyMap());
+        return frames.getAllValues();
+    }
+
+    private static TypingStatusDTO privateEvent(boolean typing) {
+        return new TypingStatusDTO("EMP001", "EMP002", null, "PRIVATE", typing);
+    }
+
+    private static TypingStatusDTO groupEvent(String sender, boolean typing) {
+        return new TypingStatusDTO(sender, null, "TEAM-1", "TEAM", typing);
+    }
+}
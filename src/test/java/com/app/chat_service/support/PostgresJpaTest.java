@@ -0,0 +1,48 @@
+package com.app.chat_service.support;
+
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ContextConfiguration;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.app.chat_service.ChatServiceApplication;
+
+/**
+ * Base for JPA slice tests against the real schema: Flyway migrations on a throwaway Postgres, with
+ * the application's entities, repositories and Hibernate settings. Extra properties go in a
+ * {@code @TestPropertySource} on the test. Skipped without Docker.
+ * <p>
+ * One container serves every subclass, started on first use and removed when the JVM exits, so
+ * the Spring context cached for the first test class still points at a live database.
+ */
+@DataJpaTest(properties = {
+        "POSTGRES_URL=jdbc:postgresql://replaced-by-service-connection/chat",
+        "POSTGRES_USERNAME=chat",
+        "POSTGRES_PASSWORD=chat",
+        "POSTGRES_DRIVER=org.postgresql.Driver",
+        "POSTGRES_DIALECT=org.hibernate.dialect.PostgreSQLDialect",
+        "POSTGRES_SCHEMA=public",
+        "HIKARI_AUTO_COMMIT=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = PostgresJpaTest.JpaOnly.class)
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresJpaTest {
+
+    @ServiceConnection
+    protected static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static {
+        POSTGRES.start();
+    }
+
+    // The application class also enables Feign, caching and scheduling, which a JPA slice cannot satisfy
+    @SpringBootConfiguration
+    @AutoConfigurationPackage(basePackageClasses = ChatServiceApplication.class)
+    static class JpaOnly {
+    }
+}
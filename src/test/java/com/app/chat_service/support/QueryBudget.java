@@ -0,0 +1,58 @@
+package com.app.chat_service.support;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.app.chat_service.metrics.QueryCounter;
+
+/**
+ * Statement budgets for tests: fails when a piece of work issues more SQL statements through
+ * Hibernate than it is allowed, listing the statements so the N+1 is visible in the report.
+ * <pre>
+ * List&lt;...&gt; chats = QueryBudget.atMost(4, "sidebar for a user with 50 chats",
+ *         () -&gt; chatMessageService.getChattedEmployeesInSameTeam("EMP001", 0, 100));
+ * </pre>
+ * Counts statements on the calling thread only; work handed to another thread is not seen.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static <T> T atMost(int maxStatements, String description, Supplier<T> work) {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            T result = work.get();
+            check(maxStatements, description, scope);
+            return result;
+        }
+    }
+
+    public static void atMost(int maxStatements, String description, Runnable work) {
+        atMost(maxStatements, description, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /** Statements {@code work} issues, for budgets that compare two data shapes */
+    public static int count(Runnable work) {
+        try (QueryCounter.Scope scope = QueryCounter.open()) {
+            work.run();
+            return scope.count();
+        }
+    }
+
+    private static void check(int maxStatements, String description, QueryCounter.Scope scope) {
+        if (scope.count() <= maxStatements) {
+            return;
+        }
+        StringBuilder report = new StringBuilder()
+                .append(description).append(": expected at most ").append(maxStatements)
+                .append(" SQL statements, got ").append(scope.count());
+        List<String> statements = scope.statements();
+        for (int i = 0; i < statements.size(); i++) {
+            report.append("\n  ").append(i + 1).append(". ").append(statements.get(i).replaceAll("\\s+", " "));
+        }
+        throw new AssertionError(report.toString());
+    }
+}
@@ -0,0 +1,57 @@
+package com.app.chat_service.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.app.chat_service.metrics.CountingStatementInspector;
+import com.app.chat_service.metrics.QueryCounter;
+
+class QueryBudgetTest {
+
+    private final CountingStatementInspector inspector = new CountingStatementInspector();
+
+    @Test
+    void passesWithinBudgetAndReturnsTheResult() {
+        String result = QueryBudget.atMost(2, "two lookups", () -> {
+            inspector.inspect("select 1");
+            inspector.inspect("select 2");
+            return "done";
+        });
+
+        assertThat(result).isEqualTo("done");
+    }
+
+    @Test
+    void failsOverBudgetListingTheStatements() {
+        assertThatThrownBy(() -> QueryBudget.atMost(1, "sidebar for 3 chats", () -> {
+            for (int i = 0; i < 3; i++) {
+                inspector.inspect("select * from chat_messages\n where receiver = ?");
+            }
+        }))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("sidebar for 3 chats: expected at most 1 SQL statements, got 3")
+                .hasMessageContaining("3. select * from chat_messages where receiver = ?");
+    }
+
+    @Test
+    void nestedScopesCountForTheOuterScopeToo() {
+        try (QueryCounter.Scope outer = QueryCounter.open()) {
+            inspector.inspect("select 1");
+            int inner = QueryBudget.count(() -> inspector.inspect("select 2"));
+
+            assertThat(inner).isEqualTo(1);
+            assertThat(outer.count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void statementsOutsideAnyScopeOnlyCountTowardsTheTotal() {
+        long before = QueryCounter.total();
+        inspector.inspect("select 1");
+
+        assertThat(QueryCounter.total()).isEqualTo(before + 1);
+        assertThat(QueryBudget.count(() -> { })).isZero();
+    }
+}